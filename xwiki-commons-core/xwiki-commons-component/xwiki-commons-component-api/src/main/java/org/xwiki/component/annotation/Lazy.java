@@ -0,0 +1,50 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.xwiki.stability.Unstable;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Indicate that a dependency (or all the dependencies when used on the component implementation) should not be looked
+ * up when the component is created but the first time one of its methods is called. This is useful for dependencies
+ * which are costly to create and only used in rare cases.
+ * <p>
+ * A proxy is injected instead of the actual component so this only applies to dependencies whose role is an interface
+ * (other than {@link java.util.List}, {@link java.util.Map}, {@link javax.inject.Provider}, etc. which are injected as
+ * usual).
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({ TYPE, FIELD })
+@Unstable
+public @interface Lazy
+{
+}
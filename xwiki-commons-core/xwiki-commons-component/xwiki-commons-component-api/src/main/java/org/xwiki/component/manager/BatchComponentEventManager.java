@@ -0,0 +1,44 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.manager;
+
+import java.util.List;
+
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.stability.Unstable;
+
+/**
+ * A {@link ComponentEventManager} able to notify about several components registered at once so that listeners can
+ * handle all of them in one pass (for example when all the components of an extension are registered).
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public interface BatchComponentEventManager extends ComponentEventManager
+{
+    /**
+     * Notify all listeners that components with the passed descriptors have been registered.
+     *
+     * @param descriptors the descriptors of the registered components
+     * @param componentManager the ComponentManager where the components have been registered
+     */
+    void notifyComponentsRegistered(List<ComponentDescriptor<?>> descriptors, ComponentManager componentManager);
+}
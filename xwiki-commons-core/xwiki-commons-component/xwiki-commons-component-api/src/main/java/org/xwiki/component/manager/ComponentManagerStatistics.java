@@ -0,0 +1,81 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.manager;
+
+import java.util.Map;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Statistics about the lookups made in a component manager and the component instances it created.
+ * <p>
+ * Lookups are indexed by {@code <role type>:<role hint>} and creations by implementation class name. Times are in
+ * milliseconds.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public interface ComponentManagerStatistics
+{
+    /**
+     * @return the number of lookups of each component
+     */
+    Map<String, Long> getLookupCounts();
+
+    /**
+     * @return the number of lookups of each component which were not found in the component manager and had to be
+     *         looked up in its parent
+     */
+    Map<String, Long> getParentLookupCounts();
+
+    /**
+     * @return the number of instances created for each component implementation
+     */
+    Map<String, Long> getCreationCounts();
+
+    /**
+     * @return the total time spent creating the instances of each component implementation and injecting their
+     *         dependencies (including the creation of the dependencies)
+     */
+    Map<String, Long> getCreationTimes();
+
+    /**
+     * @return the total time spent in the lifecycle handlers (initialization, etc.) of the instances of each component
+     *         implementation
+     */
+    Map<String, Long> getLifecycleTimes();
+
+    /**
+     * @return the longest time spent creating an instance of each component implementation
+     */
+    Map<String, Long> getMaxCreationTimes();
+
+    /**
+     * @return the number of instances of each component implementation created in less than 1ms, 10ms, 100ms, 1s and
+     *         more than 1s
+     */
+    Map<String, long[]> getCreationTimeHistograms();
+
+    /**
+     * Forget all the collected statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,43 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.manager;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A {@link ComponentManager} able to collect statistics about the lookups made in it and the component instances it
+ * creates.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public interface MonitorableComponentManager extends ComponentManager
+{
+    /**
+     * @return the statistics collected about this component manager or null if they're not collected
+     */
+    ComponentManagerStatistics getStatistics();
+
+    /**
+     * @param enabled true to start collecting statistics (from scratch), false to stop collecting them
+     */
+    void setStatisticsEnabled(boolean enabled);
+}
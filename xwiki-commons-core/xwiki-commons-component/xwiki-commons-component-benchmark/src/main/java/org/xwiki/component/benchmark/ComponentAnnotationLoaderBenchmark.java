@@ -0,0 +1,162 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.component.annotation.ComponentAnnotationLoader;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+
+/**
+ * Benchmarks of the components discovery with {@link ComponentAnnotationLoader} over a synthetic class path made of
+ * many JARs declaring components.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentAnnotationLoaderBenchmark
+{
+    /**
+     * The components declared in each JAR.
+     */
+    private static final Class<?>[] COMPONENT_CLASSES = {BenchmarkComponent.class, PerLookupBenchmarkComponent.class};
+
+    /**
+     * The number of JARs in the class path.
+     */
+    @Param({ "500" })
+    private int jarCount;
+
+    private File directory;
+
+    private File[] jars;
+
+    private File snapshot;
+
+    private URLClassLoader classLoader;
+
+    /**
+     * Generate the JARs.
+     *
+     * @throws IOException when failing to write the JARs
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        this.directory = Files.createTempDirectory("xwiki-component-benchmark").toFile();
+
+        this.jars = new File[this.jarCount];
+        URL[] urls = new URL[this.jarCount];
+        for (int i = 0; i < this.jarCount; ++i) {
+            this.jars[i] = new File(this.directory, "components-" + i + ".jar");
+            writeJar(this.jars[i], i);
+            urls[i] = this.jars[i].toURI().toURL();
+        }
+
+        this.classLoader = new URLClassLoader(urls, getClass().getClassLoader());
+
+        this.snapshot = new File(this.directory, "components.snapshot");
+        new ComponentAnnotationLoader().initialize(new EmbeddableComponentManager(), this.classLoader, this.snapshot);
+    }
+
+    private void writeJar(File jar, int index) throws IOException
+    {
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry(ComponentAnnotationLoader.COMPONENT_LIST));
+
+            // Use a different priority in each JAR to not get warnings about the components declared several times
+            Writer writer = new OutputStreamWriter(zip, "UTF-8");
+            int priority = 1000 + index;
+            for (Class<?> componentClass : COMPONENT_CLASSES) {
+                writer.write(priority + ":" + componentClass.getName() + '\n');
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * Delete the JARs.
+     *
+     * @throws IOException when failing to close the class loader
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        this.classLoader.close();
+
+        for (File jar : this.jars) {
+            jar.delete();
+        }
+        this.snapshot.delete();
+        this.directory.delete();
+    }
+
+    /**
+     * @return the component manager initialized by parsing the component lists and the component classes
+     */
+    @Benchmark
+    public EmbeddableComponentManager initialize()
+    {
+        EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+        new ComponentAnnotationLoader().initialize(componentManager, this.classLoader);
+
+        return componentManager;
+    }
+
+    /**
+     * @return the component manager initialized from the registry snapshot
+     */
+    @Benchmark
+    public EmbeddableComponentManager initializeFromSnapshot()
+    {
+        EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+        new ComponentAnnotationLoader().initialize(componentManager, this.classLoader, this.snapshot);
+
+        return componentManager;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentRepositoryException;
+
+/**
+ * Benchmarks of the {@link EmbeddableComponentManager} lookup and registration hot paths.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentManagerBenchmark
+{
+    private static final String SINGLETON_HINT = "singleton";
+
+    private static final String PER_LOOKUP_HINT = "perlookup";
+
+    private static final String CHURN_HINT = "churn";
+
+    /**
+     * The number of components registered with the benchmark role.
+     */
+    @Param({ "10", "1000", "5000" })
+    private int componentCount;
+
+    private EmbeddableComponentManager componentManager;
+
+    private EmbeddableComponentManager childComponentManager;
+
+    private String singletonHint;
+
+    private DefaultComponentDescriptor<BenchmarkRole> churnDescriptor;
+
+    /**
+     * Register the components.
+     *
+     * @throws ComponentRepositoryException when failing to register the components
+     */
+    @Setup
+    public void setUp() throws ComponentRepositoryException
+    {
+        this.componentManager = new EmbeddableComponentManager();
+
+        for (int i = 0; i < this.componentCount; ++i) {
+            this.componentManager.registerComponent(createDescriptor(SINGLETON_HINT + i, BenchmarkComponent.class,
+                ComponentInstantiationStrategy.SINGLETON));
+        }
+
+        this.componentManager.registerComponent(createDescriptor(PER_LOOKUP_HINT,
+            PerLookupBenchmarkComponent.class, ComponentInstantiationStrategy.PER_LOOKUP));
+
+        this.childComponentManager = new EmbeddableComponentManager();
+        this.childComponentManager.setParent(this.componentManager);
+
+        this.singletonHint = SINGLETON_HINT + (this.componentCount / 2);
+
+        this.churnDescriptor =
+            createDescriptor(CHURN_HINT, BenchmarkComponent.class, ComponentInstantiationStrategy.SINGLETON);
+    }
+
+    private DefaultComponentDescriptor<BenchmarkRole> createDescriptor(String hint,
+        Class<? extends BenchmarkRole> implementation, ComponentInstantiationStrategy strategy)
+    {
+        DefaultComponentDescriptor<BenchmarkRole> descriptor = new DefaultComponentDescriptor<>();
+        descriptor.setRoleType(BenchmarkRole.class);
+        descriptor.setRoleHint(hint);
+        descriptor.setImplementation(implementation);
+        descriptor.setInstantiationStrategy(strategy);
+
+        return descriptor;
+    }
+
+    /**
+     * @return an already created singleton registered in the component manager
+     * @throws ComponentLookupException when failing to lookup the component
+     */
+    @Benchmark
+    public BenchmarkRole getInstance() throws ComponentLookupException
+    {
+        return this.componentManager.getInstance(BenchmarkRole.class, this.singletonHint);
+    }
+
+    /**
+     * @return a singleton registered in the parent of the component manager
+     * @throws ComponentLookupException when failing to lookup the component
+     */
+    @Benchmark
+    public BenchmarkRole getInstanceFromParent() throws ComponentLookupException
+    {
+        return this.childComponentManager.getInstance(BenchmarkRole.class, this.singletonHint);
+    }
+
+    /**
+     * @return a new instance of a per lookup component
+     * @throws ComponentLookupException when failing to lookup the component
+     */
+    @Benchmark
+    public BenchmarkRole getInstancePerLookup() throws ComponentLookupException
+    {
+        return this.componentManager.getInstance(BenchmarkRole.class, PER_LOOKUP_HINT);
+    }
+
+    /**
+     * @return all the components registered with the benchmark role
+     * @throws ComponentLookupException when failing to lookup the components
+     */
+    @Benchmark
+    public List<BenchmarkRole> getInstanceList() throws ComponentLookupException
+    {
+        return this.componentManager.getInstanceList(BenchmarkRole.class);
+    }
+
+    /**
+     * @return all the components registered with the benchmark role, indexed by hint
+     * @throws ComponentLookupException when failing to lookup the components
+     */
+    @Benchmark
+    public Map<String, BenchmarkRole> getInstanceMap() throws ComponentLookupException
+    {
+        return this.componentManager.getInstanceMap(BenchmarkRole.class);
+    }
+
+    /**
+     * Register and unregister a component.
+     *
+     * @throws ComponentRepositoryException when failing to register the component
+     */
+    @Benchmark
+    public void registerUnregister() throws ComponentRepositoryException
+    {
+        this.componentManager.registerComponent(this.churnDescriptor);
+        this.componentManager.unregisterComponent(this.churnDescriptor);
+    }
+}
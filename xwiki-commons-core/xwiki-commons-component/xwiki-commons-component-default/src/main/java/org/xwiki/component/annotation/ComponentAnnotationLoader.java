@@ -20,6 +20,7 @@
 package org.xwiki.component.annotation;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -29,8 +30,10 @@
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -44,10 +47,13 @@
 import org.slf4j.LoggerFactory;
 import org.xwiki.component.descriptor.ComponentDescriptor;
 import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.embed.EmbeddableComponentManager;
 import org.xwiki.component.internal.RoleHint;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.manager.ComponentRepositoryException;
 import org.xwiki.component.util.DefaultParameterizedType;
 import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.stability.Unstable;
 
 /**
  * Dynamically loads all components defined using Annotations and declared in META-INF/components.txt files.
@@ -72,6 +78,14 @@
     @Deprecated
     public static final String COMPONENT_OVERRIDE_LIST = "META-INF/component-overrides.txt";
 
+    /**
+     * Location in the classloader of the optional file containing the precomputed descriptors of the components
+     * declared in {@link #COMPONENT_LIST} (see {@link ComponentDescriptorIndex}).
+     *
+     * @since 7.1M1
+     */
+    public static final String COMPONENT_INDEX = "META-INF/components.idx";
+
     /**
      * The encoding used to parse component list files.
      */
@@ -96,31 +110,157 @@
      */
     public void initialize(ComponentManager manager, ClassLoader classLoader)
     {
+        List<ComponentDeclaration> componentDeclarations;
         try {
-            // Find all declared components by retrieving the list defined in COMPONENT_LIST.
-            List<ComponentDeclaration> componentDeclarations = getDeclaredComponents(classLoader, COMPONENT_LIST);
-
-            // Find all the Component overrides and adds them to the bottom of the list as component declarations with
-            // the highest priority of 0. This is purely for backward compatibility since the override files is now
-            // deprecated.
-            List<ComponentDeclaration> componentOverrideDeclarations =
-                getDeclaredComponents(classLoader, COMPONENT_OVERRIDE_LIST);
-            for (ComponentDeclaration componentOverrideDeclaration : componentOverrideDeclarations) {
-                // Since the old way to declare an override was to define it in both a component.txt and a
-                // component-overrides.txt file we first need to remove the override component declaration stored in
-                // componentDeclarations.
-                componentDeclarations.remove(componentOverrideDeclaration);
-                // Add it to the end of the list with the highest priority.
-                componentDeclarations.add(new ComponentDeclaration(componentOverrideDeclaration
-                    .getImplementationClassName(), 0));
-            }
-
-            initialize(manager, classLoader, componentDeclarations);
+            componentDeclarations = getDeclaredComponents(classLoader);
         } catch (Exception e) {
             // Make sure we make the calling code fail in order to fail fast and prevent the application to start
             // if something is amiss.
             throw new RuntimeException("Failed to get the list of components to load", e);
         }
+
+        initialize(manager, classLoader, componentDeclarations);
+    }
+
+    /**
+     * Loads all components defined using annotations, reusing the descriptors stored in the passed snapshot file when
+     * the JARs declaring the components did not change since it was written. The snapshot is (re)written otherwise.
+     *
+     * @param manager the component manager to use to dynamically register components
+     * @param classLoader the classloader to use to look for the Component list declaration file (
+     *            {@code META-INF/components.txt})
+     * @param snapshotFile the file where to store the registered descriptors, null to not use any
+     * @since 7.1M1
+     */
+    @Unstable
+    public void initialize(ComponentManager manager, ClassLoader classLoader, File snapshotFile)
+    {
+        if (snapshotFile == null) {
+            initialize(manager, classLoader);
+
+            return;
+        }
+
+        ComponentRegistrySnapshot snapshot = new ComponentRegistrySnapshot(snapshotFile);
+
+        String fingerprint = null;
+        try {
+            fingerprint = ComponentRegistrySnapshot.getFingerprint(classLoader, COMPONENT_LIST,
+                COMPONENT_OVERRIDE_LIST);
+        } catch (IOException e) {
+            getLogger().warn("Failed to compute the fingerprint of the components declarations", e);
+        }
+
+        if (fingerprint != null && registerSnapshot(manager, classLoader, snapshot, fingerprint)) {
+            return;
+        }
+
+        try {
+            Collection<ComponentDescriptor<?>> descriptors =
+                getComponentsDescriptors(classLoader, getDeclaredComponents(classLoader));
+
+            registerComponents(manager, descriptors);
+
+            if (fingerprint != null) {
+                writeSnapshot(snapshot, fingerprint, descriptors);
+            }
+        } catch (Exception e) {
+            // Make sure we make the calling code fail in order to fail fast and prevent the application to start
+            // if something is amiss.
+            throw new RuntimeException("Failed to dynamically load components with annotations", e);
+        }
+    }
+
+    private boolean registerSnapshot(ComponentManager manager, ClassLoader classLoader,
+        ComponentRegistrySnapshot snapshot, String fingerprint)
+    {
+        List<ComponentDescriptor<?>> descriptors = new ArrayList<ComponentDescriptor<?>>();
+
+        try {
+            ComponentDescriptorIndex index = snapshot.read(fingerprint);
+            if (index == null) {
+                return false;
+            }
+
+            // Resolve everything before registering anything to be able to fall back on the standard discovery
+            for (String implementationClassName : index.getImplementationClassNames()) {
+                for (ComponentDescriptor descriptor : index.getComponentDescriptors(classLoader
+                    .loadClass(implementationClassName))) {
+                    descriptors.add(descriptor);
+                }
+            }
+        } catch (Throwable e) {
+            getLogger().warn("Failed to load components from snapshot [{}], discovering them", snapshot.getFile(), e);
+
+            return false;
+        }
+
+        LOGGER.debug("Registering [{}] component descriptors from snapshot [{}]", descriptors.size(),
+            snapshot.getFile());
+
+        registerComponents(manager, descriptors);
+
+        return true;
+    }
+
+    private void writeSnapshot(ComponentRegistrySnapshot snapshot, String fingerprint,
+        Collection<ComponentDescriptor<?>> descriptors)
+    {
+        // Group the descriptors by implementation
+        Map<Class<?>, List<ComponentDescriptor>> components = new LinkedHashMap<Class<?>, List<ComponentDescriptor>>();
+        for (ComponentDescriptor<?> descriptor : descriptors) {
+            List<ComponentDescriptor> componentDescriptors = components.get(descriptor.getImplementation());
+            if (componentDescriptors == null) {
+                componentDescriptors = new ArrayList<ComponentDescriptor>();
+                components.put(descriptor.getImplementation(), componentDescriptors);
+            }
+            componentDescriptors.add(descriptor);
+        }
+
+        ComponentDescriptorIndex index = new ComponentDescriptorIndex();
+        for (Map.Entry<Class<?>, List<ComponentDescriptor>> entry : components.entrySet()) {
+            if (!index.add(entry.getKey(), entry.getValue())) {
+                LOGGER.debug("Component [{}] cannot be stored in a snapshot", entry.getKey().getName());
+
+                return;
+            }
+        }
+
+        try {
+            snapshot.write(fingerprint, index);
+        } catch (IOException e) {
+            getLogger().warn("Failed to write components snapshot [{}]", snapshot.getFile(), e);
+        }
+    }
+
+    /**
+     * @param classLoader the classloader to use to look for the Component list declaration files
+     * @return the declarations of the components to register
+     * @throws IOException in case of an error loading the component list resources
+     */
+    private List<ComponentDeclaration> getDeclaredComponents(ClassLoader classLoader) throws IOException
+    {
+        // Find all declared components by retrieving the list defined in COMPONENT_LIST.
+        List<ComponentDeclaration> componentDeclarations = getDeclaredComponents(classLoader, COMPONENT_LIST);
+
+        // Find all the Component overrides and adds them to the bottom of the list as component declarations with
+        // the highest priority of 0. This is purely for backward compatibility since the override files is now
+        // deprecated.
+        List<ComponentDeclaration> componentOverrideDeclarations =
+            getDeclaredComponents(classLoader, COMPONENT_OVERRIDE_LIST);
+        for (ComponentDeclaration componentOverrideDeclaration : componentOverrideDeclarations) {
+            // Since the old way to declare an override was to define it in both a component.txt and a
+            // component-overrides.txt file we first need to remove the override component declaration stored in
+            // componentDeclarations.
+            componentDeclarations.remove(componentOverrideDeclaration);
+            // Add it to the end of the list with the highest priority.
+            ComponentDeclaration overrideDeclaration =
+                new ComponentDeclaration(componentOverrideDeclaration.getImplementationClassName(), 0);
+            overrideDeclaration.setDescriptorIndex(componentOverrideDeclaration.getDescriptorIndex());
+            componentDeclarations.add(overrideDeclaration);
+        }
+
+        return componentDeclarations;
     }
 
     /**
@@ -147,45 +287,64 @@ public void register(ComponentManager manager, ClassLoader classLoader,
         List<ComponentDeclaration> componentDeclarations)
     {
         try {
-            // 2) For each component class name found, load its class and use introspection to find the necessary
-            // annotations required to create a Component Descriptor.
-            Map<RoleHint<?>, ComponentDescriptor<?>> descriptorMap =
-                new HashMap<RoleHint<?>, ComponentDescriptor<?>>();
-            Map<RoleHint<?>, Integer> priorityMap = new HashMap<RoleHint<?>, Integer>();
+            registerComponents(manager, getComponentsDescriptors(classLoader, componentDeclarations));
+        } catch (Exception e) {
+            // Make sure we make the calling code fail in order to fail fast and prevent the application to start
+            // if something is amiss.
+            throw new RuntimeException("Failed to dynamically load components with annotations", e);
+        }
+    }
 
-            for (ComponentDeclaration componentDeclaration : componentDeclarations) {
-                Class<?> componentClass;
-                try {
-                    componentClass = classLoader.loadClass(componentDeclaration.getImplementationClassName());
-                } catch (Throwable e) {
-                    throw new RuntimeException(
-                        String.format("Failed to load component class [%s] for annotation parsing",
-                            componentDeclaration.getImplementationClassName()), e);
-                }
+    /**
+     * For each component class name found, load its class and use introspection to find the necessary annotations
+     * required to create a Component Descriptor.
+     */
+    private Collection<ComponentDescriptor<?>> getComponentsDescriptors(ClassLoader classLoader,
+        List<ComponentDeclaration> componentDeclarations)
+    {
+        Map<RoleHint<?>, ComponentDescriptor<?>> descriptorMap = new HashMap<RoleHint<?>, ComponentDescriptor<?>>();
+        Map<RoleHint<?>, Integer> priorityMap = new HashMap<RoleHint<?>, Integer>();
 
-                // Look for ComponentRole annotations and register one component per ComponentRole found
-                for (Type componentRoleType : findComponentRoleTypes(componentClass)) {
-                    for (ComponentDescriptor<?> componentDescriptor : this.factory.createComponentDescriptors(
-                        componentClass, componentRoleType)) {
-                        // If there's already a existing role/hint in the list of descriptors then decide which one
-                        // to keep by looking at their priorities. Highest priority wins (i.e. lowest integer value).
-                        RoleHint<?> roleHint =
-                            new RoleHint(componentDescriptor.getRoleType(), componentDescriptor.getRoleHint());
-
-                        addComponent(descriptorMap, priorityMap, roleHint, componentDescriptor, componentDeclaration,
-                            true);
-                    }
-                }
+        for (ComponentDeclaration componentDeclaration : componentDeclarations) {
+            Class<?> componentClass;
+            try {
+                componentClass = classLoader.loadClass(componentDeclaration.getImplementationClassName());
+            } catch (Throwable e) {
+                throw new RuntimeException(String.format("Failed to load component class [%s] for annotation parsing",
+                    componentDeclaration.getImplementationClassName()), e);
             }
 
-            // 3) Activate all component descriptors
-            for (ComponentDescriptor<?> descriptor : descriptorMap.values()) {
-                manager.registerComponent(descriptor);
+            // Register one component per ComponentRole found
+            for (ComponentDescriptor<?> componentDescriptor : getComponentsDescriptors(componentClass,
+                componentDeclaration)) {
+                // If there's already a existing role/hint in the list of descriptors then decide which one
+                // to keep by looking at their priorities. Highest priority wins (i.e. lowest integer value).
+                RoleHint<?> roleHint = new RoleHint(componentDescriptor.getRoleType(), componentDescriptor.getRoleHint());
+
+                addComponent(descriptorMap, priorityMap, roleHint, componentDescriptor, componentDeclaration, true);
+            }
+        }
+
+        return descriptorMap.values();
+    }
+
+    /**
+     * Activate all component descriptors.
+     */
+    private void registerComponents(ComponentManager manager, Collection<ComponentDescriptor<?>> descriptors)
+    {
+        if (manager instanceof EmbeddableComponentManager) {
+            // Register them all at once
+            ((EmbeddableComponentManager) manager).registerComponents(descriptors);
+        } else {
+            for (ComponentDescriptor<?> descriptor : descriptors) {
+                try {
+                    manager.registerComponent(descriptor);
+                } catch (ComponentRepositoryException e) {
+                    throw new RuntimeException(
+                        String.format("Failed to register component descriptor [%s]", descriptor), e);
+                }
             }
-        } catch (Exception e) {
-            // Make sure we make the calling code fail in order to fail fast and prevent the application to start
-            // if something is amiss.
-            throw new RuntimeException("Failed to dynamically load components with annotations", e);
         }
     }
 
@@ -246,7 +405,8 @@ public void unregister(ComponentManager manager, ClassLoader classLoader,
             }
 
             if (componentClass != null) {
-                for (ComponentDescriptor<?> componentDescriptor : getComponentsDescriptors(componentClass)) {
+                for (ComponentDescriptor<?> componentDescriptor : getComponentsDescriptors(componentClass,
+                    componentDeclaration)) {
                     manager.unregisterComponent(componentDescriptor);
 
                     if (componentDescriptor.getRoleType() instanceof ParameterizedType) {
@@ -275,6 +435,35 @@ public List<ComponentDescriptor> getComponentsDescriptors(Class<?> componentClas
         return descriptors;
     }
 
+    /**
+     * Get the descriptors of the passed component from the declaration index when available and by parsing the
+     * component class annotations otherwise.
+     */
+    private List<ComponentDescriptor> getComponentsDescriptors(Class<?> componentClass,
+        ComponentDeclaration componentDeclaration)
+    {
+        ComponentDescriptorIndex index = componentDeclaration.getDescriptorIndex();
+
+        // A different priority means the component list was modified after the index was generated
+        Integer indexedPriority = index != null ? index.getPriority(componentClass.getName()) : null;
+        if (indexedPriority != null && indexedPriority != componentDeclaration.getPriority()) {
+            getLogger().debug("Component [{}] is declared with a different priority than in the index, parsing its"
+                + " class", componentClass.getName());
+        } else if (index != null) {
+            try {
+                List<ComponentDescriptor> descriptors = index.getComponentDescriptors(componentClass);
+                if (descriptors != null) {
+                    return descriptors;
+                }
+            } catch (Exception e) {
+                getLogger().debug("Failed to get descriptors of component [{}] from the index, parsing its class",
+                    componentClass.getName(), e);
+            }
+        }
+
+        return getComponentsDescriptors(componentClass);
+    }
+
     public Set<Type> findComponentRoleTypes(Class<?> componentClass)
     {
         return findComponentRoleTypes(componentClass, null);
@@ -447,16 +636,64 @@ private List<ComponentDeclaration> getDeclaredComponents(ClassLoader classLoader
 
             InputStream componentListStream = url.openStream();
 
+            List<ComponentDeclaration> declarations;
             try {
-                annotatedClassNames.addAll(getDeclaredComponents(componentListStream));
+                declarations = getDeclaredComponents(componentListStream);
             } finally {
                 componentListStream.close();
             }
+
+            // Attach the precomputed component descriptors if any
+            setDescriptorIndex(declarations, getDescriptorIndex(url));
+
+            annotatedClassNames.addAll(declarations);
         }
 
         return annotatedClassNames;
     }
 
+    /**
+     * @param componentListURL the URL of the component list (or component override list)
+     * @return the component descriptor index located next to the passed component list or null if there is none
+     */
+    private ComponentDescriptorIndex getDescriptorIndex(URL componentListURL)
+    {
+        InputStream indexStream;
+        try {
+            indexStream = new URL(componentListURL, COMPONENT_INDEX.substring(COMPONENT_INDEX.indexOf('/') + 1))
+                .openStream();
+        } catch (IOException e) {
+            // No index
+            return null;
+        }
+
+        try {
+            LOGGER.debug("Loading component descriptor index next to [{}]", componentListURL);
+
+            return ComponentDescriptorIndex.read(indexStream);
+        } catch (IOException e) {
+            getLogger().warn("Failed to read component descriptor index next to [{}], ignoring it", componentListURL,
+                e);
+        } finally {
+            try {
+                indexStream.close();
+            } catch (IOException e) {
+                // Nothing to do
+            }
+        }
+
+        return null;
+    }
+
+    private void setDescriptorIndex(List<ComponentDeclaration> componentDeclarations, ComponentDescriptorIndex index)
+    {
+        if (index != null && componentDeclarations != null) {
+            for (ComponentDeclaration componentDeclaration : componentDeclarations) {
+                componentDeclaration.setDescriptorIndex(index);
+            }
+        }
+    }
+
     /**
      * Get all components listed in the passed resource stream. The format is:
      * {@code (priority level):(fully qualified component implementation name)}.
@@ -511,16 +748,27 @@ public List<ComponentDeclaration> getDeclaredComponentsFromJAR(InputStream jarFi
 
         List<ComponentDeclaration> componentDeclarations = null;
         List<ComponentDeclaration> componentOverrideDeclarations = null;
+        ComponentDescriptorIndex index = null;
 
         for (ZipEntry entry = zis.getNextEntry(); entry != null
-            && (componentDeclarations == null || componentOverrideDeclarations == null); entry = zis.getNextEntry()) {
+            && (componentDeclarations == null || componentOverrideDeclarations == null || index == null); entry =
+            zis.getNextEntry()) {
             if (entry.getName().equals(ComponentAnnotationLoader.COMPONENT_LIST)) {
                 componentDeclarations = getDeclaredComponents(zis);
             } else if (entry.getName().equals(ComponentAnnotationLoader.COMPONENT_OVERRIDE_LIST)) {
                 componentOverrideDeclarations = getDeclaredComponents(zis);
+            } else if (entry.getName().equals(ComponentAnnotationLoader.COMPONENT_INDEX)) {
+                try {
+                    index = ComponentDescriptorIndex.read(zis);
+                } catch (IOException e) {
+                    getLogger().warn("Failed to read component descriptor index, ignoring it", e);
+                }
             }
         }
 
+        // Attach the precomputed component descriptors if any
+        setDescriptorIndex(componentDeclarations, index);
+
         // Merge all overrides found with a priority of 0. This is purely for backward compatibility since the
         // override files is now deprecated.
         if (componentOverrideDeclarations != null) {
@@ -528,8 +776,10 @@ public List<ComponentDeclaration> getDeclaredComponentsFromJAR(InputStream jarFi
                 componentDeclarations = new ArrayList<ComponentDeclaration>();
             }
             for (ComponentDeclaration componentOverrideDeclaration : componentOverrideDeclarations) {
-                componentDeclarations.add(new ComponentDeclaration(componentOverrideDeclaration
-                    .getImplementationClassName(), 0));
+                ComponentDeclaration overrideDeclaration =
+                    new ComponentDeclaration(componentOverrideDeclaration.getImplementationClassName(), 0);
+                overrideDeclaration.setDescriptorIndex(index);
+                componentDeclarations.add(overrideDeclaration);
             }
         }
 
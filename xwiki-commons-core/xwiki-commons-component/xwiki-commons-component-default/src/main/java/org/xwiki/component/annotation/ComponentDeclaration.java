@@ -45,6 +45,11 @@
      */
     private String implementationClassName;
 
+    /**
+     * @see #getDescriptorIndex()
+     */
+    private ComponentDescriptorIndex descriptorIndex;
+
     /**
      * @param implementationClassName see {@link #getImplementationClassName()}
      * @since 4.2M1
@@ -81,6 +86,24 @@ public String getImplementationClassName()
         return this.implementationClassName;
     }
 
+    /**
+     * @return the index containing the precomputed descriptors of the component or null if there is none
+     * @since 7.1M1
+     */
+    ComponentDescriptorIndex getDescriptorIndex()
+    {
+        return this.descriptorIndex;
+    }
+
+    /**
+     * @param descriptorIndex the index containing the precomputed descriptors of the component
+     * @since 7.1M1
+     */
+    void setDescriptorIndex(ComponentDescriptorIndex descriptorIndex)
+    {
+        this.descriptorIndex = descriptorIndex;
+    }
+
     // Object
 
     @Override
@@ -0,0 +1,516 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.annotation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xwiki.component.descriptor.ComponentDependency;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.descriptor.DefaultComponentDependency;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.util.DefaultParameterizedType;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Fully resolved component descriptors of a set of component implementations, generated at build time (see
+ * {@link ComponentDescriptorIndexMain}) and stored next to {@code META-INF/components.txt} so that
+ * {@link ComponentAnnotationLoader} does not have to parse annotations, fields and generic types of each component
+ * implementation at runtime.
+ * <p>
+ * The format is a UTF-8 text file with one record per line and tab separated values:
+ * <ul>
+ * <li>{@code C <implementation class> [<priority>]}: a component implementation and the priority it is declared with
+ * (see {@link ComponentDeclaration#getPriority()})</li>
+ * <li>{@code R <instantiation strategy> <role hint> <role type>}: a descriptor of the previous implementation</li>
+ * <li>{@code D <field name> <role hint> <role type>}: a dependency of the previous descriptor</li>
+ * </ul>
+ * Types are serialized as {@code [(owner type)]class name[<argument type,...>]}. Components with types which cannot be
+ * serialized this way (type variables, wildcards, etc.) are not indexed and are parsed at runtime as usual.
+ * <p>
+ * Several indexes can be concatenated in one file, like the component lists of the jars merged in a single jar.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public class ComponentDescriptorIndex
+{
+    /**
+     * The version of the index format, written on the first line.
+     */
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final String COMPONENT = "C";
+
+    private static final String ROLE = "R";
+
+    private static final String DEPENDENCY = "D";
+
+    private static final char SEPARATOR = '\t';
+
+    private static final char NEW_LINE = '\n';
+
+    private static final char OWNER_START = '(';
+
+    private static final char OWNER_END = ')';
+
+    private static final char ARGUMENTS_START = '<';
+
+    private static final char ARGUMENTS_END = '>';
+
+    private static final char ARGUMENTS_SEPARATOR = ',';
+
+    private static final String RESERVED_CHARACTERS = "\t\n\r";
+
+    /**
+     * Serialized descriptors indexed by implementation class name.
+     */
+    private final Map<String, List<IndexedDescriptor>> components = new LinkedHashMap<>();
+
+    /**
+     * The declared priorities indexed by implementation class name.
+     */
+    private final Map<String, Integer> priorities = new HashMap<>();
+
+    private static class IndexedDescriptor
+    {
+        private final String[] role;
+
+        private final List<String[]> dependencies = new ArrayList<>();
+
+        IndexedDescriptor(String[] role)
+        {
+            this.role = role;
+        }
+    }
+
+    /**
+     * @param stream the stream to read the index from
+     * @return the index
+     * @throws IOException when failing to read or parse the stream
+     */
+    public static ComponentDescriptorIndex read(InputStream stream) throws IOException
+    {
+        ComponentDescriptorIndex index = new ComponentDescriptorIndex();
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(stream, ENCODING));
+
+        String version = in.readLine();
+        if (!FORMAT_VERSION.equals(version)) {
+            throw new IOException("Unsupported component descriptor index version [" + version + "]");
+        }
+
+        List<IndexedDescriptor> descriptors = null;
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (line.equals(FORMAT_VERSION)) {
+                // Beginning of another concatenated index
+                descriptors = null;
+            } else if (!line.isEmpty()) {
+                descriptors = index.readLine(line, descriptors);
+            }
+        }
+
+        return index;
+    }
+
+    private List<IndexedDescriptor> readLine(String line, List<IndexedDescriptor> currentDescriptors)
+        throws IOException
+    {
+        String[] values = line.split(String.valueOf(SEPARATOR), -1);
+
+        if (values[0].equals(COMPONENT) && (values.length == 2 || values.length == 3)) {
+            return readComponent(values, line);
+        } else if (currentDescriptors != null && values.length == 4) {
+            if (values[0].equals(ROLE)) {
+                currentDescriptors.add(new IndexedDescriptor(values));
+
+                return currentDescriptors;
+            } else if (values[0].equals(DEPENDENCY) && !currentDescriptors.isEmpty()) {
+                currentDescriptors.get(currentDescriptors.size() - 1).dependencies.add(values);
+
+                return currentDescriptors;
+            }
+        }
+
+        throw new IOException("Invalid component descriptor index line [" + line + "]");
+    }
+
+    private List<IndexedDescriptor> readComponent(String[] values, String line) throws IOException
+    {
+        List<IndexedDescriptor> descriptors = new ArrayList<>();
+        this.components.put(values[1], descriptors);
+
+        if (values.length == 3) {
+            try {
+                this.priorities.put(values[1], Integer.valueOf(values[2]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid component priority in line [" + line + "]", e);
+            }
+        }
+
+        return descriptors;
+    }
+
+    /**
+     * @param stream the stream where to write the index
+     * @throws IOException when failing to write the index
+     */
+    public void write(OutputStream stream) throws IOException
+    {
+        Writer writer = new OutputStreamWriter(stream, ENCODING);
+
+        writer.append(FORMAT_VERSION).append(NEW_LINE);
+
+        for (Map.Entry<String, List<IndexedDescriptor>> entry : this.components.entrySet()) {
+            writer.append(COMPONENT).append(SEPARATOR).append(entry.getKey());
+            Integer priority = this.priorities.get(entry.getKey());
+            if (priority != null) {
+                writer.append(SEPARATOR).append(priority.toString());
+            }
+            writer.append(NEW_LINE);
+
+            for (IndexedDescriptor descriptor : entry.getValue()) {
+                writeLine(writer, descriptor.role);
+
+                for (String[] dependency : descriptor.dependencies) {
+                    writeLine(writer, dependency);
+                }
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void writeLine(Writer writer, String[] values) throws IOException
+    {
+        for (int i = 0; i < values.length; ++i) {
+            if (i > 0) {
+                writer.append(SEPARATOR);
+            }
+            writer.append(values[i]);
+        }
+        writer.append(NEW_LINE);
+    }
+
+    /**
+     * Add the descriptors of a component implementation to the index.
+     *
+     * @param componentClass the component implementation class
+     * @param descriptors the descriptors of the component implementation
+     * @return true if the component has been indexed, false if some descriptor cannot be represented in the index
+     */
+    public boolean add(Class<?> componentClass, Collection<ComponentDescriptor> descriptors)
+    {
+        return addComponent(componentClass, null, descriptors);
+    }
+
+    /**
+     * Add the descriptors of a declared component implementation to the index.
+     *
+     * @param componentClass the component implementation class
+     * @param priority the priority the component implementation is declared with (see
+     *            {@link ComponentDeclaration#getPriority()})
+     * @param descriptors the descriptors of the component implementation
+     * @return true if the component has been indexed, false if some descriptor cannot be represented in the index
+     */
+    public boolean add(Class<?> componentClass, int priority, Collection<ComponentDescriptor> descriptors)
+    {
+        return addComponent(componentClass, priority, descriptors);
+    }
+
+    private boolean addComponent(Class<?> componentClass, Integer priority,
+        Collection<ComponentDescriptor> descriptors)
+    {
+        List<IndexedDescriptor> indexedDescriptors = new ArrayList<>(descriptors.size());
+
+        for (ComponentDescriptor<?> descriptor : descriptors) {
+            String roleType = serializeType(descriptor.getRoleType());
+            if (roleType == null || !isSerializable(descriptor.getRoleHint())) {
+                return false;
+            }
+
+            IndexedDescriptor indexedDescriptor = new IndexedDescriptor(new String[] {ROLE,
+                descriptor.getInstantiationStrategy().name(), descriptor.getRoleHint(), roleType});
+
+            for (ComponentDependency<?> dependency : descriptor.getComponentDependencies()) {
+                String[] indexedDependency = serializeDependency(dependency);
+                if (indexedDependency == null) {
+                    return false;
+                }
+                indexedDescriptor.dependencies.add(indexedDependency);
+            }
+
+            indexedDescriptors.add(indexedDescriptor);
+        }
+
+        this.components.put(componentClass.getName(), indexedDescriptors);
+        if (priority != null) {
+            this.priorities.put(componentClass.getName(), priority);
+        } else {
+            this.priorities.remove(componentClass.getName());
+        }
+
+        return true;
+    }
+
+    private String[] serializeDependency(ComponentDependency<?> dependency)
+    {
+        // Filtering hints are not supported by the index
+        if (dependency.getHints() != null) {
+            return null;
+        }
+
+        String roleType = serializeType(dependency.getRoleType());
+        if (roleType == null || !isSerializable(dependency.getName()) || !isSerializable(dependency.getRoleHint())) {
+            return null;
+        }
+
+        return new String[] {DEPENDENCY, dependency.getName(), dependency.getRoleHint(), roleType};
+    }
+
+    private boolean isSerializable(String value)
+    {
+        if (value == null) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); ++i) {
+            if (RESERVED_CHARACTERS.indexOf(value.charAt(i)) != -1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String serializeType(Type type)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        return serializeType(type, builder) ? builder.toString() : null;
+    }
+
+    private boolean serializeType(Type type, StringBuilder builder)
+    {
+        if (type instanceof Class) {
+            builder.append(((Class<?>) type).getName());
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+
+            if (parameterizedType.getOwnerType() != null) {
+                builder.append(OWNER_START);
+                if (!serializeType(parameterizedType.getOwnerType(), builder)) {
+                    return false;
+                }
+                builder.append(OWNER_END);
+            }
+
+            builder.append(((Class<?>) parameterizedType.getRawType()).getName());
+
+            builder.append(ARGUMENTS_START);
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            for (int i = 0; i < arguments.length; ++i) {
+                if (i > 0) {
+                    builder.append(ARGUMENTS_SEPARATOR);
+                }
+                if (!serializeType(arguments[i], builder)) {
+                    return false;
+                }
+            }
+            builder.append(ARGUMENTS_END);
+        } else {
+            // Type variables, wildcards and generic arrays are not supported
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param implementationClassName the name of the component implementation class
+     * @return true if the index contains the descriptors of the passed component implementation
+     */
+    public boolean contains(String implementationClassName)
+    {
+        return this.components.containsKey(implementationClassName);
+    }
+
+    /**
+     * @param implementationClassName the name of the component implementation class
+     * @return the priority the component implementation was declared with when the index was generated, null if
+     *         unknown
+     */
+    public Integer getPriority(String implementationClassName)
+    {
+        return this.priorities.get(implementationClassName);
+    }
+
+    /**
+     * @return the names of the component implementation classes contained in the index
+     */
+    public Collection<String> getImplementationClassNames()
+    {
+        return this.components.keySet();
+    }
+
+    /**
+     * Create the descriptors of the passed component implementation from the index.
+     *
+     * @param componentClass the component implementation class
+     * @return the component descriptors or null if the component is not indexed
+     * @throws ClassNotFoundException when one of the types used in the descriptors cannot be found from the component
+     *             implementation class loader
+     */
+    public List<ComponentDescriptor> getComponentDescriptors(Class<?> componentClass) throws ClassNotFoundException
+    {
+        List<IndexedDescriptor> indexedDescriptors = this.components.get(componentClass.getName());
+
+        if (indexedDescriptors == null) {
+            return null;
+        }
+
+        ClassLoader classLoader = componentClass.getClassLoader();
+
+        List<ComponentDescriptor> descriptors = new ArrayList<>(indexedDescriptors.size());
+        for (IndexedDescriptor indexedDescriptor : indexedDescriptors) {
+            DefaultComponentDescriptor descriptor = new DefaultComponentDescriptor();
+            descriptor.setImplementation(componentClass);
+            descriptor.setInstantiationStrategy(ComponentInstantiationStrategy.valueOf(indexedDescriptor.role[1]));
+            descriptor.setRoleHint(indexedDescriptor.role[2]);
+            descriptor.setRoleType(parseType(indexedDescriptor.role[3], classLoader));
+
+            for (String[] indexedDependency : indexedDescriptor.dependencies) {
+                DefaultComponentDependency dependency = new DefaultComponentDependency();
+                dependency.setName(indexedDependency[1]);
+                dependency.setRoleHint(indexedDependency[2]);
+                dependency.setRoleType(parseType(indexedDependency[3], classLoader));
+
+                descriptor.addComponentDependency(dependency);
+            }
+
+            descriptors.add(descriptor);
+        }
+
+        return descriptors;
+    }
+
+    private Type parseType(String serializedType, ClassLoader classLoader) throws ClassNotFoundException
+    {
+        TypeParser parser = new TypeParser(serializedType, classLoader);
+
+        Type type = parser.parse();
+
+        if (!parser.isFinished()) {
+            throw parser.createException();
+        }
+
+        return type;
+    }
+
+    /**
+     * Parse types serialized by {@link ComponentDescriptorIndex#serializeType(Type)}.
+     *
+     * @version $Id$
+     */
+    private static final class TypeParser
+    {
+        private final String value;
+
+        private final ClassLoader classLoader;
+
+        private int index;
+
+        TypeParser(String value, ClassLoader classLoader)
+        {
+            this.value = value;
+            this.classLoader = classLoader;
+        }
+
+        boolean isFinished()
+        {
+            return this.index == this.value.length();
+        }
+
+        ClassNotFoundException createException()
+        {
+            return new ClassNotFoundException("Invalid serialized type [" + this.value + "]");
+        }
+
+        private boolean next(char c)
+        {
+            if (this.index < this.value.length() && this.value.charAt(this.index) == c) {
+                ++this.index;
+
+                return true;
+            }
+
+            return false;
+        }
+
+        Type parse() throws ClassNotFoundException
+        {
+            Type ownerType = null;
+            if (next(OWNER_START)) {
+                ownerType = parse();
+                if (!next(OWNER_END)) {
+                    throw createException();
+                }
+            }
+
+            int start = this.index;
+            while (this.index < this.value.length() && "()<>,".indexOf(this.value.charAt(this.index)) == -1) {
+                ++this.index;
+            }
+            Class<?> rawType = Class.forName(this.value.substring(start, this.index), false, this.classLoader);
+
+            if (next(ARGUMENTS_START)) {
+                List<Type> arguments = new ArrayList<>();
+                do {
+                    arguments.add(parse());
+                } while (next(ARGUMENTS_SEPARATOR));
+
+                if (!next(ARGUMENTS_END)) {
+                    throw createException();
+                }
+
+                return new DefaultParameterizedType(ownerType, rawType, arguments.toArray(new Type[0]));
+            }
+
+            return rawType;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.annotation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Generate the {@link ComponentAnnotationLoader#COMPONENT_INDEX} file of a compiled module from its
+ * {@link ComponentAnnotationLoader#COMPONENT_LIST} file. Meant to be executed at build time (see the
+ * {@code component-index} Maven profile), with the module classes and dependencies in the context class loader.
+ * <p>
+ * Usage: {@code ComponentDescriptorIndexMain <classes directory>}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public final class ComponentDescriptorIndexMain
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentDescriptorIndexMain.class);
+
+    private ComponentDescriptorIndexMain()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param args the directory containing the compiled classes and resources
+     * @throws Exception when failing to generate the index
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ComponentDescriptorIndexMain <classes directory>");
+        }
+
+        generate(new File(args[0]), Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * @param directory the directory containing the compiled classes and resources
+     * @param classLoader the class loader to use to load the component classes
+     * @return the generated index file or null if the directory does not contain any component
+     * @throws IOException when failing to read the component list or to write the index
+     * @throws ClassNotFoundException when a declared component class cannot be found
+     */
+    public static File generate(File directory, ClassLoader classLoader) throws IOException, ClassNotFoundException
+    {
+        ComponentAnnotationLoader loader = new ComponentAnnotationLoader();
+
+        List<ComponentDeclaration> declarations =
+            getDeclaredComponents(loader, directory, ComponentAnnotationLoader.COMPONENT_LIST);
+        // Overrides are registered with the highest priority, like ComponentAnnotationLoader does
+        for (ComponentDeclaration overrideDeclaration : getDeclaredComponents(loader, directory,
+            ComponentAnnotationLoader.COMPONENT_OVERRIDE_LIST)) {
+            declarations.remove(overrideDeclaration);
+            declarations.add(new ComponentDeclaration(overrideDeclaration.getImplementationClassName(), 0));
+        }
+
+        if (declarations.isEmpty()) {
+            return null;
+        }
+
+        ComponentDescriptorIndex index = new ComponentDescriptorIndex();
+        for (ComponentDeclaration declaration : declarations) {
+            Class<?> componentClass = classLoader.loadClass(declaration.getImplementationClassName());
+
+            if (!index.add(componentClass, declaration.getPriority(),
+                loader.getComponentsDescriptors(componentClass))) {
+                LOGGER.info("Component [{}] cannot be indexed and will be parsed at runtime", componentClass.getName());
+            }
+        }
+
+        File indexFile = new File(directory, ComponentAnnotationLoader.COMPONENT_INDEX);
+        try (OutputStream stream = new FileOutputStream(indexFile)) {
+            index.write(stream);
+        }
+
+        LOGGER.info("Indexed [{}] components out of [{}] in [{}]", index.getImplementationClassNames().size(),
+            declarations.size(), indexFile);
+
+        return indexFile;
+    }
+
+    private static List<ComponentDeclaration> getDeclaredComponents(ComponentAnnotationLoader loader, File directory,
+        String location) throws IOException
+    {
+        File file = new File(directory, location);
+
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+
+        try (InputStream stream = new FileInputStream(file)) {
+            return loader.getDeclaredComponents(stream);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+
+/**
+ * A file containing the descriptors of all the components registered from a class loader (see
+ * {@link ComponentAnnotationLoader#initialize(org.xwiki.component.manager.ComponentManager, ClassLoader, File)}),
+ * associated with a fingerprint of the JARs declaring the components. As long as the fingerprint matches, the
+ * descriptors can be registered directly instead of parsing the component lists and the component classes again.
+ * <p>
+ * The format is a line containing the fingerprint followed by a {@link ComponentDescriptorIndex}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+final class ComponentRegistrySnapshot
+{
+    private static final Charset ENCODING = Charset.forName("UTF-8");
+
+    private static final String FINGERPRINT_ALGORITHM = "SHA-1";
+
+    private static final char FINGERPRINT_SEPARATOR = '\n';
+
+    private static final String JAR_PROTOCOL = "jar";
+
+    private static final String FILE_PROTOCOL = "file";
+
+    private final File file;
+
+    /**
+     * @param file the file where the snapshot is stored
+     */
+    ComponentRegistrySnapshot(File file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * @return the file where the snapshot is stored
+     */
+    File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Compute a fingerprint of the JARs containing the passed resources, based on their name, size and last
+     * modification date.
+     *
+     * @param classLoader the class loader where to look for the resources
+     * @param locations the resources to look for (component lists)
+     * @return the fingerprint or null if some resource is not located in a local JAR file (in which case its content
+     *         could change without notice, e.g. a directory of classes during development)
+     * @throws IOException when failing to find the resources
+     */
+    static String getFingerprint(ClassLoader classLoader, String... locations) throws IOException
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+
+        for (String location : locations) {
+            Enumeration<URL> urls = classLoader.getResources(location);
+            while (urls.hasMoreElements()) {
+                File jarFile = getJarFile(urls.nextElement());
+                if (jarFile == null) {
+                    return null;
+                }
+
+                digest.update((jarFile.getAbsolutePath() + FINGERPRINT_SEPARATOR + jarFile.length()
+                    + FINGERPRINT_SEPARATOR + jarFile.lastModified() + FINGERPRINT_SEPARATOR).getBytes(ENCODING));
+            }
+        }
+
+        return String.format("%040x", new BigInteger(1, digest.digest()));
+    }
+
+    private static File getJarFile(URL url) throws IOException
+    {
+        if (JAR_PROTOCOL.equals(url.getProtocol())) {
+            URLConnection connection = url.openConnection();
+            if (connection instanceof JarURLConnection) {
+                URL jarFileURL = ((JarURLConnection) connection).getJarFileURL();
+                if (FILE_PROTOCOL.equals(jarFileURL.getProtocol())) {
+                    try {
+                        return new File(jarFileURL.toURI());
+                    } catch (URISyntaxException | IllegalArgumentException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param fingerprint the expected fingerprint
+     * @return the stored descriptors or null if the snapshot does not exist or does not match the passed fingerprint
+     * @throws IOException when failing to read the snapshot
+     */
+    ComponentDescriptorIndex read(String fingerprint) throws IOException
+    {
+        if (!this.file.isFile()) {
+            return null;
+        }
+
+        // Read it all at once
+        byte[] bytes = Files.readAllBytes(this.file.toPath());
+
+        int index = 0;
+        while (index < bytes.length && bytes[index] != FINGERPRINT_SEPARATOR) {
+            ++index;
+        }
+
+        if (!fingerprint.equals(new String(bytes, 0, index, ENCODING))) {
+            return null;
+        }
+
+        return ComponentDescriptorIndex.read(new ByteArrayInputStream(bytes, index + 1, bytes.length - index - 1));
+    }
+
+    /**
+     * @param fingerprint the fingerprint of the JARs containing the components
+     * @param index the descriptors of the registered components
+     * @throws IOException when failing to write the snapshot
+     */
+    void write(String fingerprint, ComponentDescriptorIndex index) throws IOException
+    {
+        File directory = this.file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory [" + directory + "]");
+        }
+
+        // Write in a temporary file first to never leave a partial snapshot behind
+        File temporaryFile = new File(this.file.getPath() + ".tmp");
+        try (OutputStream stream = new FileOutputStream(temporaryFile)) {
+            stream.write(fingerprint.getBytes(ENCODING));
+            stream.write(FINGERPRINT_SEPARATOR);
+            index.write(stream);
+        }
+
+        Files.move(temporaryFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
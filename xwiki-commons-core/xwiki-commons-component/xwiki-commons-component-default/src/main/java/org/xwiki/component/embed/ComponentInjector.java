@@ -0,0 +1,184 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.embed;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.xwiki.component.annotation.Lazy;
+import org.xwiki.component.descriptor.ComponentDependency;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+
+/**
+ * Create instances of a component implementation and inject its dependencies using {@link MethodHandle}s resolved
+ * once, instead of searching the fields by reflection for each created instance.
+ *
+ * @param <T> the type of the component implementation
+ * @version $Id$
+ * @since 7.1M1
+ */
+final class ComponentInjector<T>
+{
+    /**
+     * The type of the constructor handle once adapted.
+     */
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    /**
+     * The type of the field setter handles once adapted.
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<? extends T> implementation;
+
+    private final MethodHandle constructor;
+
+    /**
+     * The setters indexed by dependency name. Dependencies without corresponding field are not in the map.
+     */
+    private final Map<String, MethodHandle> setters = new HashMap<>();
+
+    /**
+     * The names of the dependencies marked with {@link Lazy}.
+     */
+    private final Set<String> lazyDependencies = new HashSet<>();
+
+    /**
+     * @param descriptor the descriptor of the component
+     * @throws ReflectiveOperationException when failing to access the constructor
+     */
+    ComponentInjector(ComponentDescriptor<T> descriptor) throws ReflectiveOperationException
+    {
+        this.implementation = descriptor.getImplementation();
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        Constructor<? extends T> implementationConstructor = this.implementation.getDeclaredConstructor();
+        this.constructor = unreflectConstructor(lookup, implementationConstructor);
+
+        boolean lazyImplementation = this.implementation.isAnnotationPresent(Lazy.class);
+
+        for (ComponentDependency<?> dependency : descriptor.getComponentDependencies()) {
+            Field field = getField(this.implementation, dependency.getName());
+            if (field != null) {
+                this.setters.put(dependency.getName(), unreflectSetter(lookup, field));
+
+                if (lazyImplementation || field.isAnnotationPresent(Lazy.class)) {
+                    this.lazyDependencies.add(dependency.getName());
+                }
+            }
+        }
+    }
+
+    private MethodHandle unreflectConstructor(MethodHandles.Lookup lookup, Constructor<?> implementationConstructor)
+        throws IllegalAccessException
+    {
+        boolean isAccessible = implementationConstructor.isAccessible();
+        try {
+            implementationConstructor.setAccessible(true);
+
+            return lookup.unreflectConstructor(implementationConstructor).asType(CONSTRUCTOR_TYPE);
+        } finally {
+            implementationConstructor.setAccessible(isAccessible);
+        }
+    }
+
+    private MethodHandle unreflectSetter(MethodHandles.Lookup lookup, Field field) throws IllegalAccessException
+    {
+        // Once created the handle does not need the field to stay accessible
+        boolean isAccessible = field.isAccessible();
+        try {
+            field.setAccessible(true);
+
+            return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } finally {
+            field.setAccessible(isAccessible);
+        }
+    }
+
+    /**
+     * Same field resolution as {@link org.xwiki.component.util.ReflectionUtils#setFieldValue(Object, String, Object)}.
+     */
+    private Field getField(Class<?> clazz, String fieldName)
+    {
+        Class<?> targetClass = clazz;
+        while (targetClass != null) {
+            for (Field field : targetClass.getDeclaredFields()) {
+                if (field.getName().equalsIgnoreCase(fieldName)) {
+                    return field;
+                }
+            }
+            targetClass = targetClass.getSuperclass();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return a new instance of the component implementation
+     * @throws Exception when the constructor fails
+     */
+    @SuppressWarnings("unchecked")
+    T newInstance() throws Exception
+    {
+        try {
+            return (T) this.constructor.invokeExact();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Exception("Failed to create an instance of [" + this.implementation.getName() + "]", e);
+        }
+    }
+
+    /**
+     * @param dependencyName the name of the dependency
+     * @return true if the dependency is marked with {@link Lazy} (directly or through the component implementation)
+     */
+    boolean isLazy(String dependencyName)
+    {
+        return this.lazyDependencies.contains(dependencyName);
+    }
+
+    /**
+     * @param instance the component instance
+     * @param dependencyName the name of the dependency to set
+     * @param value the value of the dependency
+     */
+    void setDependency(T instance, String dependencyName, Object value)
+    {
+        MethodHandle setter = this.setters.get(dependencyName);
+
+        if (setter != null) {
+            try {
+                setter.invokeExact((Object) instance, value);
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to set field [" + dependencyName + "] in instance of ["
+                    + this.implementation.getName() + "]", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.embed;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.xwiki.component.manager.ComponentManagerStatistics;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Statistics about the lookups made in an {@link EmbeddableComponentManager} and the component instances it created.
+ * Collected only when set with {@link EmbeddableComponentManager#setMetrics(ComponentManagerMetrics)}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public class ComponentManagerMetrics implements ComponentManagerStatistics
+{
+    /**
+     * The upper bounds (exclusive, in milliseconds) of the creation time histogram buckets. The last bucket contains
+     * the creations which took longer.
+     */
+    private static final long[] HISTOGRAM_BOUNDS = {1, 10, 100, 1000};
+
+    private static final char ROLE_SEPARATOR = ':';
+
+    private static class LookupStatistics
+    {
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong parentCount = new AtomicLong();
+    }
+
+    private static class CreationStatistics
+    {
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong creationTime = new AtomicLong();
+
+        private final AtomicLong maxCreationTime = new AtomicLong();
+
+        private final AtomicLong lifecycleTime = new AtomicLong();
+
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BOUNDS.length + 1);
+    }
+
+    private final ConcurrentMap<String, LookupStatistics> lookups = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CreationStatistics> creations = new ConcurrentHashMap<>();
+
+    /**
+     * @param roleType the role type of the looked up component
+     * @param roleHint the role hint of the looked up component
+     * @param inParent true if the component is not registered in the component manager and has been looked up in its
+     *            parent
+     */
+    void onLookup(Type roleType, String roleHint, boolean inParent)
+    {
+        String key = (roleType instanceof Class ? ((Class<?>) roleType).getName() : String.valueOf(roleType))
+            + ROLE_SEPARATOR + roleHint;
+
+        LookupStatistics statistics = this.lookups.get(key);
+        if (statistics == null) {
+            statistics = new LookupStatistics();
+            LookupStatistics existingStatistics = this.lookups.putIfAbsent(key, statistics);
+            if (existingStatistics != null) {
+                statistics = existingStatistics;
+            }
+        }
+
+        statistics.count.incrementAndGet();
+        if (inParent) {
+            statistics.parentCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param implementation the implementation of the created component
+     * @param creationTime the time spent creating the instance and injecting its dependencies (including their
+     *            creation), in nanoseconds
+     * @param lifecycleTime the time spent in the lifecycle handlers (initialization, etc.), in nanoseconds
+     */
+    void onCreation(Class<?> implementation, long creationTime, long lifecycleTime)
+    {
+        String key = implementation.getName();
+
+        CreationStatistics statistics = this.creations.get(key);
+        if (statistics == null) {
+            statistics = new CreationStatistics();
+            CreationStatistics existingStatistics = this.creations.putIfAbsent(key, statistics);
+            if (existingStatistics != null) {
+                statistics = existingStatistics;
+            }
+        }
+
+        statistics.count.incrementAndGet();
+        statistics.creationTime.addAndGet(creationTime);
+        statistics.lifecycleTime.addAndGet(lifecycleTime);
+
+        long max = statistics.maxCreationTime.get();
+        while (creationTime > max && !statistics.maxCreationTime.compareAndSet(max, creationTime)) {
+            max = statistics.maxCreationTime.get();
+        }
+
+        long creationTimeMillis = TimeUnit.NANOSECONDS.toMillis(creationTime);
+        int bucket = 0;
+        while (bucket < HISTOGRAM_BOUNDS.length && creationTimeMillis >= HISTOGRAM_BOUNDS[bucket]) {
+            ++bucket;
+        }
+        statistics.histogram.incrementAndGet(bucket);
+    }
+
+    @Override
+    public Map<String, Long> getLookupCounts()
+    {
+        Map<String, Long> result = new HashMap<>(this.lookups.size());
+        for (Map.Entry<String, LookupStatistics> entry : this.lookups.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().count.get());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getParentLookupCounts()
+    {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, LookupStatistics> entry : this.lookups.entrySet()) {
+            long parentCount = entry.getValue().parentCount.get();
+            if (parentCount > 0) {
+                result.put(entry.getKey(), parentCount);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCreationCounts()
+    {
+        Map<String, Long> result = new HashMap<>(this.creations.size());
+        for (Map.Entry<String, CreationStatistics> entry : this.creations.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().count.get());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCreationTimes()
+    {
+        return getTimes(false);
+    }
+
+    @Override
+    public Map<String, Long> getLifecycleTimes()
+    {
+        return getTimes(true);
+    }
+
+    private Map<String, Long> getTimes(boolean lifecycle)
+    {
+        Map<String, Long> result = new HashMap<>(this.creations.size());
+        for (Map.Entry<String, CreationStatistics> entry : this.creations.entrySet()) {
+            CreationStatistics statistics = entry.getValue();
+            long time = lifecycle ? statistics.lifecycleTime.get() : statistics.creationTime.get();
+            result.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(time));
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMaxCreationTimes()
+    {
+        Map<String, Long> result = new HashMap<>(this.creations.size());
+        for (Map.Entry<String, CreationStatistics> entry : this.creations.entrySet()) {
+            result.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue().maxCreationTime.get()));
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, long[]> getCreationTimeHistograms()
+    {
+        Map<String, long[]> result = new HashMap<>(this.creations.size());
+        for (Map.Entry<String, CreationStatistics> entry : this.creations.entrySet()) {
+            AtomicLongArray histogram = entry.getValue().histogram;
+            long[] values = new long[histogram.length()];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = histogram.get(i);
+            }
+            result.put(entry.getKey(), values);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void reset()
+    {
+        this.lookups.clear();
+        this.creations.clear();
+    }
+}
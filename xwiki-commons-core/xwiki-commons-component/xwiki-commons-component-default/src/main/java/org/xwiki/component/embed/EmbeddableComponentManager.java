@@ -19,19 +19,32 @@
  */
 package org.xwiki.component.embed;
 
+import java.io.File;
+import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.inject.Provider;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.component.annotation.ComponentAnnotationLoader;
@@ -41,15 +54,19 @@
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
 import org.xwiki.component.descriptor.DefaultComponentDescriptor;
 import org.xwiki.component.internal.RoleHint;
+import org.xwiki.component.manager.BatchComponentEventManager;
 import org.xwiki.component.manager.ComponentEventManager;
 import org.xwiki.component.manager.ComponentLifecycleException;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.component.manager.ComponentManagerInitializer;
+import org.xwiki.component.manager.ComponentManagerStatistics;
 import org.xwiki.component.manager.ComponentRepositoryException;
+import org.xwiki.component.manager.MonitorableComponentManager;
 import org.xwiki.component.manager.NamespacedComponentManager;
 import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.stability.Unstable;
 
 /**
  * Simple implementation of {@link ComponentManager} to be used when using some XWiki modules standalone.
@@ -57,13 +74,37 @@
  * @version $Id$
  * @since 2.0M1
  */
-public class EmbeddableComponentManager implements NamespacedComponentManager, Disposable
+public class EmbeddableComponentManager implements NamespacedComponentManager, MonitorableComponentManager, Disposable
 {
     /**
      * Logger to use to log shutdown information (opposite of initialization).
      */
     private static final Logger SHUTDOWN_LOGGER = LoggerFactory.getLogger("org.xwiki.shutdown");
 
+    /**
+     * How often (in milliseconds) a thread waiting for a component being created by another thread checks for
+     * dependency cycles.
+     */
+    private static final long CYCLE_CHECK_INTERVAL = 100;
+
+    /**
+     * Cached in {@link #lookupCache} when a component is not registered in any parent.
+     */
+    private static final Object NO_COMPONENT = new Object();
+
+    /**
+     * The maximum number of lookups cached for a given role type. Bounds the cached lookups of missing components
+     * since they can be done with any hint.
+     */
+    private static final int LOOKUP_CACHE_ROLE_SIZE = 1000;
+
+    /**
+     * The entries each thread is currently waiting for, used to detect dependency cycles between threads. Shared by
+     * all the component managers since a cycle can go through components registered in different component managers
+     * (a child and its parent for example).
+     */
+    private static final ConcurrentMap<Thread, ComponentEntry<?>> WAITING_THREADS = new ConcurrentHashMap<>();
+
     /**
      * @see #getNamespace()
      */
@@ -76,6 +117,20 @@ public class EmbeddableComponentManager implements NamespacedComponentManager, D
      */
     private ComponentManager parent;
 
+    /**
+     * Expose the owner of the lock to be able to detect dependency cycles between threads.
+     */
+    private static class EntryLock extends ReentrantLock
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Thread getOwner()
+        {
+            return super.getOwner();
+        }
+    }
+
     private static class ComponentEntry<R>
     {
         /**
@@ -91,14 +146,80 @@ public class EmbeddableComponentManager implements NamespacedComponentManager, D
          */
         public volatile R instance;
 
+        /**
+         * Protect the creation and the release of the singleton instance. A lock is used instead of the entry monitor
+         * so that waiting threads park without pinning anything and can detect dependency cycles instead of waiting
+         * forever.
+         */
+        public final EntryLock lock = new EntryLock();
+
+        /**
+         * Used to create and inject new instances of the component. Lazily initialized when needed.
+         */
+        private volatile ComponentInjector<R> injector;
+
         public ComponentEntry(ComponentDescriptor<R> descriptor, R instance)
         {
             this.descriptor = descriptor;
             this.instance = instance;
         }
+
+        public ComponentInjector<R> getInjector() throws ReflectiveOperationException
+        {
+            // Creating it twice in case of concurrent access is harmless
+            ComponentInjector<R> currentInjector = this.injector;
+            if (currentInjector == null) {
+                currentInjector = new ComponentInjector<>(this.descriptor);
+                this.injector = currentInjector;
+            }
+
+            return currentInjector;
+        }
     }
 
-    private Map<RoleHint<?>, ComponentEntry<?>> componentEntries = new ConcurrentHashMap<>();
+    /**
+     * The registered components indexed by role type and then by role hint so that looking up all the components
+     * implementing a given role does not require to go through all the registered components.
+     */
+    private final ConcurrentMap<Type, Map<String, ComponentEntry<?>>> componentEntries = new ConcurrentHashMap<>();
+
+    /**
+     * The parent component managers where components missing from this component manager have been found (or
+     * {@link #NO_COMPONENT}), indexed by role type and role hint. Only used when all the parents are
+     * {@link EmbeddableComponentManager}s (see {@link #cacheableParents}) since they notify their children when a
+     * component is registered or unregistered.
+     */
+    private final ConcurrentMap<Type, ConcurrentMap<String, Object>> lookupCache = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented each time the lookup cache is invalidated to not cache a result resolved before the invalidation.
+     */
+    private final AtomicLong lookupCacheVersion = new AtomicLong();
+
+    /**
+     * True when all the parents are instances of {@link EmbeddableComponentManager} itself (or when there is no
+     * parent). The lookup cache walks the parents directly so it cannot be used when one of them is a subclass which
+     * may change how components are looked up (by overriding {@link #getParent()} or
+     * {@link #getComponentInstance(RoleHint)} for example).
+     */
+    private volatile boolean cacheableParents = true;
+
+    /**
+     * The component managers having this component manager as parent, to invalidate their lookup cache.
+     */
+    private final Set<EmbeddableComponentManager> children =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<EmbeddableComponentManager, Boolean>()));
+
+    /**
+     * The statistics to update or null if they're not collected.
+     */
+    private volatile ComponentManagerMetrics metrics;
+
+    /**
+     * The file where to store the descriptors of the components registered by {@link #initialize(ClassLoader)}, null
+     * to always discover them.
+     */
+    private File registrySnapshot;
 
     private Logger logger = LoggerFactory.getLogger(EmbeddableComponentManager.class);
 
@@ -148,7 +269,7 @@ private void registerThis()
     public void initialize(ClassLoader classLoader)
     {
         ComponentAnnotationLoader loader = new ComponentAnnotationLoader();
-        loader.initialize(this, classLoader);
+        loader.initialize(this, classLoader, this.registrySnapshot);
 
         // Extension point to allow component to manipulate ComponentManager initialized state.
         try {
@@ -171,13 +292,142 @@ public boolean hasComponent(Type role)
     @Override
     public boolean hasComponent(Type role, String hint)
     {
-        if (this.componentEntries.containsKey(new RoleHint<>(role, hint))) {
+        if (getComponentEntry(role, hint) != null) {
             return true;
         }
 
+        if (isLookupCacheEnabled()) {
+            return getParentComponentManager(role, hint) != null;
+        }
+
         return getParent() != null ? getParent().hasComponent(role, hint) : false;
     }
 
+    /**
+     * @return true if lookups in the parents can be cached
+     */
+    private boolean isLookupCacheEnabled()
+    {
+        // Make sure getParent() has not been overwritten to return something else
+        return this.parent != null && this.cacheableParents && getParent() == this.parent;
+    }
+
+    /**
+     * Find the parent component manager where the passed component is registered, using and filling the lookup cache.
+     *
+     * @param role the role type of the component
+     * @param hint the role hint of the component
+     * @return the first parent component manager where the component is registered or null if there is none
+     */
+    private EmbeddableComponentManager getParentComponentManager(Type role, String hint)
+    {
+        String roleHint = hint != null ? hint : RoleHint.DEFAULT_HINT;
+
+        ConcurrentMap<String, Object> roleCache = this.lookupCache.get(role);
+        Object owner = roleCache != null ? roleCache.get(roleHint) : null;
+
+        if (owner == null) {
+            long version = this.lookupCacheVersion.get();
+
+            EmbeddableComponentManager parentComponentManager = (EmbeddableComponentManager) this.parent;
+            if (parentComponentManager.getComponentEntry(role, roleHint) != null) {
+                owner = parentComponentManager;
+            } else if (parentComponentManager.parent != null) {
+                owner = parentComponentManager.getParentComponentManager(role, roleHint);
+            }
+            if (owner == null) {
+                owner = NO_COMPONENT;
+            }
+
+            cacheLookup(role, roleHint, owner, version);
+        }
+
+        return owner != NO_COMPONENT ? (EmbeddableComponentManager) owner : null;
+    }
+
+    /**
+     * @param role the role type of the component
+     * @param roleHint the role hint of the component
+     * @param owner the parent component manager where the component is registered or {@link #NO_COMPONENT}
+     * @param version the version of the lookup cache when the lookup started
+     */
+    private void cacheLookup(Type role, String roleHint, Object owner, long version)
+    {
+        ConcurrentMap<String, Object> roleCache = this.lookupCache.get(role);
+
+        if (roleCache == null) {
+            roleCache = new ConcurrentHashMap<>();
+            ConcurrentMap<String, Object> existingRoleCache = this.lookupCache.putIfAbsent(role, roleCache);
+            if (existingRoleCache != null) {
+                roleCache = existingRoleCache;
+            }
+        } else if (owner == NO_COMPONENT && roleCache.size() >= LOOKUP_CACHE_ROLE_SIZE) {
+            // Lookups of missing components with many different hints
+            return;
+        }
+
+        roleCache.put(roleHint, owner);
+
+        // Forget the result if the cache has been invalidated while resolving it
+        if (version != this.lookupCacheVersion.get()) {
+            roleCache.remove(roleHint, owner);
+        }
+    }
+
+    /**
+     * Invalidate the cached lookups of the passed component in this component manager and all its children.
+     */
+    private void invalidateLookupCache(Type role, String hint)
+    {
+        this.lookupCacheVersion.incrementAndGet();
+
+        ConcurrentMap<String, Object> roleCache = this.lookupCache.get(role);
+        if (roleCache != null) {
+            roleCache.remove(hint);
+        }
+
+        for (EmbeddableComponentManager child : getChildren()) {
+            child.invalidateLookupCache(role, hint);
+        }
+    }
+
+    /**
+     * Invalidate all the cached lookups in this component manager and all its children.
+     */
+    private void invalidateLookupCache()
+    {
+        this.lookupCacheVersion.incrementAndGet();
+
+        this.cacheableParents = this.parent == null
+            || (this.parent.getClass() == EmbeddableComponentManager.class
+                && ((EmbeddableComponentManager) this.parent).cacheableParents);
+
+        this.lookupCache.clear();
+
+        for (EmbeddableComponentManager child : getChildren()) {
+            child.invalidateLookupCache();
+        }
+    }
+
+    private List<EmbeddableComponentManager> getChildren()
+    {
+        synchronized (this.children) {
+            return new ArrayList<>(this.children);
+        }
+    }
+
+    /**
+     * @param role the role type of the component
+     * @param hint the role hint of the component
+     * @return the component entry registered in this component manager or null if there is none
+     */
+    private ComponentEntry<?> getComponentEntry(Type role, String hint)
+    {
+        Map<String, ComponentEntry<?>> entries = this.componentEntries.get(role);
+
+        return entries != null ? entries.get(hint != null ? hint : RoleHint.DEFAULT_HINT) : null;
+    }
+
     @Override
     public <T> T getInstance(Type roleType) throws ComponentLookupException
     {
@@ -206,14 +456,14 @@ public <T> Map<String, T> getInstanceMap(Type role) throws ComponentLookupExcept
     {
         Map<String, T> objects = new HashMap<>();
 
-        for (Map.Entry<RoleHint<?>, ComponentEntry<?>> entry : this.componentEntries.entrySet()) {
-            RoleHint<?> roleHint = entry.getKey();
-
-            if (role.equals(roleHint.getRoleType())) {
+        Map<String, ComponentEntry<?>> entries = this.componentEntries.get(role);
+        if (entries != null) {
+            for (Map.Entry<String, ComponentEntry<?>> entry : entries.entrySet()) {
                 try {
-                    objects.put(roleHint.getHint(), getComponentInstance((ComponentEntry<T>) entry.getValue()));
+                    objects.put(entry.getKey(), getComponentInstance((ComponentEntry<T>) entry.getValue()));
                 } catch (Exception e) {
-                    throw new ComponentLookupException("Failed to lookup component [" + roleHint + "]", e);
+                    throw new ComponentLookupException("Failed to lookup component [" + new RoleHint<>(role,
+                        entry.getKey()) + "]", e);
                 }
             }
         }
@@ -236,10 +486,15 @@ public <T> Map<String, T> getInstanceMap(Type role) throws ComponentLookupExcept
     public <T> ComponentDescriptor<T> getComponentDescriptor(Type role, String hint)
     {
         ComponentDescriptor<T> result = null;
-        ComponentEntry<T> componentEntry = (ComponentEntry<T>) this.componentEntries.get(new RoleHint<T>(role, hint));
+        ComponentEntry<T> componentEntry = (ComponentEntry<T>) getComponentEntry(role, hint);
         if (componentEntry == null) {
             // Check in parent!
-            if (getParent() != null) {
+            if (isLookupCacheEnabled()) {
+                EmbeddableComponentManager owner = getParentComponentManager(role, hint);
+                if (owner != null) {
+                    result = owner.getComponentDescriptor(role, hint);
+                }
+            } else if (getParent() != null) {
                 result = getParent().getComponentDescriptor(role, hint);
             }
         } else {
@@ -255,9 +510,10 @@ public <T> List<ComponentDescriptor<T>> getComponentDescriptorList(Type role)
     {
         Map<String, ComponentDescriptor<T>> descriptors = new HashMap<>();
 
-        for (Map.Entry<RoleHint<?>, ComponentEntry<?>> entry : this.componentEntries.entrySet()) {
-            if (entry.getKey().getRoleType().equals(role)) {
-                descriptors.put(entry.getKey().getHint(), (ComponentDescriptor<T>) entry.getValue().descriptor);
+        Map<String, ComponentEntry<?>> entries = this.componentEntries.get(role);
+        if (entries != null) {
+            for (Map.Entry<String, ComponentEntry<?>> entry : entries.entrySet()) {
+                descriptors.put(entry.getKey(), (ComponentDescriptor<T>) entry.getValue().descriptor);
             }
         }
 
@@ -275,6 +531,60 @@ public <T> List<ComponentDescriptor<T>> getComponentDescriptorList(Type role)
         return new ArrayList<>(descriptors.values());
     }
 
+    /**
+     * @return the statistics collected about this component manager or null if they're not collected
+     * @since 7.1M1
+     */
+    @Unstable
+    public ComponentManagerMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * @param metrics the statistics to update on each lookup and component creation, null to stop collecting them
+     * @since 7.1M1
+     */
+    @Unstable
+    public void setMetrics(ComponentManagerMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ComponentManagerStatistics getStatistics()
+    {
+        return getMetrics();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled)
+    {
+        setMetrics(enabled ? new ComponentManagerMetrics() : null);
+    }
+
+    /**
+     * @return the file where to store the descriptors of the components registered by {@link #initialize(ClassLoader)}
+     * @since 7.1M1
+     */
+    @Unstable
+    public File getRegistrySnapshot()
+    {
+        return this.registrySnapshot;
+    }
+
+    /**
+     * @param registrySnapshot the file where to store the descriptors of the components registered by
+     *            {@link #initialize(ClassLoader)} so that the next initialization can skip the components discovery
+     *            when the JARs declaring them did not change, null to always discover the components
+     * @since 7.1M1
+     */
+    @Unstable
+    public void setRegistrySnapshot(File registrySnapshot)
+    {
+        this.registrySnapshot = registrySnapshot;
+    }
+
     @Override
     public ComponentEventManager getComponentEventManager()
     {
@@ -296,40 +606,63 @@ public ComponentManager getParent()
     @Override
     public void setParent(ComponentManager parentComponentManager)
     {
+        if (this.parent instanceof EmbeddableComponentManager) {
+            ((EmbeddableComponentManager) this.parent).children.remove(this);
+        }
+
         this.parent = parentComponentManager;
+
+        if (parentComponentManager instanceof EmbeddableComponentManager) {
+            ((EmbeddableComponentManager) parentComponentManager).children.add(this);
+        }
+
+        invalidateLookupCache();
     }
 
-    private <T> T createInstance(ComponentDescriptor<T> descriptor) throws Exception
+    private <T> T createInstance(ComponentEntry<T> componentEntry) throws Exception
     {
-        T instance = descriptor.getImplementation().newInstance();
+        ComponentDescriptor<T> descriptor = componentEntry.descriptor;
+        ComponentInjector<T> injector = componentEntry.getInjector();
 
-        // Set each dependency
-        for (ComponentDependency<?> dependency : descriptor.getComponentDependencies()) {
+        ComponentManagerMetrics currentMetrics = this.metrics;
+        long start = currentMetrics != null ? System.nanoTime() : 0;
 
-            // TODO: Handle dependency cycles
+        T instance = injector.newInstance();
 
+        // Set each dependency
+        for (ComponentDependency<?> dependency : descriptor.getComponentDependencies()) {
             // Handle different field types
-            Object fieldValue = getDependencyInstance(descriptor, instance, dependency);
+            Object fieldValue;
+            if (injector.isLazy(dependency.getName()) && isLazyInjectable(dependency)) {
+                fieldValue = createLazyProxy(descriptor, dependency);
+            } else {
+                fieldValue = getDependencyInstance(descriptor, instance, dependency);
+            }
 
-            // Set the field by introspection
+            // Set the field
             if (fieldValue != null) {
-                ReflectionUtils.setFieldValue(instance, dependency.getName(), fieldValue);
+                injector.setDependency(instance, dependency.getName(), fieldValue);
             }
         }
 
+        long lifecycleStart = currentMetrics != null ? System.nanoTime() : 0;
+
         // Call Lifecycle Handlers
         for (LifecycleHandler lifecycleHandler : this.lifecycleHandlers) {
             lifecycleHandler.handle(instance, descriptor, this);
         }
 
+        if (currentMetrics != null) {
+            currentMetrics.onCreation(descriptor.getImplementation(), lifecycleStart - start,
+                System.nanoTime() - lifecycleStart);
+        }
+
         return instance;
     }
 
     protected Object getDependencyInstance(ComponentDescriptor<?> descriptor, Object parentInstance,
         ComponentDependency<?> dependency) throws ComponentLookupException
     {
-        // TODO: Handle dependency cycles
-
         // Handle different field types
         Object fieldValue;
 
@@ -366,6 +699,33 @@ protected Object getDependencyInstance(ComponentDescriptor<?> descriptor, Object
         return fieldValue;
     }
 
+    /**
+     * @return true if the dependency is a standard component lookup whose role is an interface, i.e. something a
+     *         dynamic proxy can stand for
+     */
+    private boolean isLazyInjectable(ComponentDependency<?> dependency)
+    {
+        Class<?> dependencyRoleClass = ReflectionUtils.getTypeClass(dependency.getRoleType());
+
+        return dependencyRoleClass.isInterface() && !dependencyRoleClass.isAssignableFrom(Logger.class)
+            && !dependencyRoleClass.isAssignableFrom(List.class) && !dependencyRoleClass.isAssignableFrom(Map.class)
+            && !dependencyRoleClass.isAssignableFrom(Provider.class)
+            && !dependencyRoleClass.isAssignableFrom(ComponentDescriptor.class);
+    }
+
+    /**
+     * Create a proxy which looks up the dependency the first time one of its methods is called.
+     */
+    private Object createLazyProxy(ComponentDescriptor<?> descriptor, ComponentDependency<?> dependency)
+    {
+        Class<?> dependencyRoleClass = ReflectionUtils.getTypeClass(dependency.getRoleType());
+
+        // The implementation class loader is the one which can see the role of all its dependencies
+        return Proxy.newProxyInstance(descriptor.getImplementation().getClassLoader(),
+            new Class<?>[] {dependencyRoleClass}, new LazyComponentInvocationHandler(new GenericProvider<>(this,
+                new RoleHint<>(dependency.getRoleType(), dependency.getRoleHint()))));
+    }
+
     protected Provider<?> createGenericProvider(ComponentDescriptor<?> descriptor, ComponentDependency<?> dependency)
     {
         return new GenericProvider<>(this, new RoleHint<>(ReflectionUtils.getLastTypeGenericArgument(dependency
@@ -385,7 +745,13 @@ protected <T> T getComponentInstance(RoleHint<T> roleHint) throws ComponentLooku
     {
         T instance;
 
-        ComponentEntry<T> componentEntry = (ComponentEntry<T>) this.componentEntries.get(roleHint);
+        ComponentEntry<T> componentEntry =
+            (ComponentEntry<T>) getComponentEntry(roleHint.getRoleType(), roleHint.getHint());
+
+        ComponentManagerMetrics currentMetrics = this.metrics;
+        if (currentMetrics != null) {
+            currentMetrics.onLookup(roleHint.getRoleType(), roleHint.getHint(), componentEntry == null);
+        }
 
         if (componentEntry != null) {
             try {
@@ -394,6 +760,15 @@ protected <T> T getComponentInstance(RoleHint<T> roleHint) throws ComponentLooku
                 throw new ComponentLookupException(String.format("Failed to lookup component [%s] identified by [%s]",
                     componentEntry.descriptor.getImplementation().getName(), roleHint.toString()), e);
             }
+        } else if (isLookupCacheEnabled()) {
+            // Go directly to the component manager where the component is registered
+            EmbeddableComponentManager owner =
+                getParentComponentManager(roleHint.getRoleType(), roleHint.getHint());
+            if (owner != null) {
+                instance = owner.getInstance(roleHint.getRoleType(), roleHint.getHint());
+            } else {
+                throw new ComponentLookupException("Can't find descriptor for the component [" + roleHint + "]");
+            }
         } else {
             if (getParent() != null) {
                 instance = getParent().getInstance(roleHint.getRoleType(), roleHint.getHint());
@@ -412,27 +787,239 @@ private <T> T getComponentInstance(ComponentEntry<T> componentEntry) throws Exce
         ComponentDescriptor<T> descriptor = componentEntry.descriptor;
 
         if (descriptor.getInstantiationStrategy() == ComponentInstantiationStrategy.SINGLETON) {
-            if (componentEntry.instance != null) {
-                // If the instance exists return it
-                instance = componentEntry.instance;
-            } else {
-                synchronized (componentEntry) {
+            // If the instance exists return it
+            instance = componentEntry.instance;
+            if (instance == null) {
+                lockEntry(componentEntry);
+                try {
                     // Recheck in case it has been created while we were waiting
-                    if (componentEntry.instance != null) {
-                        instance = componentEntry.instance;
-                    } else {
-                        componentEntry.instance = createInstance(descriptor);
-                        instance = componentEntry.instance;
+                    instance = componentEntry.instance;
+                    if (instance == null) {
+                        instance = createInstance(componentEntry);
+                        componentEntry.instance = instance;
                     }
+                } finally {
+                    componentEntry.lock.unlock();
                 }
             }
         } else {
-            instance = createInstance(descriptor);
+            instance = createInstance(componentEntry);
         }
 
         return instance;
     }
 
+    /**
+     * Lock the passed entry to create its instance, failing instead of waiting forever when the component is (directly
+     * or through other threads) already being created by the current thread.
+     */
+    private void lockEntry(ComponentEntry<?> componentEntry) throws ComponentLookupException
+    {
+        if (componentEntry.lock.isHeldByCurrentThread()) {
+            throw createDependencyCycleException(componentEntry);
+        }
+
+        if (!componentEntry.lock.tryLock()) {
+            Thread currentThread = Thread.currentThread();
+
+            WAITING_THREADS.put(currentThread, componentEntry);
+            try {
+                do {
+                    checkDependencyCycle(componentEntry);
+                } while (!componentEntry.lock.tryLock(CYCLE_CHECK_INTERVAL, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                currentThread.interrupt();
+
+                throw new ComponentLookupException(
+                    "Interrupted while waiting for component [" + getRoleHint(componentEntry.descriptor) + "]", e);
+            } finally {
+                WAITING_THREADS.remove(currentThread);
+            }
+        }
+    }
+
+    /**
+     * Follow the threads owning the entries other threads are waiting for, starting with the owner of the passed
+     * entry, to check if it leads back to the current thread.
+     */
+    private void checkDependencyCycle(ComponentEntry<?> componentEntry) throws ComponentLookupException
+    {
+        Thread currentThread = Thread.currentThread();
+
+        Thread owner = componentEntry.lock.getOwner();
+        // Protect against chains modified while walking them
+        for (int i = 0; owner != null && i <= WAITING_THREADS.size(); ++i) {
+            if (owner == currentThread) {
+                throw createDependencyCycleException(componentEntry);
+            }
+
+            ComponentEntry<?> ownerEntry = WAITING_THREADS.get(owner);
+            owner = ownerEntry != null ? ownerEntry.lock.getOwner() : null;
+        }
+    }
+
+    private ComponentLookupException createDependencyCycleException(ComponentEntry<?> componentEntry)
+    {
+        return new ComponentLookupException("Dependency cycle detected while creating component ["
+            + getRoleHint(componentEntry.descriptor) + "]");
+    }
+
+    // Warm up
+
+    /**
+     * Create all the singleton components which have not been created yet instead of waiting for them to be looked up.
+     * Components which don't depend on each other are created concurrently, the dependencies of a component are always
+     * created (and initialized) before it.
+     *
+     * @param pool the pool used to create the components
+     * @return the time spent creating each component (not including its dependencies), in nanoseconds
+     * @since 7.1M1
+     */
+    @Unstable
+    public Map<ComponentDescriptor<?>, Long> warmUp(ForkJoinPool pool)
+    {
+        final WarmUp warmUp = new WarmUp();
+
+        // Resolve the dependency graph first to break dependency cycles before creating anything
+        for (ComponentEntry<?> entry : getComponentEntries()) {
+            if (isWarmUpCandidate(entry)) {
+                addWarmUpDependencies(entry, warmUp.graph, new HashSet<ComponentEntry<?>>());
+            }
+        }
+
+        pool.invoke(new RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                warmUp.createAll(warmUp.graph.keySet());
+            }
+        });
+
+        return warmUp.times;
+    }
+
+    private boolean isWarmUpCandidate(ComponentEntry<?> entry)
+    {
+        return entry.instance == null
+            && entry.descriptor.getInstantiationStrategy() == ComponentInstantiationStrategy.SINGLETON;
+    }
+
+    private void addWarmUpDependencies(ComponentEntry<?> entry, Map<ComponentEntry<?>, List<ComponentEntry<?>>> graph,
+        Set<ComponentEntry<?>> path)
+    {
+        if (!graph.containsKey(entry)) {
+            List<ComponentEntry<?>> dependencies = new ArrayList<>();
+            graph.put(entry, dependencies);
+
+            path.add(entry);
+            for (ComponentDependency<?> dependency : entry.descriptor.getComponentDependencies()) {
+                for (ComponentEntry<?> dependencyEntry : getDependencyEntries(dependency)) {
+                    // Skip dependencies leading back to the current path (cycles) since they cannot be created first
+                    if (isWarmUpCandidate(dependencyEntry) && !path.contains(dependencyEntry)) {
+                        addWarmUpDependencies(dependencyEntry, graph, path);
+                        dependencies.add(dependencyEntry);
+                    }
+                }
+            }
+            path.remove(entry);
+        }
+    }
+
+    /**
+     * @return the entries registered in this component manager which would be injected for the passed dependency
+     */
+    private Collection<ComponentEntry<?>> getDependencyEntries(ComponentDependency<?> dependency)
+    {
+        Class<?> dependencyRoleClass = ReflectionUtils.getTypeClass(dependency.getRoleType());
+
+        if (dependencyRoleClass == List.class || dependencyRoleClass == Map.class) {
+            Type role = ReflectionUtils.getLastTypeGenericArgument(dependency.getRoleType());
+            Map<String, ComponentEntry<?>> entries = role != null ? this.componentEntries.get(role) : null;
+
+            return entries != null ? entries.values() : Collections.<ComponentEntry<?>>emptyList();
+        }
+
+        ComponentEntry<?> entry = getComponentEntry(dependency.getRoleType(), dependency.getRoleHint());
+
+        return entry != null ? Collections.<ComponentEntry<?>>singletonList(entry)
+            : Collections.<ComponentEntry<?>>emptyList();
+    }
+
+    /**
+     * The state of a warm up.
+     */
+    private class WarmUp
+    {
+        private final Map<ComponentEntry<?>, List<ComponentEntry<?>>> graph = new HashMap<>();
+
+        private final ConcurrentMap<ComponentEntry<?>, WarmUpTask> tasks = new ConcurrentHashMap<>();
+
+        private final Map<ComponentDescriptor<?>, Long> times = new ConcurrentHashMap<>();
+
+        /**
+         * Create the passed entries concurrently and wait for them. Each entry is created by a single task even when
+         * it's required by several components.
+         */
+        void createAll(Collection<ComponentEntry<?>> entries)
+        {
+            List<WarmUpTask> entryTasks = new ArrayList<>(entries.size());
+            for (ComponentEntry<?> entry : entries) {
+                WarmUpTask task = new WarmUpTask(this, entry);
+                WarmUpTask existingTask = this.tasks.putIfAbsent(entry, task);
+                if (existingTask != null) {
+                    entryTasks.add(existingTask);
+                } else {
+                    task.fork();
+                    entryTasks.add(task);
+                }
+            }
+
+            for (WarmUpTask task : entryTasks) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * Create a component once all its dependencies have been created.
+     */
+    private class WarmUpTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient WarmUp warmUp;
+
+        private final transient ComponentEntry<?> entry;
+
+        WarmUpTask(WarmUp warmUp, ComponentEntry<?> entry)
+        {
+            this.warmUp = warmUp;
+            this.entry = entry;
+        }
+
+        @Override
+        protected void compute()
+        {
+            this.warmUp.createAll(this.warmUp.graph.get(this.entry));
+
+            long start = System.nanoTime();
+            try {
+                getComponentInstance(this.entry);
+
+                long time = System.nanoTime() - start;
+                this.warmUp.times.put(this.entry.descriptor, time);
+
+                logger.debug("Component [{}] created in [{}] ms", this.entry.descriptor.getImplementation(),
+                    TimeUnit.NANOSECONDS.toMillis(time));
+            } catch (Exception e) {
+                // The same error will be thrown again when looking up the component
+                logger.warn("Failed to warm up component [{}]: {}", getRoleHint(this.entry.descriptor),
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
     // Add
 
     private <T> RoleHint<T> getRoleHint(ComponentDescriptor<T> componentDescriptor)
@@ -458,12 +1045,50 @@ public <T> void registerComponent(ComponentDescriptor<T> componentDescriptor, T
         addComponent(roleHint, new DefaultComponentDescriptor<T>(componentDescriptor), componentInstance);
     }
 
-    private <T> void addComponent(RoleHint<T> roleHint, ComponentDescriptor<T> descriptor, T instance)
+    /**
+     * Register several components at once. Same as calling {@link #registerComponent(ComponentDescriptor)} for each
+     * descriptor except that the registrations are notified all at once when the event manager is a
+     * {@link BatchComponentEventManager}.
+     *
+     * @param componentDescriptors the descriptors of the components to register
+     * @since 7.1M1
+     */
+    @Unstable
+    public void registerComponents(Collection<? extends ComponentDescriptor<?>> componentDescriptors)
     {
-        ComponentEntry<T> componentEntry = new ComponentEntry<T>(descriptor, instance);
+        ComponentEventManager currentEventManager = this.eventManager;
+
+        if (currentEventManager instanceof BatchComponentEventManager) {
+            List<ComponentDescriptor<?>> registeredDescriptors = new ArrayList<>(componentDescriptors.size());
+            for (ComponentDescriptor<?> componentDescriptor : componentDescriptors) {
+                registeredDescriptors.add(registerComponentWithoutEvent(componentDescriptor));
+            }
+
+            ((BatchComponentEventManager) currentEventManager).notifyComponentsRegistered(registeredDescriptors, this);
+        } else {
+            for (ComponentDescriptor<?> componentDescriptor : componentDescriptors) {
+                registerComponent(componentDescriptor, null);
+            }
+        }
+    }
+
+    private <T> ComponentDescriptor<T> registerComponentWithoutEvent(ComponentDescriptor<T> componentDescriptor)
+    {
+        RoleHint<T> roleHint = getRoleHint(componentDescriptor);
+
+        // Remove any existing component associated to the provided roleHint
+        removeComponentWithoutException(roleHint);
 
         // Register new component
-        this.componentEntries.put(roleHint, componentEntry);
+        ComponentDescriptor<T> descriptor = new DefaultComponentDescriptor<T>(componentDescriptor);
+        addComponentEntry(roleHint, descriptor, null);
+
+        return descriptor;
+    }
+
+    private <T> void addComponent(RoleHint<T> roleHint, ComponentDescriptor<T> descriptor, T instance)
+    {
+        addComponentEntry(roleHint, descriptor, instance);
 
         // Send event about component registration
         if (this.eventManager != null) {
@@ -471,6 +1096,25 @@ private <T> void addComponent(RoleHint<T> roleHint, ComponentDescriptor<T> descr
         }
     }
 
+    private <T> void addComponentEntry(RoleHint<T> roleHint, ComponentDescriptor<T> descriptor, T instance)
+    {
+        ComponentEntry<T> componentEntry = new ComponentEntry<T>(descriptor, instance);
+
+        // Register new component
+        Map<String, ComponentEntry<?>> entries = this.componentEntries.get(roleHint.getRoleType());
+        if (entries == null) {
+            entries = new ConcurrentHashMap<>();
+            Map<String, ComponentEntry<?>> existingEntries =
+                this.componentEntries.putIfAbsent(roleHint.getRoleType(), entries);
+            if (existingEntries != null) {
+                entries = existingEntries;
+            }
+        }
+        entries.put(roleHint.getHint(), componentEntry);
+
+        invalidateLookupCache(roleHint.getRoleType(), roleHint.getHint());
+    }
+
     // Remove
 
     @Override
@@ -496,10 +1140,10 @@ public void release(Object component) throws ComponentLifecycleException
         // First find the descriptor matching the passed component
         RoleHint<?> key = null;
         ComponentDescriptor<?> oldDescriptor = null;
-        for (Map.Entry<RoleHint<?>, ComponentEntry<?>> entry : this.componentEntries.entrySet()) {
-            if (entry.getValue().instance == component) {
-                key = entry.getKey();
-                oldDescriptor = entry.getValue().descriptor;
+        for (ComponentEntry<?> entry : getComponentEntries()) {
+            if (entry.instance == component) {
+                oldDescriptor = entry.descriptor;
+                key = getRoleHint(oldDescriptor);
                 break;
             }
         }
@@ -524,7 +1168,8 @@ private void releaseInstance(ComponentEntry<?> componentEntry) throws ComponentL
     {
         // Make sure the singleton component instance can't be "lost" (impossible to dispose because returned but not
         // stored).
-        synchronized (componentEntry) {
+        componentEntry.lock.lock();
+        try {
             Object instance = componentEntry.instance;
 
             // Give a chance to the component to clean up
@@ -533,6 +1178,8 @@ private void releaseInstance(ComponentEntry<?> componentEntry) throws ComponentL
             }
 
             componentEntry.instance = null;
+        } finally {
+            componentEntry.lock.unlock();
         }
     }
 
@@ -546,7 +1193,7 @@ private void removeComponent(RoleHint<?> roleHint) throws ComponentLifecycleExce
     {
         // Make sure to remove the entry from the map before destroying it to reduce at the minimum the risk of
         // lookupping something invalid
-        ComponentEntry<?> componentEntry = this.componentEntries.remove(roleHint);
+        ComponentEntry<?> componentEntry = removeComponentEntry(roleHint);
 
         if (componentEntry != null) {
             ComponentDescriptor<?> oldDescriptor = componentEntry.descriptor;
@@ -565,6 +1212,37 @@ private void removeComponent(RoleHint<?> roleHint) throws ComponentLifecycleExce
         }
     }
 
+    /**
+     * @param roleHint the identifier of the component to remove
+     * @return the removed entry or null if no component was registered with the passed identifier
+     */
+    private ComponentEntry<?> removeComponentEntry(RoleHint<?> roleHint)
+    {
+        Map<String, ComponentEntry<?>> entries = this.componentEntries.get(roleHint.getRoleType());
+
+        // Note: the (possibly empty) hint map is kept to not have to synchronize with concurrent registrations
+        ComponentEntry<?> componentEntry = entries != null ? entries.remove(roleHint.getHint()) : null;
+
+        if (componentEntry != null) {
+            invalidateLookupCache(roleHint.getRoleType(), roleHint.getHint());
+        }
+
+        return componentEntry;
+    }
+
+    /**
+     * @return all the component entries registered in this component manager
+     */
+    private List<ComponentEntry<?>> getComponentEntries()
+    {
+        List<ComponentEntry<?>> entries = new ArrayList<>();
+        for (Map<String, ComponentEntry<?>> roleEntries : this.componentEntries.values()) {
+            entries.addAll(roleEntries.values());
+        }
+
+        return entries;
+    }
+
     /**
      * Note: This method shouldn't exist but register/unregister methods should throw a
      * {@link ComponentLifecycleException} but that would break backward compatibility to add it.
@@ -584,7 +1262,7 @@ private int sortEntry(List<RoleHint<?>> keys, int index)
         int newIndex = index;
 
         RoleHint<?> key = keys.get(index);
-        ComponentEntry<?> componentEntry = this.componentEntries.get(key);
+        ComponentEntry<?> componentEntry = getComponentEntry(key.getRoleType(), key.getHint());
 
         for (ComponentDependency<?> dependency : componentEntry.descriptor.getComponentDependencies()) {
             RoleHint<?> dependencyRole = new RoleHint<Object>(dependency.getRoleType(), dependency.getRoleHint());
@@ -609,11 +1287,14 @@ private int sortEntry(List<RoleHint<?>> keys, int index)
     @Override
     public void dispose()
     {
-        List<RoleHint<?>> keys = new ArrayList<>(this.componentEntries.keySet());
+        List<RoleHint<?>> keys = new ArrayList<>();
+        for (ComponentEntry<?> entry : getComponentEntries()) {
+            keys.add(getRoleHint(entry.descriptor));
+        }
 
         // Exclude this component
         RoleHint<ComponentManager> cmRoleHint = new RoleHint<>(ComponentManager.class);
-        ComponentEntry<?> cmEntry = this.componentEntries.get(cmRoleHint);
+        ComponentEntry<?> cmEntry = getComponentEntry(cmRoleHint.getRoleType(), cmRoleHint.getHint());
         if (cmEntry != null && cmEntry.instance == this) {
             keys.remove(cmRoleHint);
         }
@@ -634,7 +1315,7 @@ public int compare(RoleHint<?> rh1, RoleHint<?> rh2)
 
             private int getPriority(RoleHint<?> rh)
             {
-                Object instance = componentEntries.get(rh).instance;
+                Object instance = getComponentEntry(rh.getRoleType(), rh.getHint()).instance;
                 if (instance == null) {
                     // The component has not been instantiated yet. We don't need to dispose it in this case... :)
                     // Return the default priority since it doesn't matter.
@@ -648,9 +1329,10 @@ private int getPriority(RoleHint<?> rh)
 
         // Dispose old components
         for (RoleHint<?> key : keys) {
-            ComponentEntry<?> componentEntry = this.componentEntries.get(key);
+            ComponentEntry<?> componentEntry = getComponentEntry(key.getRoleType(), key.getHint());
 
-            synchronized (componentEntry) {
+            componentEntry.lock.lock();
+            try {
                 Object instance = componentEntry.instance;
 
                 // Protection to prevent infinite recursion in case a component implementation points to this
@@ -665,6 +1347,8 @@ private int getPriority(RoleHint<?> rh)
                             componentEntry.descriptor.getRoleType(), componentEntry.descriptor.getRoleHint(), e);
                     }
                 }
+            } finally {
+                componentEntry.lock.unlock();
             }
         }
 
@@ -672,7 +1356,7 @@ private int getPriority(RoleHint<?> rh)
         // components that have to use a component already disposed (usually because it dynamically requires it and
         // there is no way for the ComponentManager to know that dependency).
         for (RoleHint<?> key : keys) {
-            this.componentEntries.remove(key);
+            removeComponentEntry(key);
         }
     }
 
@@ -684,9 +1368,11 @@ private int getPriority(RoleHint<?> rh)
     public <T> List<ComponentDescriptor<T>> getComponentDescriptorList(Class<T> role)
     {
         List<ComponentDescriptor<T>> results = new ArrayList<>();
-        for (Map.Entry<RoleHint<?>, ComponentEntry<?>> entry : this.componentEntries.entrySet()) {
-            if (entry.getKey().getRoleClass() == role) {
-                results.add((ComponentDescriptor<T>) entry.getValue().descriptor);
+        for (Map.Entry<Type, Map<String, ComponentEntry<?>>> entry : this.componentEntries.entrySet()) {
+            if (ReflectionUtils.getTypeClass(entry.getKey()) == role) {
+                for (ComponentEntry<?> componentEntry : entry.getValue().values()) {
+                    results.add((ComponentDescriptor<T>) componentEntry.descriptor);
+                }
             }
         }
         return results;
@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.embed;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import javax.inject.Provider;
+
+/**
+ * Handle the calls made on a proxy injected in place of a {@link org.xwiki.component.annotation.Lazy} dependency: the
+ * actual component is looked up the first time a method is called and then reused.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+class LazyComponentInvocationHandler implements InvocationHandler
+{
+    private final Provider<?> provider;
+
+    private volatile Object instance;
+
+    /**
+     * @param provider the provider used to get the actual component
+     */
+    LazyComponentInvocationHandler(Provider<?> provider)
+    {
+        this.provider = provider;
+    }
+
+    /**
+     * @return the actual component
+     */
+    Object getInstance()
+    {
+        // Getting it twice in case of concurrent access is harmless since the provider does a standard lookup
+        Object currentInstance = this.instance;
+        if (currentInstance == null) {
+            currentInstance = this.provider.get();
+            this.instance = currentInstance;
+        }
+
+        return currentInstance;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        try {
+            return method.invoke(getInstance(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
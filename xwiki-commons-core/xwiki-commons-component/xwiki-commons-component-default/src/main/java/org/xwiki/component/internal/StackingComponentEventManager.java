@@ -19,13 +19,17 @@
  */
 package org.xwiki.component.internal;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 import org.xwiki.component.descriptor.ComponentDescriptor;
 import org.xwiki.component.event.ComponentDescriptorAddedEvent;
 import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
-import org.xwiki.component.manager.ComponentEventManager;
+import org.xwiki.component.event.ComponentDescriptorsAddedEvent;
+import org.xwiki.component.manager.BatchComponentEventManager;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.observation.EventListener;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.event.Event;
 
@@ -37,7 +41,7 @@
  * @version $Id$
  * @since 2.0M1
  */
-public class StackingComponentEventManager implements ComponentEventManager
+public class StackingComponentEventManager implements BatchComponentEventManager
 {
     /**
      * The wrapped observation manager.
@@ -57,29 +61,49 @@ public class StackingComponentEventManager implements ComponentEventManager
     @Override
     public void notifyComponentRegistered(ComponentDescriptor<?> descriptor)
     {
-        notifyComponentEvent(new ComponentDescriptorAddedEvent(descriptor.getRoleType(), descriptor.getRoleHint()),
-            descriptor, null);
+        notifyComponentRegistered(descriptor, null);
     }
 
     @Override
     public void notifyComponentRegistered(ComponentDescriptor<?> descriptor, ComponentManager componentManager)
     {
-        notifyComponentEvent(new ComponentDescriptorAddedEvent(descriptor.getRoleType(), descriptor.getRoleHint()),
-            descriptor, componentManager);
+        Event event = new ComponentDescriptorAddedEvent(descriptor.getRoleType(), descriptor.getRoleHint());
+        if (isObserved(event, descriptor)) {
+            notifyComponentEvent(event, descriptor, componentManager);
+        }
     }
 
     @Override
     public void notifyComponentUnregistered(ComponentDescriptor<?> descriptor)
     {
-        notifyComponentEvent(new ComponentDescriptorRemovedEvent(descriptor.getRoleType(), descriptor.getRoleHint()),
-            descriptor, null);
+        notifyComponentUnregistered(descriptor, null);
     }
 
     @Override
     public void notifyComponentUnregistered(ComponentDescriptor<?> descriptor, ComponentManager componentManager)
     {
-        notifyComponentEvent(new ComponentDescriptorRemovedEvent(descriptor.getRoleType(), descriptor.getRoleHint()),
-            descriptor, componentManager);
+        Event event = new ComponentDescriptorRemovedEvent(descriptor.getRoleType(), descriptor.getRoleHint());
+        if (isObserved(event, descriptor)) {
+            notifyComponentEvent(event, descriptor, componentManager);
+        }
+    }
+
+    @Override
+    public void notifyComponentsRegistered(List<ComponentDescriptor<?>> descriptors,
+        ComponentManager componentManager)
+    {
+        // Each registration is checked when sending the event
+        if (!this.shouldStack && this.observationManager == null) {
+            return;
+        }
+
+        List<ComponentDescriptorAddedEvent> addedEvents = new ArrayList<>(descriptors.size());
+        for (ComponentDescriptor<?> descriptor : descriptors) {
+            addedEvents.add(new ComponentDescriptorAddedEvent(descriptor.getRoleType(), descriptor.getRoleHint()));
+        }
+
+        notifyComponentEvent(new ComponentDescriptorsAddedEvent(addedEvents), new ArrayList<>(descriptors),
+            componentManager);
     }
 
     /**
@@ -89,7 +113,7 @@ public synchronized void flushEvents()
     {
         while (!this.events.isEmpty()) {
             ComponentEventEntry entry = this.events.pop();
-            sendEvent(entry.event, entry.descriptor, entry.componentManager);
+            sendEvent(entry.event, entry.data, entry.componentManager);
         }
     }
 
@@ -109,23 +133,42 @@ public void setObservationManager(ObservationManager observationManager)
         this.observationManager = observationManager;
     }
 
+    /**
+     * @param event the event to send
+     * @param descriptor the descriptor of the registered or unregistered component
+     * @return false if nobody would receive the event so that it does not need to be sent
+     */
+    private boolean isObserved(Event event, ComponentDescriptor<?> descriptor)
+    {
+        // Stacked events are sent later, when the listeners are known
+        if (this.shouldStack) {
+            return true;
+        }
+
+        if (this.observationManager == null) {
+            return false;
+        }
+
+        // The Observation Manager itself keeps track of the Event Listener components
+        return descriptor.getRoleType() == EventListener.class || this.observationManager.hasListener(event);
+    }
+
     /**
      * Send or stack the provided event dependening on the configuration.
      *
      * @param event the event send by the component manager
-     * @param descriptor the event related component descriptor.
+     * @param data the event related component descriptor(s).
      * @param componentManager the event related component manager instance.
      * @see #shouldStack(boolean)
      */
-    private void notifyComponentEvent(Event event, ComponentDescriptor<?> descriptor,
-        ComponentManager componentManager)
+    private void notifyComponentEvent(Event event, Object data, ComponentManager componentManager)
     {
         if (this.shouldStack) {
             synchronized (this) {
-                this.events.push(new ComponentEventEntry(event, descriptor, componentManager));
+                this.events.push(new ComponentEventEntry(event, data, componentManager));
             }
         } else {
-            sendEvent(event, descriptor, componentManager);
+            sendEvent(event, data, componentManager);
         }
     }
 
@@ -133,13 +176,43 @@ private void notifyComponentEvent(Event event, ComponentDescriptor<?> descriptor
      * Send the event.
      *
      * @param event the event to send
-     * @param descriptor the event related component descriptor.
+     * @param data the event related component descriptor(s).
      * @param componentManager the event related component manager instance.
      */
-    private void sendEvent(Event event, ComponentDescriptor<?> descriptor, ComponentManager componentManager)
+    private void sendEvent(Event event, Object data, ComponentManager componentManager)
     {
         if (this.observationManager != null) {
-            this.observationManager.notify(event, componentManager, descriptor);
+            if (event instanceof ComponentDescriptorsAddedEvent) {
+                sendComponentsAddedEvent((ComponentDescriptorsAddedEvent) event, (List<?>) data, componentManager);
+            } else {
+                this.observationManager.notify(event, componentManager, data);
+            }
+        }
+    }
+
+    /**
+     * Send the batch event once, to the listeners interested in it, and then each registration which has listeners
+     * on its own, so that the listeners of {@link ComponentDescriptorAddedEvent} (and the Observation Manager itself,
+     * for the Event Listener components) are notified the same way whatever the Observation Manager implementation.
+     *
+     * @param event the batch event to send
+     * @param descriptors the descriptors of the registered components, in the same order as the events
+     * @param componentManager the event related component manager instance.
+     */
+    private void sendComponentsAddedEvent(ComponentDescriptorsAddedEvent event, List<?> descriptors,
+        ComponentManager componentManager)
+    {
+        if (this.observationManager.hasListener(event)) {
+            this.observationManager.notify(event, componentManager, descriptors);
+        }
+
+        List<ComponentDescriptorAddedEvent> addedEvents = event.getEvents();
+        for (int i = 0; i < addedEvents.size(); ++i) {
+            ComponentDescriptorAddedEvent addedEvent = addedEvents.get(i);
+            // Checked for each registration since a new Event Listener might be interested in the next ones
+            if (addedEvent.getRoleType() == EventListener.class || this.observationManager.hasListener(addedEvent)) {
+                this.observationManager.notify(addedEvent, componentManager, descriptors.get(i));
+            }
         }
     }
 
@@ -156,9 +229,9 @@ private void sendEvent(Event event, ComponentDescriptor<?> descriptor, Component
         public Event event;
 
         /**
-         * The event related component descriptor.
+         * The event related component descriptor(s).
          */
-        public ComponentDescriptor<?> descriptor;
+        public Object data;
 
         /**
          * The event related component manager instance.
@@ -167,13 +240,13 @@ private void sendEvent(Event event, ComponentDescriptor<?> descriptor, Component
 
         /**
          * @param event the stacked event.
-         * @param descriptor the event related component descriptor.
+         * @param data the event related component descriptor(s).
          * @param componentManager the event related component manager instance.
          */
-        public ComponentEventEntry(Event event, ComponentDescriptor<?> descriptor, ComponentManager componentManager)
+        public ComponentEventEntry(Event event, Object data, ComponentManager componentManager)
         {
             this.event = event;
-            this.descriptor = descriptor;
+            this.data = data;
             this.componentManager = componentManager;
         }
     }
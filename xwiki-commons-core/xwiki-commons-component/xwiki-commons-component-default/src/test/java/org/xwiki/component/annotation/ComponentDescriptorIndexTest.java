@@ -0,0 +1,182 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xwiki.component.ProviderTest;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+
+/**
+ * Unit tests for {@link ComponentDescriptorIndex}.
+ *
+ * @version $Id$
+ */
+public class ComponentDescriptorIndexTest
+{
+    @Component(staticRegistration = false)
+    @Singleton
+    public static class WildcardComponent implements ComponentAnnotationLoaderTest.GenericRole<String>
+    {
+        @Inject
+        private Map<String, ? extends ComponentAnnotationLoaderTest.GenericRole<String>> components;
+    }
+
+    private ComponentAnnotationLoader loader = new ComponentAnnotationLoader();
+
+    private ComponentDescriptorIndex writeAndRead(ComponentDescriptorIndex index) throws Exception
+    {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        index.write(stream);
+
+        return ComponentDescriptorIndex.read(new ByteArrayInputStream(stream.toByteArray()));
+    }
+
+    @Test
+    public void writeAndReadDescriptors() throws Exception
+    {
+        Class<?>[] componentClasses =
+            new Class<?>[] {ComponentAnnotationLoaderTest.GenericComponent.class,
+                ComponentAnnotationLoaderTest.ExtendingGenericComponent.class,
+                ComponentAnnotationLoaderTest.ProviderImpl.class, ProviderTest.TestComponentWithProviders.class};
+
+        ComponentDescriptorIndex index = new ComponentDescriptorIndex();
+        for (Class<?> componentClass : componentClasses) {
+            Assert.assertTrue(index.add(componentClass, this.loader.getComponentsDescriptors(componentClass)));
+        }
+
+        index = writeAndRead(index);
+
+        for (Class<?> componentClass : componentClasses) {
+            Assert.assertEquals(this.loader.getComponentsDescriptors(componentClass),
+                index.getComponentDescriptors(componentClass));
+        }
+    }
+
+    @Test
+    public void addWhenTypeNotSupported() throws Exception
+    {
+        ComponentDescriptorIndex index = new ComponentDescriptorIndex();
+
+        Assert.assertFalse(index.add(WildcardComponent.class,
+            this.loader.getComponentsDescriptors(WildcardComponent.class)));
+        Assert.assertFalse(index.contains(WildcardComponent.class.getName()));
+        Assert.assertNull(writeAndRead(index).getComponentDescriptors(WildcardComponent.class));
+    }
+
+    @Test
+    public void writeAndReadPriority() throws Exception
+    {
+        Class<?> componentClass = ComponentAnnotationLoaderTest.GenericComponent.class;
+
+        ComponentDescriptorIndex index = new ComponentDescriptorIndex();
+        Assert.assertTrue(index.add(componentClass, 500, this.loader.getComponentsDescriptors(componentClass)));
+
+        Assert.assertEquals(Integer.valueOf(500), writeAndRead(index).getPriority(componentClass.getName()));
+    }
+
+    @Test
+    public void readConcatenatedIndexes() throws Exception
+    {
+        Class<?> componentClass = ComponentAnnotationLoaderTest.GenericComponent.class;
+        Class<?> otherComponentClass = ComponentAnnotationLoaderTest.ProviderImpl.class;
+
+        ComponentDescriptorIndex index = new ComponentDescriptorIndex();
+        Assert.assertTrue(index.add(componentClass, this.loader.getComponentsDescriptors(componentClass)));
+        ComponentDescriptorIndex otherIndex = new ComponentDescriptorIndex();
+        Assert.assertTrue(otherIndex.add(otherComponentClass, 500,
+            this.loader.getComponentsDescriptors(otherComponentClass)));
+
+        // Like the Maven Shade Plugin AppendingTransformer does
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        index.write(stream);
+        stream.write('\n');
+        otherIndex.write(stream);
+        stream.write('\n');
+
+        index = ComponentDescriptorIndex.read(new ByteArrayInputStream(stream.toByteArray()));
+
+        Assert.assertEquals(this.loader.getComponentsDescriptors(componentClass),
+            index.getComponentDescriptors(componentClass));
+        Assert.assertEquals(this.loader.getComponentsDescriptors(otherComponentClass),
+            index.getComponentDescriptors(otherComponentClass));
+        Assert.assertEquals(Integer.valueOf(500), index.getPriority(otherComponentClass.getName()));
+    }
+
+    private EmbeddableComponentManager registerFromJAR(String componentList, String indexedComponent)
+        throws Exception
+    {
+        String roleType = ComponentAnnotationLoaderTest.GenericRole.class.getName();
+
+        // Use a hint different from the annotations to make sure the index is used
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(jar)) {
+            zip.putNextEntry(new ZipEntry(ComponentAnnotationLoader.COMPONENT_LIST));
+            zip.write(componentList.getBytes("UTF-8"));
+            zip.putNextEntry(new ZipEntry(ComponentAnnotationLoader.COMPONENT_INDEX));
+            zip.write(("1\nC\t" + indexedComponent + "\nR\tSINGLETON\tindexed\t" + roleType + "\n")
+                .getBytes("UTF-8"));
+        }
+
+        List<ComponentDeclaration> declarations =
+            this.loader.getDeclaredComponentsFromJAR(new ByteArrayInputStream(jar.toByteArray()));
+
+        EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+        this.loader.initialize(componentManager, getClass().getClassLoader(), declarations);
+
+        return componentManager;
+    }
+
+    @Test
+    public void registerFromJARIndex() throws Exception
+    {
+        String className = ComponentAnnotationLoaderTest.GenericComponent.class.getName();
+
+        EmbeddableComponentManager componentManager = registerFromJAR("500:" + className, className + "\t500");
+
+        ComponentDescriptor<?> descriptor =
+            componentManager.getComponentDescriptor(ComponentAnnotationLoaderTest.GenericRole.class, "indexed");
+        Assert.assertNotNull(descriptor);
+        Assert.assertSame(ComponentAnnotationLoaderTest.GenericComponent.class, descriptor.getImplementation());
+    }
+
+    @Test
+    public void registerFromJARIndexWithDifferentPriority() throws Exception
+    {
+        String className = ComponentAnnotationLoaderTest.GenericComponent.class.getName();
+
+        // The index is out of date
+        EmbeddableComponentManager componentManager = registerFromJAR("500:" + className, className + "\t1000");
+
+        Assert.assertNull(
+            componentManager.getComponentDescriptor(ComponentAnnotationLoaderTest.GenericRole.class, "indexed"));
+    }
+}
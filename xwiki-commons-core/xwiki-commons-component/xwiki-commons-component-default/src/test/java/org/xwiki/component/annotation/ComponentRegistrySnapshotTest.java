@@ -0,0 +1,124 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.annotation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.component.util.DefaultParameterizedType;
+
+/**
+ * Unit tests for {@link ComponentRegistrySnapshot}.
+ *
+ * @version $Id$
+ */
+public class ComponentRegistrySnapshotTest
+{
+    private static final File TEST_DIR = new File("target/test-snapshot");
+
+    private static final Type ROLE =
+        new DefaultParameterizedType(ComponentAnnotationLoaderTest.class, ComponentAnnotationLoaderTest.GenericRole.class,
+            String.class);
+
+    private File jarFile = new File(TEST_DIR, "components.jar");
+
+    private File snapshotFile = new File(TEST_DIR, "snapshot/components.snapshot");
+
+    private ClassLoader classLoader;
+
+    @Before
+    public void before() throws Exception
+    {
+        this.snapshotFile.delete();
+        TEST_DIR.mkdirs();
+
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(this.jarFile))) {
+            zip.putNextEntry(new ZipEntry(ComponentAnnotationLoader.COMPONENT_LIST));
+            zip.write(ComponentAnnotationLoaderTest.GenericComponent.class.getName().getBytes("UTF-8"));
+        }
+
+        // Hide the component lists of the test class path
+        ClassLoader parent = new ClassLoader(getClass().getClassLoader())
+        {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException
+            {
+                return Collections.emptyEnumeration();
+            }
+        };
+
+        this.classLoader = new URLClassLoader(new URL[] {this.jarFile.toURI().toURL()}, parent);
+    }
+
+    private EmbeddableComponentManager initialize()
+    {
+        EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+        componentManager.setRegistrySnapshot(this.snapshotFile);
+        componentManager.initialize(this.classLoader);
+
+        return componentManager;
+    }
+
+    @Test
+    public void initializeFromSnapshot() throws Exception
+    {
+        // No snapshot yet
+        Assert.assertTrue(initialize().hasComponent(ROLE));
+        Assert.assertTrue(this.snapshotFile.exists());
+
+        // Modify the snapshot to make sure it's used
+        String content = new String(Files.readAllBytes(this.snapshotFile.toPath()), "UTF-8");
+        Files.write(this.snapshotFile.toPath(), content.replace("\tdefault\t", "\tsnapshot\t").getBytes("UTF-8"));
+
+        EmbeddableComponentManager componentManager = initialize();
+        Assert.assertTrue(componentManager.hasComponent(ROLE, "snapshot"));
+        Assert.assertFalse(componentManager.hasComponent(ROLE));
+
+        // The JAR changed, the snapshot must be ignored and rewritten
+        this.jarFile.setLastModified(this.jarFile.lastModified() - 10000);
+
+        componentManager = initialize();
+        Assert.assertTrue(componentManager.hasComponent(ROLE));
+        Assert.assertFalse(componentManager.hasComponent(ROLE, "snapshot"));
+        Assert.assertFalse(new String(Files.readAllBytes(this.snapshotFile.toPath()), "UTF-8").contains("snapshot"));
+    }
+
+    @Test
+    public void getFingerprintWhenComponentsInDirectory() throws Exception
+    {
+        Assert.assertNull(ComponentRegistrySnapshot.getFingerprint(getClass().getClassLoader(),
+            ComponentAnnotationLoader.COMPONENT_LIST));
+        Assert.assertNotNull(
+            ComponentRegistrySnapshot.getFingerprint(this.classLoader, ComponentAnnotationLoader.COMPONENT_LIST));
+    }
+}
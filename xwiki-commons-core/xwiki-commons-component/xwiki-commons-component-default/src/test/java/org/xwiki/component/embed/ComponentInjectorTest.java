@@ -0,0 +1,107 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.embed;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xwiki.component.descriptor.DefaultComponentDependency;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+
+/**
+ * Unit tests for {@link ComponentInjector}.
+ *
+ * @version $Id$
+ */
+public class ComponentInjectorTest
+{
+    public static class ParentComponent
+    {
+        private String parentField;
+
+        public String getParentField()
+        {
+            return this.parentField;
+        }
+    }
+
+    public static class Component extends ParentComponent
+    {
+        private String field;
+
+        public String getField()
+        {
+            return this.field;
+        }
+    }
+
+    public static class FailingComponent
+    {
+        public FailingComponent() throws Exception
+        {
+            throw new Exception("failing");
+        }
+    }
+
+    private <T> DefaultComponentDescriptor<T> createDescriptor(Class<T> implementation, String... dependencies)
+    {
+        DefaultComponentDescriptor<T> descriptor = new DefaultComponentDescriptor<T>();
+        descriptor.setImplementation(implementation);
+        for (String dependency : dependencies) {
+            DefaultComponentDependency<String> componentDependency = new DefaultComponentDependency<String>();
+            componentDependency.setRoleType(String.class);
+            componentDependency.setName(dependency);
+            descriptor.addComponentDependency(componentDependency);
+        }
+
+        return descriptor;
+    }
+
+    @Test
+    public void newInstanceAndSetDependencies() throws Exception
+    {
+        ComponentInjector<Component> injector =
+            new ComponentInjector<Component>(createDescriptor(Component.class, "field", "PARENTFIELD", "unknown"));
+
+        Component instance = injector.newInstance();
+
+        injector.setDependency(instance, "field", "value");
+        injector.setDependency(instance, "PARENTFIELD", "parentvalue");
+        // Dependencies without matching field are ignored
+        injector.setDependency(instance, "unknown", "value");
+
+        Assert.assertEquals("value", instance.getField());
+        Assert.assertEquals("parentvalue", instance.getParentField());
+        Assert.assertNotSame(instance, injector.newInstance());
+    }
+
+    @Test
+    public void newInstanceWhenConstructorFails() throws Exception
+    {
+        ComponentInjector<FailingComponent> injector =
+            new ComponentInjector<FailingComponent>(createDescriptor(FailingComponent.class));
+
+        try {
+            injector.newInstance();
+            Assert.fail("Should have thrown an exception");
+        } catch (Exception expected) {
+            Assert.assertEquals("failing", expected.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.embed;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.embed.EmbeddableComponentManagerTest.Role;
+import org.xwiki.component.embed.EmbeddableComponentManagerTest.RoleImpl;
+
+/**
+ * Unit tests for {@link ComponentManagerMetrics}.
+ *
+ * @version $Id$
+ */
+public class ComponentManagerMetricsTest
+{
+    private static final String ROLE = Role.class.getName() + ":hint";
+
+    private static final String IMPLEMENTATION = RoleImpl.class.getName();
+
+    @Test
+    public void collectMetrics() throws Exception
+    {
+        EmbeddableComponentManager parent = new EmbeddableComponentManager();
+        DefaultComponentDescriptor<Role> descriptor = new DefaultComponentDescriptor<>();
+        descriptor.setRoleType(Role.class);
+        descriptor.setRoleHint("hint");
+        descriptor.setImplementation(RoleImpl.class);
+        descriptor.setInstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP);
+        parent.registerComponent(descriptor);
+
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+        ecm.setParent(parent);
+
+        ComponentManagerMetrics parentMetrics = new ComponentManagerMetrics();
+        parent.setMetrics(parentMetrics);
+        ComponentManagerMetrics metrics = new ComponentManagerMetrics();
+        ecm.setMetrics(metrics);
+
+        ecm.getInstance(Role.class, "hint");
+        ecm.getInstance(Role.class, "hint");
+        parent.getInstance(Role.class, "hint");
+
+        Assert.assertEquals(Collections.singletonMap(ROLE, 2L), metrics.getLookupCounts());
+        Assert.assertEquals(Collections.singletonMap(ROLE, 2L), metrics.getParentLookupCounts());
+        Assert.assertTrue(metrics.getCreationCounts().isEmpty());
+
+        Assert.assertEquals(Collections.singletonMap(ROLE, 3L), parentMetrics.getLookupCounts());
+        Assert.assertTrue(parentMetrics.getParentLookupCounts().isEmpty());
+        Assert.assertEquals(Collections.singletonMap(IMPLEMENTATION, 3L), parentMetrics.getCreationCounts());
+        Assert.assertTrue(parentMetrics.getCreationTimes().containsKey(IMPLEMENTATION));
+        Assert.assertTrue(parentMetrics.getLifecycleTimes().containsKey(IMPLEMENTATION));
+        Assert.assertTrue(parentMetrics.getMaxCreationTimes().containsKey(IMPLEMENTATION));
+
+        long[] histogram = parentMetrics.getCreationTimeHistograms().get(IMPLEMENTATION);
+        long total = 0;
+        for (long value : histogram) {
+            total += value;
+        }
+        Assert.assertEquals(3, total);
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getLookupCounts().isEmpty());
+
+        // Not collected anymore
+        ecm.setMetrics(null);
+        ecm.getInstance(Role.class, "hint");
+        Assert.assertTrue(metrics.getLookupCounts().isEmpty());
+    }
+}
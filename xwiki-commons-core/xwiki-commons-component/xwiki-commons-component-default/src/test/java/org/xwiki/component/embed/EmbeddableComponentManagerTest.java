@@ -23,13 +23,26 @@
 import static org.mockito.Mockito.verify;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.DisposePriority;
+import org.xwiki.component.annotation.Lazy;
 import org.xwiki.component.descriptor.ComponentDescriptor;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
 import org.xwiki.component.descriptor.DefaultComponentDependency;
@@ -264,6 +277,43 @@ public void testUnregisterComponent() throws Exception
         }
     }
 
+    @Test
+    public void getInstanceListAfterUnregisterComponent() throws Exception
+    {
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+
+        DefaultComponentDescriptor<Role> d1 = new DefaultComponentDescriptor<Role>();
+        d1.setRoleType(Role.class);
+        d1.setRoleHint("hint1");
+        d1.setImplementation(RoleImpl.class);
+        ecm.registerComponent(d1);
+
+        DefaultComponentDescriptor<Role> d2 = new DefaultComponentDescriptor<Role>();
+        d2.setRoleType(Role.class);
+        d2.setRoleHint("hint2");
+        d2.setImplementation(OtherRoleImpl.class);
+        ecm.registerComponent(d2);
+
+        Assert.assertEquals(2, ecm.getInstanceList(Role.class).size());
+
+        ecm.unregisterComponent(d1.getRoleType(), d1.getRoleHint());
+
+        Map<String, Role> instances = ecm.getInstanceMap(Role.class);
+        Assert.assertEquals(1, instances.size());
+        Assert.assertSame(OtherRoleImpl.class, instances.get("hint2").getClass());
+        Assert.assertEquals(1, ecm.getComponentDescriptorList((Type) Role.class).size());
+
+        ecm.unregisterComponent(d2.getRoleType(), d2.getRoleHint());
+
+        Assert.assertTrue(ecm.getInstanceList(Role.class).isEmpty());
+        Assert.assertTrue(ecm.getComponentDescriptorList((Type) Role.class).isEmpty());
+
+        // Registering again the same role should work as usual
+        ecm.registerComponent(d1);
+
+        Assert.assertSame(RoleImpl.class, ecm.getInstance(Role.class, "hint1").getClass());
+    }
+
     @Test
     public void testGetInstanceWhenComponentInParent() throws Exception
     {
@@ -614,4 +664,343 @@ public void testComponentDescriptorInjection() throws Exception
         Assert.assertNotNull(impl.getComponentDescriptor());
     }
 
+    public static class DependingRoleImpl implements Role, Initializable
+    {
+        private Role dependency;
+
+        private boolean dependencyInitialized;
+
+        @Override
+        public void initialize() throws InitializationException
+        {
+            this.dependencyInitialized = ((InitializableRoleImpl) this.dependency).isInitialized();
+        }
+
+        public Role getDependency()
+        {
+            return this.dependency;
+        }
+
+        public boolean isDependencyInitialized()
+        {
+            return this.dependencyInitialized;
+        }
+    }
+
+    @Test
+    public void warmUp() throws Exception
+    {
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+
+        DefaultComponentDescriptor<Role> d1 = new DefaultComponentDescriptor<>();
+        d1.setRoleType(Role.class);
+        d1.setRoleHint("dependency");
+        d1.setImplementation(InitializableRoleImpl.class);
+        ecm.registerComponent(d1);
+
+        DefaultComponentDescriptor<Role> d2 = new DefaultComponentDescriptor<>();
+        d2.setRoleType(Role.class);
+        d2.setRoleHint("depending");
+        d2.setImplementation(DependingRoleImpl.class);
+        DefaultComponentDependency<Role> dependency = new DefaultComponentDependency<>();
+        dependency.setRoleType(Role.class);
+        dependency.setRoleHint("dependency");
+        dependency.setName("dependency");
+        d2.addComponentDependency(dependency);
+        ecm.registerComponent(d2);
+
+        DefaultComponentDescriptor<Role> d3 = new DefaultComponentDescriptor<>();
+        d3.setRoleType(Role.class);
+        d3.setRoleHint("perlookup");
+        d3.setImplementation(RoleImpl.class);
+        d3.setInstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP);
+        ecm.registerComponent(d3);
+
+        Map<ComponentDescriptor<?>, Long> times = ecm.warmUp(new ForkJoinPool(2));
+
+        // Per lookup components and already created components (the component manager itself) are not warmed up
+        Assert.assertEquals(2, times.size());
+
+        DependingRoleImpl depending = ecm.getInstance(Role.class, "depending");
+        Assert.assertTrue(depending.isDependencyInitialized());
+        Assert.assertSame(ecm.getInstance(Role.class, "dependency"), depending.getDependency());
+
+        // Warming up again does nothing since everything has been created
+        Assert.assertTrue(ecm.warmUp(new ForkJoinPool(2)).isEmpty());
+    }
+
+    public static class SlowRoleImpl implements Role, Initializable
+    {
+        @Override
+        public void initialize() throws InitializationException
+        {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new InitializationException("Interrupted", e);
+            }
+        }
+    }
+
+    private DefaultComponentDescriptor<Role> registerComponent(EmbeddableComponentManager ecm, String hint,
+        Class<? extends Role> implementation, String dependencyHint) throws Exception
+    {
+        DefaultComponentDescriptor<Role> descriptor = new DefaultComponentDescriptor<>();
+        descriptor.setRoleType(Role.class);
+        descriptor.setRoleHint(hint);
+        descriptor.setImplementation(implementation);
+        if (dependencyHint != null) {
+            DefaultComponentDependency<Role> dependency = new DefaultComponentDependency<>();
+            dependency.setRoleType(Role.class);
+            dependency.setRoleHint(dependencyHint);
+            dependency.setName("dependency");
+            descriptor.addComponentDependency(dependency);
+        }
+        ecm.registerComponent(descriptor);
+
+        return descriptor;
+    }
+
+    @Test
+    public void getInstanceWithDependencyCycle() throws Exception
+    {
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+
+        registerComponent(ecm, "component1", DependingRoleImpl.class, "component2");
+        registerComponent(ecm, "component2", DependingRoleImpl.class, "component1");
+
+        try {
+            ecm.getInstance(Role.class, "component1");
+            Assert.fail("Should have thrown an exception");
+        } catch (ComponentLookupException expected) {
+            Assert.assertTrue(ExceptionUtils.getRootCauseMessage(expected).contains("Dependency cycle detected"));
+        }
+    }
+
+    /**
+     * Wait for the other component of the cycle to be in creation before looking it up in the component manager where
+     * it's registered.
+     */
+    public static class CrossManagerRoleImpl implements Role, Initializable
+    {
+        private static CountDownLatch started;
+
+        private static Map<Class<?>, ComponentManager> componentManagers;
+
+        @Override
+        public void initialize() throws InitializationException
+        {
+            Class<?> otherImplementation =
+                getClass() == CrossManagerRoleImpl.class ? OtherCrossManagerRoleImpl.class : CrossManagerRoleImpl.class;
+            try {
+                started.countDown();
+                started.await(10, TimeUnit.SECONDS);
+                componentManagers.get(otherImplementation).getInstance(Role.class, otherImplementation.getName());
+            } catch (Exception e) {
+                throw new InitializationException("Failed to lookup the other component", e);
+            }
+        }
+    }
+
+    public static class OtherCrossManagerRoleImpl extends CrossManagerRoleImpl
+    {
+    }
+
+    @Test
+    public void getInstanceWithDependencyCycleBetweenThreadsAndManagers() throws Exception
+    {
+        final EmbeddableComponentManager parent = new EmbeddableComponentManager();
+        final EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+        ecm.setParent(parent);
+
+        registerComponent(ecm, CrossManagerRoleImpl.class.getName(), CrossManagerRoleImpl.class, null);
+        registerComponent(parent, OtherCrossManagerRoleImpl.class.getName(), OtherCrossManagerRoleImpl.class, null);
+        CrossManagerRoleImpl.started = new CountDownLatch(2);
+        CrossManagerRoleImpl.componentManagers = new HashMap<>();
+        CrossManagerRoleImpl.componentManagers.put(CrossManagerRoleImpl.class, ecm);
+        CrossManagerRoleImpl.componentManagers.put(OtherCrossManagerRoleImpl.class, parent);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Role>> futures = new ArrayList<>();
+            for (final Map.Entry<Class<?>, ComponentManager> entry : CrossManagerRoleImpl.componentManagers
+                .entrySet()) {
+                futures.add(executor.submit(new Callable<Role>()
+                {
+                    @Override
+                    public Role call() throws Exception
+                    {
+                        return entry.getValue().getInstance(Role.class, entry.getKey().getName());
+                    }
+                }));
+            }
+
+            // Each thread waits for the component the other thread is creating in another component manager
+            int cycles = 0;
+            for (Future<Role> future : futures) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException expected) {
+                    Assert.assertTrue(ExceptionUtils.getRootCauseMessage(expected).contains(
+                        "Dependency cycle detected"));
+                    ++cycles;
+                }
+            }
+            Assert.assertEquals(2, cycles);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getInstanceConcurrently() throws Exception
+    {
+        final EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+
+        registerComponent(ecm, "slow", SlowRoleImpl.class, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Role>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                futures.add(executor.submit(new Callable<Role>()
+                {
+                    @Override
+                    public Role call() throws Exception
+                    {
+                        return ecm.getInstance(Role.class, "slow");
+                    }
+                }));
+            }
+
+            Role instance = ecm.getInstance(Role.class, "slow");
+            for (Future<Role> future : futures) {
+                Assert.assertSame(instance, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void getInstanceInParentsAfterRegistrationChanges() throws Exception
+    {
+        EmbeddableComponentManager root = new EmbeddableComponentManager();
+        EmbeddableComponentManager parent = new EmbeddableComponentManager();
+        parent.setParent(root);
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+        ecm.setParent(parent);
+
+        // Not found anywhere
+        Assert.assertFalse(ecm.hasComponent(Role.class, "hint"));
+
+        // Registered in the root
+        registerComponent(root, "hint", RoleImpl.class, null);
+        Assert.assertTrue(ecm.hasComponent(Role.class, "hint"));
+        Assert.assertSame(root.getInstance(Role.class, "hint"), ecm.getInstance(Role.class, "hint"));
+
+        // Overridden in the direct parent
+        registerComponent(parent, "hint", OtherRoleImpl.class, null);
+        Assert.assertTrue(ecm.getInstance(Role.class, "hint") instanceof OtherRoleImpl);
+        Assert.assertSame(OtherRoleImpl.class, ecm.getComponentDescriptor(Role.class, "hint").getImplementation());
+
+        // Unregistered from the direct parent
+        parent.unregisterComponent(Role.class, "hint");
+        Assert.assertTrue(ecm.getInstance(Role.class, "hint") instanceof RoleImpl);
+
+        // Unregistered from the root
+        root.unregisterComponent(Role.class, "hint");
+        Assert.assertFalse(ecm.hasComponent(Role.class, "hint"));
+        Assert.assertNull(ecm.getComponentDescriptor(Role.class, "hint"));
+
+        // Parent changed
+        EmbeddableComponentManager otherParent = new EmbeddableComponentManager();
+        registerComponent(otherParent, "hint", RoleImpl.class, null);
+        parent.setParent(otherParent);
+        Assert.assertTrue(ecm.hasComponent(Role.class, "hint"));
+    }
+
+    @Test
+    public void getInstanceInParentsWithOverriddenParent() throws Exception
+    {
+        EmbeddableComponentManager root = new EmbeddableComponentManager();
+        registerComponent(root, "hint", RoleImpl.class, null);
+        final EmbeddableComponentManager otherRoot = new EmbeddableComponentManager();
+        registerComponent(otherRoot, "hint", OtherRoleImpl.class, null);
+        EmbeddableComponentManager parent = new EmbeddableComponentManager()
+        {
+            @Override
+            public ComponentManager getParent()
+            {
+                return otherRoot;
+            }
+        };
+        parent.setParent(root);
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+        ecm.setParent(parent);
+
+        // The lookups go through the overridden parent of the intermediate component manager
+        Assert.assertTrue(ecm.getInstance(Role.class, "hint") instanceof OtherRoleImpl);
+        Assert.assertSame(OtherRoleImpl.class, ecm.getComponentDescriptor(Role.class, "hint").getImplementation());
+        otherRoot.unregisterComponent(Role.class, "hint");
+        Assert.assertFalse(ecm.hasComponent(Role.class, "hint"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void hasComponentInParentsWithManyHints() throws Exception
+    {
+        EmbeddableComponentManager parent = new EmbeddableComponentManager();
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+        ecm.setParent(parent);
+
+        for (int i = 0; i < 2000; ++i) {
+            Assert.assertFalse(ecm.hasComponent(Role.class, "hint" + i));
+        }
+
+        // The lookups of missing components are not all remembered
+        Map<Type, Map<String, Object>> lookupCache =
+            (Map<Type, Map<String, Object>>) FieldUtils.readField(ecm, "lookupCache", true);
+        Assert.assertEquals(1000, lookupCache.get(Role.class).size());
+
+        registerComponent(parent, "hint1999", RoleImpl.class, null);
+        Assert.assertTrue(ecm.hasComponent(Role.class, "hint1999"));
+        registerComponent(parent, "hint0", RoleImpl.class, null);
+        Assert.assertTrue(ecm.hasComponent(Role.class, "hint0"));
+    }
+
+    public static class LazyRoleImpl implements Role
+    {
+        @Lazy
+        private Role dependency;
+
+        public Role getDependency()
+        {
+            return this.dependency;
+        }
+    }
+
+    @Test
+    public void getInstanceWithLazyDependency() throws Exception
+    {
+        EmbeddableComponentManager ecm = new EmbeddableComponentManager();
+
+        registerComponent(ecm, "lazy", LazyRoleImpl.class, "dependency");
+
+        // The dependency does not even need to exist yet
+        Role dependency = ((LazyRoleImpl) ecm.getInstance(Role.class, "lazy")).getDependency();
+        Assert.assertFalse(dependency instanceof RoleImpl);
+
+        try {
+            dependency.toString();
+            Assert.fail("Should have failed to lookup the dependency");
+        } catch (RuntimeException expected) {
+            // expected
+        }
+
+        registerComponent(ecm, "dependency", RoleImpl.class, null);
+
+        // Resolved on first call
+        Assert.assertEquals(ecm.getInstance(Role.class, "dependency").toString(), dependency.toString());
+    }
 }
@@ -20,18 +20,27 @@
 package org.xwiki.component.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
 
 import org.jmock.Expectations;
 import org.jmock.Mockery;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.xwiki.component.descriptor.ComponentDescriptor;
 import org.xwiki.component.descriptor.DefaultComponentDescriptor;
 import org.xwiki.component.event.ComponentDescriptorAddedEvent;
 import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
+import org.xwiki.component.event.ComponentDescriptorsAddedEvent;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.observation.EventListener;
 import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
 
 /**
  * Test {@link StackingComponentEventManager}.
@@ -113,4 +122,83 @@ public void flushEvents()
 
         this.eventManager.flushEvents();
     }
+
+    @Test
+    public void notifyComponentsRegistered()
+    {
+        this.eventManager.shouldStack(false);
+
+        final List<ComponentDescriptor<?>> descriptors =
+            Arrays.<ComponentDescriptor<?>>asList(this.descriptor1, this.descriptor2);
+        final ComponentDescriptorAddedEvent addedEvent1 =
+            new ComponentDescriptorAddedEvent(this.descriptor1.getRoleType(), this.descriptor1.getRoleHint());
+        final ComponentDescriptorAddedEvent addedEvent2 =
+            new ComponentDescriptorAddedEvent(this.descriptor2.getRoleType(), this.descriptor2.getRoleHint());
+
+        this.mockery.checking(new Expectations()
+        {
+            {
+                allowing(mockObservationManager).hasListener(with(any(ComponentDescriptorsAddedEvent.class)));
+                will(returnValue(true));
+                oneOf(mockObservationManager).notify(with(new BaseMatcher<ComponentDescriptorsAddedEvent>()
+                {
+                    @Override
+                    public boolean matches(Object item)
+                    {
+                        List<ComponentDescriptorAddedEvent> events = ((ComponentDescriptorsAddedEvent) item).getEvents();
+
+                        return events.equals(Arrays.asList(addedEvent1, addedEvent2));
+                    }
+
+                    @Override
+                    public void describeTo(Description description)
+                    {
+                        description.appendText("the events of the registered descriptors");
+                    }
+                }), with(same(mockComponentManager)), with(equal(descriptors)));
+
+                // Each registration having listeners is also sent on its own
+                allowing(mockObservationManager).hasListener(with(equal(addedEvent1)));
+                will(returnValue(true));
+                allowing(mockObservationManager).hasListener(with(equal(addedEvent2)));
+                will(returnValue(false));
+                oneOf(mockObservationManager).notify(with(equal(addedEvent1)), with(same(mockComponentManager)),
+                    with(same(descriptor1)));
+            }
+        });
+
+        this.eventManager.notifyComponentsRegistered(descriptors, this.mockComponentManager);
+    }
+
+    @Test
+    public void notifyWhenNoListener()
+    {
+        this.eventManager.shouldStack(false);
+
+        final DefaultComponentDescriptor<EventListener> listenerDescriptor =
+            new DefaultComponentDescriptor<EventListener>();
+        listenerDescriptor.setRoleType(EventListener.class);
+        listenerDescriptor.setRoleHint("listener");
+
+        this.mockery.checking(new Expectations()
+        {
+            {
+                allowing(mockObservationManager).hasListener(with(any(Event.class)));
+                will(returnValue(false));
+
+                // The Observation Manager needs to know about Event Listeners
+                exactly(2).of(mockObservationManager).notify(
+                    with(equal(new ComponentDescriptorAddedEvent(EventListener.class, "listener"))),
+                    with(same(mockComponentManager)), with(same(listenerDescriptor)));
+            }
+        });
+
+        this.eventManager.notifyComponentRegistered(this.descriptor1, this.mockComponentManager);
+        this.eventManager.notifyComponentUnregistered(this.descriptor2, this.mockComponentManager);
+        this.eventManager.notifyComponentsRegistered(
+            Arrays.<ComponentDescriptor<?>>asList(this.descriptor1, this.descriptor2), this.mockComponentManager);
+        this.eventManager.notifyComponentRegistered(listenerDescriptor, this.mockComponentManager);
+        this.eventManager.notifyComponentsRegistered(
+            Arrays.<ComponentDescriptor<?>>asList(this.descriptor1, listenerDescriptor), this.mockComponentManager);
+    }
 }
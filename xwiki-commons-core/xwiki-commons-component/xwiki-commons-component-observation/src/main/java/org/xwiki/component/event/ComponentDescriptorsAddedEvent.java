@@ -0,0 +1,90 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.xwiki.observation.event.Event;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Event sent to tell that several Component Descriptors have been registered at once.
+ * <p>
+ * The event also send the following parameters:
+ * </p>
+ * <ul>
+ * <li>source: the {@link org.xwiki.component.manager.ComponentManager} where the components were registered</li>
+ * <li>data: the {@link List} of {@link org.xwiki.component.descriptor.ComponentDescriptor} instances, in the same
+ * order as {@link #getEvents()}</li>
+ * </ul>
+ * <p>
+ * Listeners of {@link ComponentDescriptorAddedEvent} are still notified of each registered component they are
+ * interested in: each of the events returned by {@link #getEvents()} which has matching listeners is sent on its own
+ * right after this event. Listeners of all events receive both.
+ * </p>
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public class ComponentDescriptorsAddedEvent implements Event
+{
+    /**
+     * The events of each registered component.
+     */
+    private final List<ComponentDescriptorAddedEvent> events;
+
+    /**
+     * Watches all components registrations.
+     */
+    public ComponentDescriptorsAddedEvent()
+    {
+        this.events = Collections.emptyList();
+    }
+
+    /**
+     * @param events the events of each registered component
+     */
+    public ComponentDescriptorsAddedEvent(List<ComponentDescriptorAddedEvent> events)
+    {
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    /**
+     * @return the events of each registered component
+     */
+    public List<ComponentDescriptorAddedEvent> getEvents()
+    {
+        return this.events;
+    }
+
+    @Override
+    public boolean matches(Object otherEvent)
+    {
+        return otherEvent instanceof ComponentDescriptorsAddedEvent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.events.toString();
+    }
+}
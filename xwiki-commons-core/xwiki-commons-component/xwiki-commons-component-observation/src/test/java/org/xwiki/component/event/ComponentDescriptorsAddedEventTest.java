@@ -0,0 +1,59 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.component.event;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ComponentDescriptorsAddedEvent}.
+ *
+ * @version $Id$
+ */
+public class ComponentDescriptorsAddedEventTest
+{
+    @Test
+    public void testGetEvents()
+    {
+        List<ComponentDescriptorAddedEvent> events =
+            Arrays.asList(new ComponentDescriptorAddedEvent((Type) String.class, "hint1"),
+                new ComponentDescriptorAddedEvent((Type) Integer.class, "hint2"));
+
+        ComponentDescriptorsAddedEvent event = new ComponentDescriptorsAddedEvent(events);
+        Assert.assertEquals(events, event.getEvents());
+        Assert.assertEquals(events.toString(), event.toString());
+
+        Assert.assertEquals(Collections.emptyList(), new ComponentDescriptorsAddedEvent().getEvents());
+    }
+
+    @Test
+    public void testMatches()
+    {
+        ComponentDescriptorsAddedEvent event = new ComponentDescriptorsAddedEvent();
+        Assert.assertTrue(event.matches(new ComponentDescriptorsAddedEvent(Collections
+            .singletonList(new ComponentDescriptorAddedEvent((Type) String.class, "hint")))));
+        Assert.assertFalse(event.matches(new ComponentDescriptorAddedEvent()));
+    }
+}
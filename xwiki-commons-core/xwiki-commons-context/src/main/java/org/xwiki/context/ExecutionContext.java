@@ -19,16 +19,20 @@
  */
 package org.xwiki.context;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.context.internal.ExecutionContextProperty;
+import org.xwiki.stability.Unstable;
 
 /**
  * Contains all state data related to the current user action. Note that the execution context is independent of the
  * environment and all environment-dependent data are stored in the Container component instead.
+ * <p>
+ * Properties with a {@link ExecutionContextKey registered key} are stored in fixed slots, the other ones in a map.
  *
  * @version $Id$
  * @since 1.5M2
@@ -38,7 +42,17 @@
     /** Logger object. */
     private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionContext.class);
 
+    /** Used when no property with a registered key has been declared yet. */
+    private static final ExecutionContextProperty[] NO_SLOTS = new ExecutionContextProperty[0];
+
+    /**
+     * The properties declared with a {@link ExecutionContextKey registered key}, indexed by slot.
+     */
+    private ExecutionContextProperty[] slots = NO_SLOTS;
+
     /**
+     * The properties declared with a key which is not registered.
+     *
      * @see #getProperty(String)
      */
     private Map<String, ExecutionContextProperty> properties = new HashMap<String, ExecutionContextProperty>();
@@ -49,8 +63,27 @@
      */
     public Object getProperty(String key)
     {
-        ExecutionContextProperty property = this.properties.get(key);
+        return getValue(key, getDeclaredProperty(key));
+    }
+
+    /**
+     * @param key the key under which is stored the property to retrieve
+     * @return the property matching the passed key
+     * @since 7.1M1
+     */
+    @Unstable
+    public Object getProperty(ExecutionContextKey key)
+    {
+        return getValue(key.getName(), getDeclaredProperty(key));
+    }
 
+    /**
+     * @param key the key of the property
+     * @param property the property, null if it's not declared
+     * @return the value of the property
+     */
+    private Object getValue(String key, ExecutionContextProperty property)
+    {
         if (property == null) {
             LOGGER.debug("Getting undefined property {} from execution context.", key);
             return null;
@@ -59,6 +92,39 @@ public Object getProperty(String key)
         return property.getValue();
     }
 
+    /**
+     * @param key the key of the property
+     * @return the property declared with the passed key, null if there is none
+     */
+    private ExecutionContextProperty getDeclaredProperty(String key)
+    {
+        // Without slots every declared property is in the map, whether its key is registered or not
+        if (this.slots.length == 0) {
+            return this.properties.get(key);
+        }
+
+        ExecutionContextKey registeredKey = ExecutionContextKey.get(key);
+
+        return registeredKey != null ? getDeclaredProperty(registeredKey) : this.properties.get(key);
+    }
+
+    /**
+     * @param key the key of the property
+     * @return the property declared with the passed key, null if there is none
+     */
+    private ExecutionContextProperty getDeclaredProperty(ExecutionContextKey key)
+    {
+        int index = key.getIndex();
+        ExecutionContextProperty property = index < this.slots.length ? this.slots[index] : null;
+
+        // The property might have been declared before its key was registered
+        if (property == null && !this.properties.isEmpty()) {
+            property = this.properties.get(key.getName());
+        }
+
+        return property;
+    }
+
     /**
      * @param key the key of the property.
      * @return a builder object for performing the declaration. The property will not be declared until the declare
@@ -75,7 +141,18 @@ public DeclarationBuilder newProperty(String key)
      */
     public boolean hasProperty(String key)
     {
-        return this.properties.containsKey(key);
+        return getDeclaredProperty(key) != null;
+    }
+
+    /**
+     * @param key the key under which is stored the property to retrieve
+     * @return {@code true} if there is a property declared for the given key.
+     * @since 7.1M1
+     */
+    @Unstable
+    public boolean hasProperty(ExecutionContextKey key)
+    {
+        return getDeclaredProperty(key) != null;
     }
 
     /**
@@ -85,6 +162,11 @@ public Map<String, Object> getProperties()
     {
         Map<String, Object> map = new HashMap<String, Object>();
 
+        for (ExecutionContextProperty property : this.slots) {
+            if (property != null) {
+                map.put(property.getKey(), property.getValue());
+            }
+        }
         for (Map.Entry<String, ExecutionContextProperty> entry : this.properties.entrySet()) {
             map.put(entry.getKey(), entry.getValue().getValue());
         }
@@ -97,29 +179,70 @@ public Map<String, Object> getProperties()
      */
     public void removeProperty(String key)
     {
-        ExecutionContextProperty property = this.properties.get(key);
+        ExecutionContextProperty property = getDeclaredProperty(key);
 
         if (property != null && property.isFinal()) {
             throw new PropertyIsFinalException(key);
         }
 
+        if (this.slots.length > 0) {
+            ExecutionContextKey registeredKey = ExecutionContextKey.get(key);
+            if (registeredKey != null && registeredKey.getIndex() < this.slots.length) {
+                this.slots[registeredKey.getIndex()] = null;
+            }
+        }
         this.properties.remove(key);
     }
 
+    /**
+     * @param key remove the property whose key matches the passed key
+     * @since 7.1M1
+     */
+    @Unstable
+    public void removeProperty(ExecutionContextKey key)
+    {
+        removeProperty(key.getName());
+    }
+
     /**
      * @param key the key under which to save the passed property value
      * @param value the value to set
      */
     public void setProperty(String key, Object value)
     {
-        ExecutionContextProperty property = this.properties.get(key);
+        setValue(key, getDeclaredProperty(key), value);
+    }
+
+    /**
+     * @param key the key under which to save the passed property value
+     * @param value the value to set
+     * @since 7.1M1
+     */
+    @Unstable
+    public void setProperty(ExecutionContextKey key, Object value)
+    {
+        setValue(key.getName(), getDeclaredProperty(key), value);
+    }
+
+    /**
+     * @param key the key under which to save the passed property value
+     * @param declaredProperty the property, null if it's not declared yet
+     * @param value the value to set
+     */
+    private void setValue(String key, ExecutionContextProperty declaredProperty, Object value)
+    {
+        ExecutionContextProperty property = declaredProperty;
 
         if (property == null) {
             LOGGER.debug("Implicit declaration of property {}.", key);
-            newProperty(key).declare();
-            property = this.properties.get(key);
+            property = new ExecutionContextProperty(key, null, false, false, false, false, null);
+            putDeclaredProperty(property);
         } else if (property.isFinal()) {
             throw new PropertyIsFinalException(key);
+        } else if (property.isShared()) {
+            // Copy on write
+            property = property.copy();
+            putDeclaredProperty(property);
         }
 
         property.setValue(value);
@@ -144,11 +267,33 @@ public void setProperties(Map<String, Object> properties)
      */
     private void declareProperty(ExecutionContextProperty property)
     {
-        if (this.properties.containsKey(property.getKey())) {
+        if (getDeclaredProperty(property.getKey()) != null) {
             throw new PropertyAlreadyExistsException(property.getKey());
         }
 
-        this.properties.put(property.getKey(), property);
+        putDeclaredProperty(property);
+    }
+
+    /**
+     * @param property the property to store, in its slot if its key is registered
+     */
+    private void putDeclaredProperty(ExecutionContextProperty property)
+    {
+        ExecutionContextKey registeredKey = ExecutionContextKey.get(property.getKey());
+
+        if (registeredKey != null) {
+            int index = registeredKey.getIndex();
+            if (index >= this.slots.length) {
+                this.slots = Arrays.copyOf(this.slots, ExecutionContextKey.size());
+            }
+            this.slots[index] = property;
+            if (!this.properties.isEmpty()) {
+                // The property might have been declared before its key was registered
+                this.properties.remove(property.getKey());
+            }
+        } else {
+            this.properties.put(property.getKey(), property);
+        }
     }
 
     /**
@@ -169,17 +314,62 @@ private void declareProperty(ExecutionContextProperty property)
      */
     public void inheritFrom(ExecutionContext executionContext)
     {
+        for (ExecutionContextProperty property : executionContext.slots) {
+            if (property != null) {
+                inheritProperty(property);
+            }
+        }
         for (ExecutionContextProperty property : executionContext.properties.values()) {
-            if (property.isInherited()) {
-                if (this.properties.containsKey(property.getKey())) {
-                    checkIfInheritedPropertyMayBeIgnored(property);
-                } else {
-                    declareProperty(property.clone());
-                }
+            inheritProperty(property);
+        }
+    }
+
+    /**
+     * @param property the property to inherit if it's marked for inheritance
+     * @throws IllegalStateException if the property cannot be inherited
+     */
+    private void inheritProperty(ExecutionContextProperty property)
+    {
+        if (property.isInherited()) {
+            if (getDeclaredProperty(property.getKey()) != null) {
+                checkIfInheritedPropertyMayBeIgnored(property);
+            } else {
+                putDeclaredProperty(property.share());
             }
         }
     }
 
+    /**
+     * Reuse the properties marked as shareable of the given execution context, unless they are already declared in
+     * this context. The values are shared copy-on-write, or cloned if the property asks for it (see
+     * {@link DeclarationBuilder#cloneValue()}).
+     *
+     * @param executionContext the execution context to share properties with
+     * @since 7.1M1
+     */
+    @Unstable
+    public void shareFrom(ExecutionContext executionContext)
+    {
+        for (ExecutionContextProperty property : executionContext.slots) {
+            if (property != null) {
+                shareProperty(property);
+            }
+        }
+        for (ExecutionContextProperty property : executionContext.properties.values()) {
+            shareProperty(property);
+        }
+    }
+
+    /**
+     * @param property the property to share if it's marked as shareable
+     */
+    private void shareProperty(ExecutionContextProperty property)
+    {
+        if (property.isShareable() && getDeclaredProperty(property.getKey()) == null) {
+            putDeclaredProperty(property.share());
+        }
+    }
+
     /**
      * @param property Property to check.
      * @throws IllegalStateException if the property may not be ignored.
@@ -187,7 +377,7 @@ public void inheritFrom(ExecutionContext executionContext)
     private void checkIfInheritedPropertyMayBeIgnored(ExecutionContextProperty property)
     {
         if (property.isFinal()) {
-            ExecutionContextProperty shadowingProperty = this.properties.get(property.getKey());
+            ExecutionContextProperty shadowingProperty = getDeclaredProperty(property.getKey());
             if (!(shadowingProperty == property || shadowingProperty.isClonedFrom(property))) {
                 throw new IllegalStateException(
                     String.format("Execution context cannot be inherited because it already contains"
@@ -226,6 +416,9 @@ private void checkIfInheritedPropertyMayBeIgnored(ExecutionContextProperty prope
         /** @see ExecutionContextProperty#type */
         private Class<?> type;
 
+        /** @see ExecutionContextProperty#shareable */
+        private boolean shareable;
+
         /**
          * Start building a property for the given key.
          *
@@ -241,9 +434,12 @@ private DeclarationBuilder(String key)
          */
         public void declare()
         {
-            ExecutionContext.this.declareProperty(
+            ExecutionContextProperty property =
                 new ExecutionContextProperty(this.key, this.value, this.cloneValue, this.isFinal, this.inherited,
-                    this.nonNull, this.type));
+                    this.nonNull, this.type);
+            property.setShareable(this.shareable);
+
+            ExecutionContext.this.declareProperty(property);
         }
 
         /**
@@ -311,5 +507,20 @@ public DeclarationBuilder nonNull()
             this.nonNull = true;
             return this;
         }
+
+        /**
+         * Indicate that the property can be reused by the clones of the execution context instead of being recreated
+         * by the {@link ExecutionContextInitializer}s: its value is immutable (it is shared copy-on-write) or it is
+         * cloned (see {@link #cloneValue()}).
+         *
+         * @return this declaration builder.
+         * @since 7.1M1
+         */
+        @Unstable
+        public DeclarationBuilder shareable()
+        {
+            this.shareable = true;
+            return this;
+        }
     }
 }
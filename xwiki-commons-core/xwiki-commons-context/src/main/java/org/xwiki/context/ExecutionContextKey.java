@@ -0,0 +1,133 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.context;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A well-known {@link ExecutionContext} property key.
+ * <p>
+ * Each registered key gets a fixed slot in all the execution contexts so that getting and setting the corresponding
+ * property does not require any hash lookup when done with the key instead of its name. The properties of the keys
+ * which are not registered are still stored in a map. Registering a key is optional: a property can be accessed
+ * indifferently with its name or its registered key.
+ * <p>
+ * Registered keys are never released so only keys used for the whole life of the application should be registered,
+ * typically in a static field:
+ *
+ * <pre>
+ * private static final ExecutionContextKey KEY = ExecutionContextKey.register(&quot;mymodule.mykey&quot;);
+ * </pre>
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public final class ExecutionContextKey
+{
+    /**
+     * The registered keys indexed by name.
+     */
+    private static final ConcurrentMap<String, ExecutionContextKey> KEYS =
+        new ConcurrentHashMap<String, ExecutionContextKey>();
+
+    /**
+     * @see #getName()
+     */
+    private final String name;
+
+    /**
+     * @see #getIndex()
+     */
+    private final int index;
+
+    /**
+     * @param name the name of the property
+     * @param index the slot of the property in the execution contexts
+     */
+    private ExecutionContextKey(String name, int index)
+    {
+        this.name = name;
+        this.index = index;
+    }
+
+    /**
+     * @param name the name of the property
+     * @return the key registered for the passed name, registered if it's not already
+     */
+    public static ExecutionContextKey register(String name)
+    {
+        ExecutionContextKey key = KEYS.get(name);
+
+        if (key == null) {
+            synchronized (KEYS) {
+                key = KEYS.get(name);
+                if (key == null) {
+                    key = new ExecutionContextKey(name, KEYS.size());
+                    KEYS.put(name, key);
+                }
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * @param name the name of the property
+     * @return the key registered for the passed name or null if there is none
+     */
+    static ExecutionContextKey get(String name)
+    {
+        return KEYS.get(name);
+    }
+
+    /**
+     * @return the number of registered keys
+     */
+    static int size()
+    {
+        return KEYS.size();
+    }
+
+    /**
+     * @return the name of the property
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @return the slot of the property in the execution contexts
+     */
+    int getIndex()
+    {
+        return this.index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.name;
+    }
+}
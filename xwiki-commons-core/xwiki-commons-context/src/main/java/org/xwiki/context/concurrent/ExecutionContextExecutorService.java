@@ -0,0 +1,184 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.context.concurrent;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.stability.Unstable;
+
+/**
+ * {@link ExecutorService} wrapper which executes each task in its own initialized {@link ExecutionContext}.
+ * <p>
+ * The properties of the submitter's execution context which are inherited (see
+ * {@link ExecutionContext.DeclarationBuilder#inherited()}) or shareable (see
+ * {@link ExecutionContext.DeclarationBuilder#shareable()}) are captured when the task is submitted and are available
+ * in the execution context of the task. They are shared copy-on-write, so capturing them does not copy their values
+ * (except for the properties asking for their value to be cloned).
+ * <p>
+ * The execution context components are looked up once, when the wrapper is created.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public class ExecutionContextExecutorService extends AbstractExecutorService
+{
+    /**
+     * The executor running the tasks.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Used to capture the submitter's execution context and to clean the tasks execution context.
+     */
+    private final Execution execution;
+
+    /**
+     * Used to initialize the tasks execution context.
+     */
+    private final ExecutionContextManager executionContextManager;
+
+    /**
+     * A task executed in its own execution context.
+     */
+    private final class ExecutionContextTask implements Runnable
+    {
+        /**
+         * The task to execute.
+         */
+        private final Runnable command;
+
+        /**
+         * The execution context of the task, containing the properties captured from the submitter's context.
+         */
+        private final ExecutionContext context;
+
+        /**
+         * @param command the task to execute
+         * @param context the execution context of the task
+         */
+        private ExecutionContextTask(Runnable command, ExecutionContext context)
+        {
+            this.command = command;
+            this.context = context;
+        }
+
+        @Override
+        public void run()
+        {
+            // The task might be executed in a thread which already has an execution context (caller runs policy,
+            // etc.)
+            boolean nested = execution.getContext() != null;
+            if (nested) {
+                execution.pushContext(this.context);
+            }
+
+            try {
+                try {
+                    executionContextManager.initialize(this.context);
+                } catch (ExecutionContextException e) {
+                    throw new RuntimeException("Failed to initialize task [" + this.command + "] execution context",
+                        e);
+                }
+
+                this.command.run();
+            } finally {
+                if (nested) {
+                    execution.popContext();
+                } else {
+                    execution.removeContext();
+                }
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.command.toString();
+        }
+    }
+
+    /**
+     * @param executor the executor running the tasks
+     * @param componentManager used to access the components needed to initialize and dispose the tasks
+     *            {@link ExecutionContext}
+     * @throws ComponentLookupException when failing to lookup the execution context components
+     */
+    public ExecutionContextExecutorService(ExecutorService executor, ComponentManager componentManager)
+        throws ComponentLookupException
+    {
+        this.executor = executor;
+        this.execution = componentManager.getInstance(Execution.class);
+        this.executionContextManager = componentManager.getInstance(ExecutionContextManager.class);
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        ExecutionContext context = new ExecutionContext();
+
+        ExecutionContext submitterContext = this.execution.getContext();
+        if (submitterContext != null) {
+            context.inheritFrom(submitterContext);
+            context.shareFrom(submitterContext);
+        }
+
+        this.executor.execute(new ExecutionContextTask(command, context));
+    }
+
+    @Override
+    public void shutdown()
+    {
+        this.executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+        return this.executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+        return this.executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return this.executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+}
@@ -19,7 +19,7 @@
  */
 package org.xwiki.context.internal;
 
-import java.util.Stack;
+import java.util.EmptyStackException;
 
 import javax.inject.Singleton;
 
@@ -31,6 +31,10 @@
  * Holds the Execution Context object. Note that we require this Execution component since we want to be able to pass
  * the Execution Context to singleton components. Thus this holder is a singleton itself and the Execution Context is
  * saved as a ThreadLocal variable.
+ * <p>
+ * The context levels of a thread are stored as an immutable linked list so that pushing and popping a level does not
+ * require any synchronization or array copy, and the thread local is removed as soon as the last level is popped so
+ * that short lived threads and pooled threads don't keep any state around.
  *
  * @version $Id$
  * @since 1.5M2
@@ -39,53 +43,81 @@
 @Singleton
 public class DefaultExecution implements Execution
 {
+    /**
+     * A context level.
+     */
+    private static final class ContextLevel
+    {
+        /**
+         * The context of this level.
+         */
+        private final ExecutionContext context;
+
+        /**
+         * The previous level, null if this is the first one.
+         */
+        private final ContextLevel previous;
+
+        /**
+         * @param context the context of this level
+         * @param previous the previous level, null if this is the first one
+         */
+        private ContextLevel(ExecutionContext context, ContextLevel previous)
+        {
+            this.context = context;
+            this.previous = previous;
+        }
+    }
+
     /**
      * Isolate the execution context by thread.
      */
-    private ThreadLocal<Stack<ExecutionContext>> context = new ThreadLocal<Stack<ExecutionContext>>();
+    private ThreadLocal<ContextLevel> context = new ThreadLocal<ContextLevel>();
 
     @Override
     public void pushContext(ExecutionContext context)
     {
-        Stack<ExecutionContext> stack = this.context.get();
-        if (stack == null) {
-            stack = new Stack<ExecutionContext>();
-            this.context.set(stack);
-        } else if (!stack.isEmpty()) {
-            context.inheritFrom(stack.peek());
+        ContextLevel level = this.context.get();
+        if (level != null && level.context != null) {
+            context.inheritFrom(level.context);
         }
 
-        stack.push(context);
+        this.context.set(new ContextLevel(context, level));
     }
 
     @Override
     public void popContext()
     {
-        this.context.get().pop();
+        ContextLevel level = this.context.get();
+        if (level == null) {
+            throw new EmptyStackException();
+        }
+
+        if (level.previous != null) {
+            this.context.set(level.previous);
+        } else {
+            this.context.remove();
+        }
     }
 
     @Override
     public ExecutionContext getContext()
     {
-        Stack<ExecutionContext> stack = this.context.get();
-        return stack == null || stack.isEmpty() ? null : stack.peek();
+        ContextLevel level = this.context.get();
+        return level == null ? null : level.context;
     }
 
     @Override
     public void setContext(ExecutionContext context)
     {
-        Stack<ExecutionContext> stack = this.context.get();
-        if (stack == null) {
-            stack = new Stack<ExecutionContext>();
-            this.context.set(stack);
-            stack.push(context);
-        } else if (stack.isEmpty()) {
-            stack.push(context);
+        ContextLevel level = this.context.get();
+        if (level == null) {
+            this.context.set(new ContextLevel(context, null));
         } else {
-            if (context != null) {
-                context.inheritFrom(stack.peek());
+            if (context != null && level.context != null) {
+                context.inheritFrom(level.context);
             }
-            stack.set(stack.size() - 1, context);
+            this.context.set(new ContextLevel(context, level.previous));
         }
     }
 
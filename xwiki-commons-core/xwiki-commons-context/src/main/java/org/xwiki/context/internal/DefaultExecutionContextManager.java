@@ -80,7 +80,8 @@ public ExecutionContext clone(ExecutionContext context) throws ExecutionContextE
         // objects put in the Execution Context and they can be of any type, including Maps which are cloneable
         // but only do shallow clones.
         // Thus instead we recreate the Execution Context from scratch and reinitialize it by calling all the
-        // Execution Context Initializers on it.
+        // Execution Context Initializers on it. Only the properties declared as shareable are reused, so that the
+        // initializers don't have to create them again.
         try {
             this.execution.pushContext(clonedContext);
         } catch (RuntimeException e) {
@@ -89,6 +90,7 @@ public ExecutionContext clone(ExecutionContext context) throws ExecutionContextE
             throw new ExecutionContextException("Failed to push cloned execution context.", e);
         }
         try {
+            clonedContext.shareFrom(context);
             runInitializers(clonedContext);
         } finally {
             // #initialize set the context but we just want to clone it so we need to restore it
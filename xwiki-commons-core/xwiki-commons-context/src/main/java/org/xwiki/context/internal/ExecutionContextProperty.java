@@ -61,6 +61,12 @@ public class ExecutionContextProperty implements Cloneable
      */
     private final Class<?> type;
 
+    /** @see #isShareable() */
+    private boolean shareable;
+
+    /** @see #isShared() */
+    private volatile boolean shared;
+
     /** @see #isClonedFrom(ExecutionContextProperty) */
     private WeakReference<ExecutionContextProperty> clonedFrom;
 
@@ -86,6 +92,17 @@ public ExecutionContextProperty(String key, Object initialValue, boolean cloneVa
         checkValue(initialValue);
     }
 
+    /**
+     * @param property the property to copy the metadata from
+     * @param value the value of the new property
+     */
+    private ExecutionContextProperty(ExecutionContextProperty property, Object value)
+    {
+        this(property.getKey(), value, property.cloneValue, property.isFinal(), property.isInherited(),
+            property.nonNull, property.getType());
+        this.shareable = property.isShareable();
+    }
+
     /**
      * Check that the value is compatible with the configure constraints.
      *
@@ -140,6 +157,34 @@ public boolean isInherited()
         return this.inherited;
     }
 
+    /**
+     * @return whether this property can be reused by the clones of the execution context or not
+     * @since 7.1M1
+     */
+    public boolean isShareable()
+    {
+        return this.shareable;
+    }
+
+    /**
+     * @param shareable Indicate that the property can be reused by the clones of the execution context.
+     * @since 7.1M1
+     */
+    public void setShareable(boolean shareable)
+    {
+        this.shareable = shareable;
+    }
+
+    /**
+     * @return true if this instance is referenced by several execution contexts, in which case it must be copied
+     *         before being modified
+     * @since 7.1M1
+     */
+    public boolean isShared()
+    {
+        return this.shared;
+    }
+
     /**
      * @return the type of the value
      */
@@ -172,8 +217,7 @@ public ExecutionContextProperty clone()
             clonedValue = getValue();
         }
 
-        clone = new ExecutionContextProperty(getKey(), clonedValue, this.cloneValue, isFinal(), isInherited(),
-            this.nonNull, getType());
+        clone = new ExecutionContextProperty(this, clonedValue);
 
         if (isFinal() && isInherited()) {
             // We make this a weak reference, because we are only interested in it as long
@@ -184,6 +228,37 @@ public ExecutionContextProperty clone()
         return clone;
     }
 
+    /**
+     * Get the property to store in another execution context. When the value has to be cloned the property is cloned,
+     * otherwise the same instance is returned and it's marked as shared so that it's copied before being modified (see
+     * {@link #copy()}).
+     *
+     * @return the property to store in another execution context
+     * @since 7.1M1
+     */
+    public ExecutionContextProperty share()
+    {
+        if (this.cloneValue) {
+            return clone();
+        }
+
+        this.shared = true;
+
+        return this;
+    }
+
+    /**
+     * @return a copy of this property with the same value, which is not shared
+     * @since 7.1M1
+     */
+    public ExecutionContextProperty copy()
+    {
+        ExecutionContextProperty copy = new ExecutionContextProperty(this, getValue());
+        copy.clonedFrom = this.clonedFrom;
+
+        return copy;
+    }
+
     /**
      * Check that this instance was cloned from the specified instance.
      *
@@ -21,10 +21,14 @@
 
 import static org.hamcrest.Matchers.hasEntry;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -109,4 +113,143 @@ public void removeUnexistingProperty()
         ExecutionContext context = new ExecutionContext();
         context.removeProperty("doesnotexist");
     }
+
+    @Test
+    public void registeredKey()
+    {
+        ExecutionContextKey key = ExecutionContextKey.register("registeredKey");
+        assertTrue(key == ExecutionContextKey.register("registeredKey"));
+        assertEquals("registeredKey", key.getName());
+
+        ExecutionContext context = new ExecutionContext();
+        assertFalse(context.hasProperty(key));
+        assertNull(context.getProperty(key));
+
+        context.setProperty(key, "value");
+        assertTrue(context.hasProperty(key));
+        assertEquals("value", context.getProperty(key));
+        assertEquals("value", context.getProperty("registeredKey"));
+        assertThat(context.getProperties(), hasEntry("registeredKey", (Object) "value"));
+
+        context.setProperty("registeredKey", "value2");
+        assertEquals("value2", context.getProperty(key));
+
+        context.removeProperty(key);
+        assertFalse(context.hasProperty("registeredKey"));
+        assertNull(context.getProperty(key));
+    }
+
+    @Test
+    public void inheritanceWithRegisteredKey()
+    {
+        ExecutionContextKey key = ExecutionContextKey.register("inheritedRegisteredKey");
+
+        ExecutionContext parent = new ExecutionContext();
+        parent.newProperty(key.getName()).inherited().initial("test").makeFinal().declare();
+
+        ExecutionContext context = new ExecutionContext();
+        context.inheritFrom(parent);
+        assertEquals("test", context.getProperty(key));
+
+        // Inheriting again the same final property is allowed
+        context.inheritFrom(parent);
+    }
+
+    @Test
+    public void keyRegisteredAfterDeclaration()
+    {
+        ExecutionContext context = new ExecutionContext();
+        context.setProperty("lateRegisteredKey", "value");
+
+        ExecutionContextKey key = ExecutionContextKey.register("lateRegisteredKey");
+        assertEquals("value", context.getProperty(key));
+        assertEquals("value", context.getProperty("lateRegisteredKey"));
+
+        context.setProperty(key, "value2");
+        assertEquals("value2", context.getProperty("lateRegisteredKey"));
+        assertEquals(1, context.getProperties().size());
+
+        context.removeProperty("lateRegisteredKey");
+        assertFalse(context.hasProperty(key));
+    }
+
+    @Test
+    public void shareFrom()
+    {
+        ArrayList<String> list = new ArrayList<String>();
+        Object value = new Object();
+
+        ExecutionContext source = new ExecutionContext();
+        source.newProperty("shared").shareable().initial("value").declare();
+        source.newProperty("cloned").shareable().cloneValue().initial(list).declare();
+        source.newProperty("final").shareable().makeFinal().initial(value).declare();
+        source.newProperty("notshared").initial("value").declare();
+        source.newProperty("declared").shareable().initial("value").declare();
+
+        ExecutionContext context = new ExecutionContext();
+        context.newProperty("declared").initial("other").declare();
+        context.shareFrom(source);
+
+        assertEquals("value", context.getProperty("shared"));
+        assertEquals(list, context.getProperty("cloned"));
+        assertNotSame(list, context.getProperty("cloned"));
+        assertSame(value, context.getProperty("final"));
+        assertFalse(context.hasProperty("notshared"));
+        assertEquals("other", context.getProperty("declared"));
+
+        // Copy on write
+        context.setProperty("shared", "modified");
+        assertEquals("modified", context.getProperty("shared"));
+        assertEquals("value", source.getProperty("shared"));
+
+        ExecutionContext otherContext = new ExecutionContext();
+        otherContext.shareFrom(source);
+        source.setProperty("shared", "modified in source");
+        assertEquals("value", otherContext.getProperty("shared"));
+        assertEquals("modified in source", source.getProperty("shared"));
+    }
+
+    @Test
+    public void modifyInheritedProperty()
+    {
+        ExecutionContext parent = new ExecutionContext();
+        parent.newProperty("inherited").inherited().initial("parent").declare();
+
+        ExecutionContext context = new ExecutionContext();
+        context.inheritFrom(parent);
+
+        context.setProperty("inherited", "child");
+        assertEquals("parent", parent.getProperty("inherited"));
+        assertEquals("child", context.getProperty("inherited"));
+    }
+
+    @Test
+    public void inheritFromSharesProperties()
+    {
+        ArrayList<String> list = new ArrayList<String>();
+
+        ExecutionContext parent = new ExecutionContext();
+        parent.newProperty("inherited").inherited().initial("parent").declare();
+        parent.newProperty("cloned").inherited().cloneValue().initial(list).declare();
+        parent.newProperty("final").inherited().makeFinal().initial("final").declare();
+
+        ExecutionContext context = new ExecutionContext();
+        context.inheritFrom(parent);
+        assertNotSame(list, context.getProperty("cloned"));
+
+        // The inherited properties are shared copy-on-write with the parent, which does not impact its children
+        parent.setProperty("inherited", "modified in parent");
+        assertEquals("modified in parent", parent.getProperty("inherited"));
+        assertEquals("parent", context.getProperty("inherited"));
+
+        ExecutionContext otherContext = new ExecutionContext();
+        otherContext.inheritFrom(parent);
+        parent.setProperty("inherited", "modified again in parent");
+        assertEquals("modified in parent", otherContext.getProperty("inherited"));
+        assertEquals("parent", context.getProperty("inherited"));
+
+        // The final properties are shared so they can be inherited again
+        context.inheritFrom(parent);
+        assertEquals("final", context.getProperty("final"));
+    }
 }
@@ -0,0 +1,222 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.context.concurrent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextInitializer;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.context.internal.DefaultExecution;
+import org.xwiki.context.internal.DefaultExecutionContextManager;
+
+/**
+ * Validate {@link ExecutionContextExecutorService}.
+ *
+ * @version $Id$
+ */
+public class ExecutionContextExecutorServiceTest
+{
+    /**
+     * Run the tasks in the calling thread.
+     */
+    private static class CallerRunsExecutorService extends AbstractExecutorService
+    {
+        private boolean shutdown;
+
+        @Override
+        public void execute(Runnable command)
+        {
+            command.run();
+        }
+
+        @Override
+        public void shutdown()
+        {
+            this.shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow()
+        {
+            shutdown();
+
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown()
+        {
+            return this.shutdown;
+        }
+
+        @Override
+        public boolean isTerminated()
+        {
+            return this.shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit)
+        {
+            return this.shutdown;
+        }
+    }
+
+    private Execution execution;
+
+    private ComponentManager componentManager;
+
+    private ExecutorService wrappedExecutor;
+
+    private ExecutionContextExecutorService executor;
+
+    @Before
+    public void before() throws Exception
+    {
+        this.execution = new DefaultExecution();
+
+        DefaultExecutionContextManager executionContextManager = new DefaultExecutionContextManager(this.execution);
+        executionContextManager.addExecutionContextInitializer(new ExecutionContextInitializer()
+        {
+            @Override
+            public void initialize(ExecutionContext context) throws ExecutionContextException
+            {
+                context.setProperty("initialized", true);
+            }
+        });
+
+        this.componentManager = Mockito.mock(ComponentManager.class);
+        Mockito.when(this.componentManager.getInstance(Execution.class)).thenReturn(this.execution);
+        Mockito.when(this.componentManager.getInstance(ExecutionContextManager.class)).thenReturn(
+            executionContextManager);
+
+        this.wrappedExecutor = Executors.newSingleThreadExecutor();
+        this.executor = new ExecutionContextExecutorService(this.wrappedExecutor, this.componentManager);
+    }
+
+    @After
+    public void after() throws InterruptedException
+    {
+        this.execution.removeContext();
+
+        this.executor.shutdown();
+        Assert.assertTrue(this.executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertTrue(this.executor.isShutdown());
+        Assert.assertTrue(this.executor.isTerminated());
+    }
+
+    @Test
+    public void propagateContext() throws Exception
+    {
+        ExecutionContext context = new ExecutionContext();
+        context.newProperty("inherited").inherited().initial("inherited value").declare();
+        context.newProperty("shareable").shareable().initial("shareable value").declare();
+        context.newProperty("local").initial("local value").declare();
+        this.execution.setContext(context);
+
+        ExecutionContext taskContext = this.executor.submit(new Callable<ExecutionContext>()
+        {
+            @Override
+            public ExecutionContext call() throws Exception
+            {
+                return execution.getContext();
+            }
+        }).get(10, TimeUnit.SECONDS);
+
+        Assert.assertNotSame(context, taskContext);
+        Assert.assertEquals(true, taskContext.getProperty("initialized"));
+        Assert.assertEquals("inherited value", taskContext.getProperty("inherited"));
+        Assert.assertEquals("shareable value", taskContext.getProperty("shareable"));
+        Assert.assertFalse(taskContext.hasProperty("local"));
+
+        // Modifying the task context does not impact the submitter context
+        taskContext.setProperty("shareable", "modified value");
+        Assert.assertEquals("shareable value", context.getProperty("shareable"));
+    }
+
+    @Test
+    public void cleanContext() throws Exception
+    {
+        this.executor.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Assert.assertNotNull(execution.getContext());
+            }
+        }).get(10, TimeUnit.SECONDS);
+
+        // The context of the pooled thread has been removed
+        Future<ExecutionContext> future = this.wrappedExecutor.submit(new Callable<ExecutionContext>()
+        {
+            @Override
+            public ExecutionContext call() throws Exception
+            {
+                return execution.getContext();
+            }
+        });
+        Assert.assertNull(future.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void executeInThreadWithContext() throws Exception
+    {
+        ExecutionContextExecutorService callerRunsExecutor =
+            new ExecutionContextExecutorService(new CallerRunsExecutorService(), this.componentManager);
+
+        ExecutionContext context = new ExecutionContext();
+        context.newProperty("inherited").inherited().makeFinal().initial("inherited value").declare();
+        this.execution.setContext(context);
+
+        final ExecutionContext[] taskContext = new ExecutionContext[1];
+        callerRunsExecutor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                taskContext[0] = execution.getContext();
+            }
+        });
+
+        Assert.assertNotSame(context, taskContext[0]);
+        Assert.assertEquals("inherited value", taskContext[0].getProperty("inherited"));
+        Assert.assertEquals(true, taskContext[0].getProperty("initialized"));
+
+        // The calling thread context is restored
+        Assert.assertSame(context, this.execution.getContext());
+        Assert.assertFalse(context.hasProperty("initialized"));
+    }
+}
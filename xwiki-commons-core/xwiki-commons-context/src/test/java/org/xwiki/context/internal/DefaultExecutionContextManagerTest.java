@@ -72,4 +72,37 @@ public void initialize(ExecutionContext context) throws ExecutionContextExceptio
         Assert.assertSame(xwikicontext, clonedContext.getProperty("property1"));
         Assert.assertNotSame(xwikicontext, clonedContext.getProperty("property2"));
     }
+
+    /**
+     * Verify the shareable properties are reused when cloning a context which is not the current one.
+     */
+    @Test
+    public void cloneWithShareableProperties() throws Exception
+    {
+        Execution execution = new DefaultExecution();
+        execution.setContext(new ExecutionContext());
+
+        ExecutionContext context = new ExecutionContext();
+        final Object sharedValue = new Object();
+        context.newProperty("shared").initial(sharedValue).shareable().declare();
+        context.newProperty("notshared").initial(sharedValue).declare();
+
+        DefaultExecutionContextManager contextManager = new DefaultExecutionContextManager(execution);
+        contextManager.addExecutionContextInitializer(new ExecutionContextInitializer()
+        {
+            @Override
+            public void initialize(ExecutionContext context) throws ExecutionContextException
+            {
+                // Only create the (expensive) value when it's not already there
+                if (!context.hasProperty("shared")) {
+                    context.newProperty("shared").initial(new Object()).shareable().declare();
+                }
+            }
+        });
+
+        ExecutionContext clonedContext = contextManager.clone(context);
+
+        Assert.assertSame(sharedValue, clonedContext.getProperty("shared"));
+        Assert.assertFalse(clonedContext.hasProperty("notshared"));
+    }
 }
@@ -45,19 +45,25 @@ public class DefaultJobProgressManager implements JobProgressManager
     @Override
     public void pushLevelProgress(int steps, Object source)
     {
-        this.observationManager.notify(new PushLevelProgressEvent(steps), source);
+        if (this.observationManager.hasListener(PushLevelProgressEvent.class)) {
+            this.observationManager.notify(new PushLevelProgressEvent(steps), source);
+        }
     }
 
     @Override
     public void stepPropress(Object source)
     {
-        this.observationManager.notify(new StepProgressEvent(), source);
+        if (this.observationManager.hasListener(StepProgressEvent.class)) {
+            this.observationManager.notify(new StepProgressEvent(), source);
+        }
     }
 
     @Override
     public void popLevelProgress(Object source)
     {
-        this.observationManager.notify(new PopLevelProgressEvent(), source);
+        if (this.observationManager.hasListener(PopLevelProgressEvent.class)) {
+            this.observationManager.notify(new PopLevelProgressEvent(), source);
+        }
     }
 
 }
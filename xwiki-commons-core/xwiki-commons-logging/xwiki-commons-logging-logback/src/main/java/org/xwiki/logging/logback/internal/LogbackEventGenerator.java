@@ -84,6 +84,11 @@ public class LogbackEventGenerator extends AppenderBase<ILoggingEvent> implement
      */
     private LogbackUtils utils = new LogbackUtils();
 
+    /**
+     * @see #getObservationManager()
+     */
+    private volatile ObservationManager observationManager;
+
     @Override
     public String getName()
     {
@@ -127,12 +132,32 @@ public void onEvent(Event event, Object source, Object data)
      */
     private ObservationManager getObservationManager() throws ComponentLookupException
     {
-        return this.componentManager.getInstance(ObservationManager.class);
+        // Can't be injected since it would be initialized while initializing the ObservationManager (see the class
+        // documentation above)
+        if (this.observationManager == null) {
+            this.observationManager = this.componentManager.getInstance(ObservationManager.class);
+        }
+
+        return this.observationManager;
     }
 
     @Override
     protected void append(ILoggingEvent event)
     {
+        ObservationManager currentObservationManager;
+        try {
+            currentObservationManager = getObservationManager();
+        } catch (ComponentLookupException e) {
+            this.logger.error("Can't find any implementation of [{}]", ObservationManager.class.getName(), e);
+
+            return;
+        }
+
+        // Don't create the event if nobody listens to it (logs with markers can produce more specific events)
+        if (event.getMarker() == null && !currentObservationManager.hasListener(LogEvent.class)) {
+            return;
+        }
+
         Throwable throwable = null;
         IThrowableProxy throwableProxy = event.getThrowableProxy();
         if (throwableProxy instanceof ThrowableProxy) {
@@ -146,11 +171,9 @@ protected void append(ILoggingEvent event)
                 LogUtils.newLogEvent(event.getMarker(), logLevel, event.getMessage(), event.getArgumentArray(),
                     throwable, event.getTimeStamp());
 
-            getObservationManager().notify(logevent, event.getLoggerName(), null);
+            currentObservationManager.notify(logevent, event.getLoggerName(), null);
         } catch (IllegalArgumentException e) {
             this.logger.debug("Unsupported log level [{}]", event.getLevel());
-        } catch (ComponentLookupException e) {
-            this.logger.error("Can't find any implementation of [{}]", ObservationManager.class.getName(), e);
         }
     }
 
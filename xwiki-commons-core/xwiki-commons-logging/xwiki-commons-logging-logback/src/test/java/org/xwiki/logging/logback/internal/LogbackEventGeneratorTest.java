@@ -27,12 +27,14 @@
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xwiki.context.internal.DefaultExecution;
 import org.xwiki.logging.LogLevel;
 import org.xwiki.logging.event.LogEvent;
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.event.Event;
 import org.xwiki.observation.internal.DefaultObservationManager;
+import org.xwiki.observation.internal.ObservationContextListener;
 import org.xwiki.test.AllLogRule;
 import org.xwiki.test.ComponentManagerRule;
 import org.xwiki.test.annotation.ComponentList;
@@ -48,7 +50,9 @@
  * @since 3.2M3
  */
 @ComponentList({
+    DefaultExecution.class,
     DefaultObservationManager.class,
+    ObservationContextListener.class,
     LogbackEventGenerator.class
 })
 public class LogbackEventGeneratorTest
@@ -92,6 +96,20 @@ public void verifyThatLoggingGeneratesALogEvent()
         assertEquals("error message", this.logCapture.getMessage(0));
     }
 
+    @Test
+    public void noLogEventListenerByDefault()
+    {
+        // None of the listeners registered by default listens to all events
+        Assert.assertFalse(this.observationManager.hasListener(LogEvent.class));
+
+        EventListener listener = mock(EventListener.class);
+        when(listener.getName()).thenReturn("mylistener");
+        when(listener.getEvents()).thenReturn(Arrays.<Event>asList(new LogEvent()));
+        this.observationManager.addListener(listener);
+
+        Assert.assertTrue(this.observationManager.hasListener(LogEvent.class));
+    }
+
     @Test
     public void initializeWhenNoLogback() throws Exception
     {
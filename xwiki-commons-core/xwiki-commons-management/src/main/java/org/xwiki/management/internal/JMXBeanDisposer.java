@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal;
+
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.manager.ComponentRepositoryException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.management.JMXBeanRegistration;
+
+/**
+ * Unregister a MBean when the component manager it's registered in is disposed, so that the MBean server does not keep
+ * a reference to the disposed component manager.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class JMXBeanDisposer implements Disposable
+{
+    /**
+     * Used to unregister the MBean.
+     */
+    private final JMXBeanRegistration jmxRegistration;
+
+    /**
+     * The name of the MBean to unregister.
+     */
+    private final String name;
+
+    /**
+     * @param jmxRegistration used to unregister the MBean
+     * @param name the name of the MBean to unregister
+     */
+    public JMXBeanDisposer(JMXBeanRegistration jmxRegistration, String name)
+    {
+        this.jmxRegistration = jmxRegistration;
+        this.name = name;
+    }
+
+    /**
+     * Register this instance in the passed component manager so that it's disposed with it.
+     *
+     * @param componentManager the component manager to follow
+     * @throws ComponentRepositoryException when failing to register this instance
+     */
+    public void register(ComponentManager componentManager) throws ComponentRepositoryException
+    {
+        DefaultComponentDescriptor<JMXBeanDisposer> descriptor = new DefaultComponentDescriptor<>();
+        descriptor.setRoleType(JMXBeanDisposer.class);
+        descriptor.setRoleHint(this.name);
+        descriptor.setImplementation(JMXBeanDisposer.class);
+
+        componentManager.registerComponent(descriptor, this);
+    }
+
+    @Override
+    public void dispose()
+    {
+        this.jmxRegistration.unregisterMBean(this.name);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.manager.ComponentManagerInitializer;
+import org.xwiki.component.manager.ComponentRepositoryException;
+import org.xwiki.component.manager.MonitorableComponentManager;
+import org.xwiki.component.manager.NamespacedComponentManager;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.management.internal.jmx.JMXComponentManager;
+
+/**
+ * Register a MBean exposing the statistics of the initialized component manager. The statistics are not collected
+ * until enabled through the MBean. The MBean is unregistered when the component manager is disposed.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Component
+@Named("jmx")
+@Singleton
+public class JMXComponentManagerInitializer implements ComponentManagerInitializer
+{
+    private static final String MBEANNAME_PREFIX = "type=ComponentManager,name=";
+
+    /**
+     * In order to register the component manager MBean.
+     */
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    /**
+     * The logger to log.
+     */
+    @Inject
+    private Logger logger;
+
+    @Override
+    public void initialize(ComponentManager componentManager)
+    {
+        if (componentManager instanceof MonitorableComponentManager) {
+            String namespace = componentManager instanceof NamespacedComponentManager
+                ? ((NamespacedComponentManager) componentManager).getNamespace() : null;
+            String name = MBEANNAME_PREFIX + (namespace != null ? ObjectName.quote(namespace) : "root");
+
+            this.jmxRegistration.registerMBean(
+                new JMXComponentManager((MonitorableComponentManager) componentManager), name);
+
+            try {
+                new JMXBeanDisposer(this.jmxRegistration, name).register(componentManager);
+            } catch (ComponentRepositoryException e) {
+                this.logger.warn("Failed to register the disposer of MBean [{}]", name, e);
+            }
+        }
+    }
+}
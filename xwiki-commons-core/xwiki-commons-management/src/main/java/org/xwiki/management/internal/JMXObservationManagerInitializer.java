@@ -0,0 +1,87 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.manager.ComponentManagerInitializer;
+import org.xwiki.component.manager.ComponentRepositoryException;
+import org.xwiki.component.manager.NamespacedComponentManager;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.management.internal.jmx.JMXObservationManager;
+import org.xwiki.observation.MonitorableObservationManager;
+import org.xwiki.observation.ObservationManager;
+
+/**
+ * Register a MBean exposing the statistics of the observation manager of the root component manager. The statistics
+ * are not collected until enabled through the MBean. The MBean is unregistered when the component manager is
+ * disposed.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Component
+@Named("jmxobservation")
+@Singleton
+public class JMXObservationManagerInitializer implements ComponentManagerInitializer
+{
+    private static final String MBEANNAME = "type=ObservationManager";
+
+    /**
+     * In order to register the observation manager MBean.
+     */
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    /**
+     * The logger to log.
+     */
+    @Inject
+    private Logger logger;
+
+    @Override
+    public void initialize(ComponentManager componentManager)
+    {
+        // The component managers of the namespaces share the observation manager of the root component manager
+        if (!(componentManager instanceof NamespacedComponentManager
+            && ((NamespacedComponentManager) componentManager).getNamespace() != null)
+            && componentManager.hasComponent(ObservationManager.class)) {
+            try {
+                ObservationManager observationManager = componentManager.getInstance(ObservationManager.class);
+                if (observationManager instanceof MonitorableObservationManager) {
+                    this.jmxRegistration.registerMBean(
+                        new JMXObservationManager((MonitorableObservationManager) observationManager), MBEANNAME);
+
+                    new JMXBeanDisposer(this.jmxRegistration, MBEANNAME).register(componentManager);
+                }
+            } catch (ComponentLookupException e) {
+                this.logger.warn("Failed to lookup the observation manager", e);
+            } catch (ComponentRepositoryException e) {
+                this.logger.warn("Failed to register the disposer of MBean [{}]", MBEANNAME, e);
+            }
+        }
+    }
+}
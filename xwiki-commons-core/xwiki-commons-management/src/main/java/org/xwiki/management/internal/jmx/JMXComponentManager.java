@@ -0,0 +1,179 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal.jmx;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.xwiki.component.manager.ComponentManagerStatistics;
+import org.xwiki.component.manager.MonitorableComponentManager;
+
+/**
+ * Expose the statistics of a {@link MonitorableComponentManager}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class JMXComponentManager implements JMXComponentManagerMXBean
+{
+    /**
+     * The statistics returned when they're not collected.
+     */
+    private static final ComponentManagerStatistics NO_STATISTICS = new NoStatistics();
+
+    /**
+     * The component manager for which to return management data.
+     */
+    private final MonitorableComponentManager componentManager;
+
+    /**
+     * @param componentManager the component manager for which to return management data
+     */
+    public JMXComponentManager(MonitorableComponentManager componentManager)
+    {
+        this.componentManager = componentManager;
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return this.componentManager.getStatistics() != null;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled)
+    {
+        if (enabled != isEnabled()) {
+            this.componentManager.setStatisticsEnabled(enabled);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getLookupCounts()
+    {
+        return getStatistics().getLookupCounts();
+    }
+
+    @Override
+    public Map<String, Long> getParentLookupCounts()
+    {
+        return getStatistics().getParentLookupCounts();
+    }
+
+    @Override
+    public Map<String, Long> getCreationCounts()
+    {
+        return getStatistics().getCreationCounts();
+    }
+
+    @Override
+    public Map<String, Long> getCreationTimes()
+    {
+        return getStatistics().getCreationTimes();
+    }
+
+    @Override
+    public Map<String, Long> getMaxCreationTimes()
+    {
+        return getStatistics().getMaxCreationTimes();
+    }
+
+    @Override
+    public Map<String, Long> getLifecycleTimes()
+    {
+        return getStatistics().getLifecycleTimes();
+    }
+
+    @Override
+    public Map<String, long[]> getCreationTimeHistograms()
+    {
+        return getStatistics().getCreationTimeHistograms();
+    }
+
+    @Override
+    public void reset()
+    {
+        getStatistics().reset();
+    }
+
+    /**
+     * @return the statistics of the component manager, or empty statistics when they're not collected
+     */
+    private ComponentManagerStatistics getStatistics()
+    {
+        ComponentManagerStatistics statistics = this.componentManager.getStatistics();
+
+        return statistics != null ? statistics : NO_STATISTICS;
+    }
+
+    /**
+     * Empty statistics.
+     */
+    private static final class NoStatistics implements ComponentManagerStatistics
+    {
+        @Override
+        public Map<String, Long> getLookupCounts()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getParentLookupCounts()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getCreationCounts()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getCreationTimes()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getLifecycleTimes()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getMaxCreationTimes()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, long[]> getCreationTimeHistograms()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void reset()
+        {
+            // Nothing to reset
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal.jmx;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.xwiki.observation.MonitorableObservationManager;
+import org.xwiki.observation.ObservationManagerStatistics;
+
+/**
+ * Expose the statistics collected by a {@link MonitorableObservationManager} about the calls to the event listeners.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class JMXObservationManager implements JMXObservationManagerMXBean
+{
+    /**
+     * The statistics returned when they're not collected.
+     */
+    private static final ObservationManagerStatistics NO_STATISTICS = new NoStatistics();
+
+    /**
+     * The observation manager for which to return management data.
+     */
+    private final MonitorableObservationManager observationManager;
+
+    /**
+     * The latency budget to use when enabling the statistics.
+     */
+    private volatile long latencyBudget = ObservationManagerStatistics.DEFAULT_LATENCY_BUDGET;
+
+    /**
+     * @param observationManager the observation manager for which to return management data
+     */
+    public JMXObservationManager(MonitorableObservationManager observationManager)
+    {
+        this.observationManager = observationManager;
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return this.observationManager.getStatistics() != null;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled)
+    {
+        if (enabled != isEnabled()) {
+            this.observationManager.setStatisticsEnabled(enabled);
+
+            getStatistics().setLatencyBudget(this.latencyBudget);
+        }
+    }
+
+    @Override
+    public long getLatencyBudget()
+    {
+        return this.latencyBudget;
+    }
+
+    @Override
+    public void setLatencyBudget(long latencyBudget)
+    {
+        this.latencyBudget = latencyBudget;
+
+        getStatistics().setLatencyBudget(latencyBudget);
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts()
+    {
+        return getStatistics().getCallCounts();
+    }
+
+    @Override
+    public Map<String, Long> getCallTimes()
+    {
+        return getStatistics().getCallTimes();
+    }
+
+    @Override
+    public Map<String, Long> getMaxCallTimes()
+    {
+        return getStatistics().getMaxCallTimes();
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts()
+    {
+        return getStatistics().getFailureCounts();
+    }
+
+    @Override
+    public Map<String, Long> getSlowCallCounts()
+    {
+        return getStatistics().getSlowCallCounts();
+    }
+
+    @Override
+    public void reset()
+    {
+        getStatistics().reset();
+    }
+
+    /**
+     * @return the statistics of the observation manager, or empty statistics when they're not collected
+     */
+    private ObservationManagerStatistics getStatistics()
+    {
+        ObservationManagerStatistics statistics = this.observationManager.getStatistics();
+
+        return statistics != null ? statistics : NO_STATISTICS;
+    }
+
+    /**
+     * Empty statistics.
+     */
+    private static final class NoStatistics implements ObservationManagerStatistics
+    {
+        @Override
+        public long getLatencyBudget()
+        {
+            return DEFAULT_LATENCY_BUDGET;
+        }
+
+        @Override
+        public void setLatencyBudget(long latencyBudget)
+        {
+            // Nothing to configure
+        }
+
+        @Override
+        public Map<String, Long> getCallCounts()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getCallTimes()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getMaxCallTimes()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getFailureCounts()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Long> getSlowCallCounts()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void reset()
+        {
+            // Nothing to reset
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal.jmx;
+
+import java.util.Map;
+
+/**
+ * MBean API exposing the statistics collected by the
+ * {@link org.xwiki.observation.internal.DefaultObservationManager} about the calls to the event listeners. Collecting
+ * statistics is disabled by default and can be enabled with {@link #setEnabled(boolean)}. The statistics are indexed
+ * by {@code <listener name>:<event class name>} and times are in milliseconds.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public interface JMXObservationManagerMXBean
+{
+    /**
+     * @return true if statistics are being collected
+     */
+    boolean isEnabled();
+
+    /**
+     * @param enabled true to start collecting statistics, false to stop collecting them and forget the collected ones
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the maximum time a listener is expected to spend handling an event
+     */
+    long getLatencyBudget();
+
+    /**
+     * @param latencyBudget the maximum time a listener is expected to spend handling an event, the slower calls are
+     *            logged and counted in {@link #getSlowCallCounts()}
+     */
+    void setLatencyBudget(long latencyBudget);
+
+    /**
+     * @return the number of calls of each listener for each type of event
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * @return the total time spent in each listener for each type of event
+     */
+    Map<String, Long> getCallTimes();
+
+    /**
+     * @return the longest time spent in each listener for each type of event
+     */
+    Map<String, Long> getMaxCallTimes();
+
+    /**
+     * @return the number of calls which ended with an exception
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * @return the number of calls which took longer than the latency budget
+     */
+    Map<String, Long> getSlowCallCounts();
+
+    /**
+     * Forget the collected statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal.jmx;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.xwiki.component.manager.ComponentManagerStatistics;
+import org.xwiki.component.manager.MonitorableComponentManager;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link JMXComponentManager}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class JMXComponentManagerTest
+{
+    private MonitorableComponentManager componentManager;
+
+    private JMXComponentManager jmxComponentManager;
+
+    @Before
+    public void setUp()
+    {
+        this.componentManager = mock(MonitorableComponentManager.class);
+        this.jmxComponentManager = new JMXComponentManager(this.componentManager);
+    }
+
+    @Test
+    public void getStatisticsWhenCollected()
+    {
+        ComponentManagerStatistics statistics = mock(ComponentManagerStatistics.class);
+        when(this.componentManager.getStatistics()).thenReturn(statistics);
+
+        Map<String, Long> counts = Collections.singletonMap("role", 2L);
+        Map<String, long[]> histograms = Collections.singletonMap("role", new long[] {1, 1});
+        when(statistics.getLookupCounts()).thenReturn(counts);
+        when(statistics.getParentLookupCounts()).thenReturn(counts);
+        when(statistics.getCreationCounts()).thenReturn(counts);
+        when(statistics.getCreationTimes()).thenReturn(counts);
+        when(statistics.getMaxCreationTimes()).thenReturn(counts);
+        when(statistics.getLifecycleTimes()).thenReturn(counts);
+        when(statistics.getCreationTimeHistograms()).thenReturn(histograms);
+
+        Assert.assertTrue(this.jmxComponentManager.isEnabled());
+        Assert.assertSame(counts, this.jmxComponentManager.getLookupCounts());
+        Assert.assertSame(counts, this.jmxComponentManager.getParentLookupCounts());
+        Assert.assertSame(counts, this.jmxComponentManager.getCreationCounts());
+        Assert.assertSame(counts, this.jmxComponentManager.getCreationTimes());
+        Assert.assertSame(counts, this.jmxComponentManager.getMaxCreationTimes());
+        Assert.assertSame(counts, this.jmxComponentManager.getLifecycleTimes());
+        Assert.assertSame(histograms, this.jmxComponentManager.getCreationTimeHistograms());
+
+        this.jmxComponentManager.reset();
+        verify(statistics).reset();
+
+        this.jmxComponentManager.setEnabled(false);
+        verify(this.componentManager).setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void getStatisticsWhenNotCollected()
+    {
+        Assert.assertFalse(this.jmxComponentManager.isEnabled());
+        Assert.assertTrue(this.jmxComponentManager.getLookupCounts().isEmpty());
+        Assert.assertTrue(this.jmxComponentManager.getParentLookupCounts().isEmpty());
+        Assert.assertTrue(this.jmxComponentManager.getCreationCounts().isEmpty());
+        Assert.assertTrue(this.jmxComponentManager.getCreationTimes().isEmpty());
+        Assert.assertTrue(this.jmxComponentManager.getMaxCreationTimes().isEmpty());
+        Assert.assertTrue(this.jmxComponentManager.getLifecycleTimes().isEmpty());
+        Assert.assertTrue(this.jmxComponentManager.getCreationTimeHistograms().isEmpty());
+
+        // Nothing to reset but it shouldn't fail
+        this.jmxComponentManager.reset();
+
+        this.jmxComponentManager.setEnabled(true);
+        verify(this.componentManager).setStatisticsEnabled(true);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.management.internal.jmx;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.xwiki.observation.MonitorableObservationManager;
+import org.xwiki.observation.ObservationManagerStatistics;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link JMXObservationManager}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class JMXObservationManagerTest
+{
+    private MonitorableObservationManager observationManager;
+
+    private JMXObservationManager jmxObservationManager;
+
+    @Before
+    public void setUp()
+    {
+        this.observationManager = mock(MonitorableObservationManager.class);
+        this.jmxObservationManager = new JMXObservationManager(this.observationManager);
+    }
+
+    @Test
+    public void getStatisticsWhenCollected()
+    {
+        ObservationManagerStatistics statistics = mock(ObservationManagerStatistics.class);
+        when(this.observationManager.getStatistics()).thenReturn(statistics);
+
+        Map<String, Long> counts = Collections.singletonMap("listener", 2L);
+        when(statistics.getCallCounts()).thenReturn(counts);
+        when(statistics.getCallTimes()).thenReturn(counts);
+        when(statistics.getMaxCallTimes()).thenReturn(counts);
+        when(statistics.getFailureCounts()).thenReturn(counts);
+        when(statistics.getSlowCallCounts()).thenReturn(counts);
+
+        Assert.assertTrue(this.jmxObservationManager.isEnabled());
+        Assert.assertSame(counts, this.jmxObservationManager.getCallCounts());
+        Assert.assertSame(counts, this.jmxObservationManager.getCallTimes());
+        Assert.assertSame(counts, this.jmxObservationManager.getMaxCallTimes());
+        Assert.assertSame(counts, this.jmxObservationManager.getFailureCounts());
+        Assert.assertSame(counts, this.jmxObservationManager.getSlowCallCounts());
+
+        this.jmxObservationManager.setLatencyBudget(42);
+        Assert.assertEquals(42, this.jmxObservationManager.getLatencyBudget());
+        verify(statistics).setLatencyBudget(42);
+
+        this.jmxObservationManager.reset();
+        verify(statistics).reset();
+
+        this.jmxObservationManager.setEnabled(false);
+        verify(this.observationManager).setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void getStatisticsWhenNotCollected()
+    {
+        Assert.assertFalse(this.jmxObservationManager.isEnabled());
+        Assert.assertTrue(this.jmxObservationManager.getCallCounts().isEmpty());
+        Assert.assertTrue(this.jmxObservationManager.getCallTimes().isEmpty());
+        Assert.assertTrue(this.jmxObservationManager.getMaxCallTimes().isEmpty());
+        Assert.assertTrue(this.jmxObservationManager.getFailureCounts().isEmpty());
+        Assert.assertTrue(this.jmxObservationManager.getSlowCallCounts().isEmpty());
+
+        // Nothing to reset but it shouldn't fail
+        this.jmxObservationManager.reset();
+
+        // The latency budget is remembered until the statistics are collected
+        this.jmxObservationManager.setLatencyBudget(42);
+        Assert.assertEquals(42, this.jmxObservationManager.getLatencyBudget());
+
+        ObservationManagerStatistics statistics = mock(ObservationManagerStatistics.class);
+        when(this.observationManager.getStatistics()).thenReturn(null, statistics);
+
+        this.jmxObservationManager.setEnabled(true);
+        verify(this.observationManager).setStatisticsEnabled(true);
+        verify(statistics).setLatencyBudget(42);
+    }
+}
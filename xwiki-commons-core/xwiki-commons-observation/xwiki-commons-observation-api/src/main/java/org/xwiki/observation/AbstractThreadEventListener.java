@@ -20,6 +20,7 @@
 package org.xwiki.observation;
 
 import org.xwiki.observation.event.Event;
+import org.xwiki.stability.Unstable;
 
 /**
  * Filter events by keeping only events produced by the provided {@link Thread}.
@@ -50,6 +51,16 @@ public AbstractThreadEventListener(Thread thread)
         this.thread = thread;
     }
 
+    /**
+     * @return the thread to match to receive events
+     * @since 7.1M1
+     */
+    @Unstable
+    public Thread getThread()
+    {
+        return this.thread;
+    }
+
     @Override
     public void onEvent(Event event, Object source, Object data)
     {
@@ -0,0 +1,94 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.xwiki.stability.Unstable;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Indicate that an {@link EventListener} should not be called in the thread notifying the event but in a separate
+ * thread so that a slow listener does not delay the code sending the events.
+ * <p>
+ * Each asynchronous listener has its own bounded queue of events which are passed to it in the order they were
+ * notified, one at a time. The events are passed to the listener with the same instances of event, source and data
+ * objects so they should not be modified by the notifying code afterward.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(TYPE)
+@Inherited
+@Unstable
+public @interface AsyncListener
+{
+    /**
+     * Default maximum number of events waiting to be passed to the listener.
+     */
+    int DEFAULT_QUEUE_SIZE = 1000;
+
+    /**
+     * What to do when an event is notified while the queue of the listener is full.
+     *
+     * @version $Id$
+     */
+    enum OverflowPolicy
+    {
+        /**
+         * Wait in the notifying thread until there is room in the queue.
+         */
+        BLOCK,
+
+        /**
+         * Call the listener synchronously in the notifying thread (the event might then be received before events
+         * still in the queue).
+         */
+        CALLER_RUNS,
+
+        /**
+         * Forget the event.
+         */
+        DISCARD
+    }
+
+    /**
+     * The maximum number of events waiting to be passed to the listener.
+     */
+    int queueSize() default DEFAULT_QUEUE_SIZE;
+
+    /**
+     * What to do when an event is notified while the queue of the listener is full.
+     */
+    OverflowPolicy overflowPolicy() default OverflowPolicy.BLOCK;
+
+    /**
+     * True if the listener should be called with a copy of the execution context of the notifying thread, false to
+     * call it with a new (initialized) execution context.
+     */
+    boolean propagateContext() default false;
+}
@@ -0,0 +1,48 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation;
+
+import java.util.List;
+
+import org.xwiki.observation.event.Event;
+import org.xwiki.stability.Unstable;
+
+/**
+ * An {@link EventListener} which can receive all the matching events of a batch in one call. Events notified with
+ * {@link ObservationManager#notify(java.util.Collection, Object, Object)} are passed to
+ * {@link #onEvents(List, Object, Object)} while events notified one by one are still passed to
+ * {@link #onEvent(Event, Object, Object)}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public interface BatchEventListener extends EventListener
+{
+    /**
+     * The {@link ObservationManager} calls this method once per batch of events with the events of the batch matching
+     * one of the events for which this listener is registered (see {@link #getEvents()}), in the order of the batch.
+     *
+     * @param events the matching events of the batch
+     * @param source the source of the events
+     * @param data some additional and optional data passed that can be acted on
+     */
+    void onEvents(List<Event> events, Object source, Object data);
+}
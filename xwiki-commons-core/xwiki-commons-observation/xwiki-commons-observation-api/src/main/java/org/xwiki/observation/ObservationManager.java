@@ -19,8 +19,11 @@
  */
 package org.xwiki.observation;
 
+import java.util.Collection;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.observation.event.Event;
+import org.xwiki.stability.Unstable;
 
 /**
  * The main orchestrator for event notification. To receive events create a component implementing the
@@ -88,4 +91,45 @@
      * @see #notify(org.xwiki.observation.event.Event, Object, Object)
      */
     void notify(Event event, Object source);
+
+    /**
+     * Call the registered listeners matching each of the passed events, in the order of the collection. It's the same
+     * as calling {@link #notify(Event, Object, Object)} for each event except that the listeners are resolved once per
+     * type of event and that {@link BatchEventListener}s receive all their matching events in one call, after the
+     * other listeners have been notified of the whole batch.
+     *
+     * @param events the events to pass to the registered listeners
+     * @param source the source of the events (or <code>null</code>)
+     * @param data the additional data related to the events (or <code>null</code>)
+     * @since 7.1M1
+     */
+    @Unstable
+    void notify(Collection<? extends Event> events, Object source, Object data);
+
+    /**
+     * Indicate if an event of the passed type notified now by the current thread could be passed to any listener.
+     * Meant for code sending a lot of events to skip creating them when nobody listens to them.
+     * <p>
+     * The answer only reflects the listeners registered when the method is called.
+     *
+     * @param eventType the type of the event
+     * @return true if at least one listener is registered for the passed type of event (or all events)
+     * @since 7.1M1
+     */
+    @Unstable
+    boolean hasListener(Class<? extends Event> eventType);
+
+    /**
+     * Indicate if the passed event notified now by the current thread would be passed to any listener, taking into
+     * account the events each listener is registered for (event filters included). Meant for code sending a lot of
+     * events which are cheap to create but expensive to notify.
+     * <p>
+     * The answer only reflects the listeners registered when the method is called.
+     *
+     * @param event the event
+     * @return true if at least one listener is registered for an event matching the passed event
+     * @since 7.1M1
+     */
+    @Unstable
+    boolean hasListener(Event event);
 }
@@ -0,0 +1,83 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation;
+
+import java.util.Map;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Statistics about the calls made by an {@link ObservationManager} to the event listeners.
+ * <p>
+ * Statistics are indexed by {@code <listener name>:<event class name>}. Times are in milliseconds.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public interface ObservationManagerStatistics
+{
+    /**
+     * The default maximum time a listener is expected to spend handling an event, in milliseconds.
+     */
+    long DEFAULT_LATENCY_BUDGET = 1000L;
+
+    /**
+     * @return the maximum time a listener is expected to spend handling an event, in milliseconds
+     */
+    long getLatencyBudget();
+
+    /**
+     * @param latencyBudget the maximum time a listener is expected to spend handling an event, in milliseconds. The
+     *            calls taking longer are counted in {@link #getSlowCallCounts()} and logged.
+     */
+    void setLatencyBudget(long latencyBudget);
+
+    /**
+     * @return the number of calls of each listener for each type of event
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * @return the total time spent in each listener for each type of event
+     */
+    Map<String, Long> getCallTimes();
+
+    /**
+     * @return the longest time spent in each listener for each type of event
+     */
+    Map<String, Long> getMaxCallTimes();
+
+    /**
+     * @return the number of calls which ended with an exception, for the listeners which failed at least once
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * @return the number of calls which took longer than the latency budget, for the listeners which exceeded it at
+     *         least once
+     */
+    Map<String, Long> getSlowCallCounts();
+
+    /**
+     * Forget all the collected statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,82 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.event;
+
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Special event matcher used by a listener which needs to listen to all the events of a given type, i.e. all the
+ * events extending the passed class or implementing the passed interface. A listener registered with any other event
+ * only receives the events of the exact same class.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public class TypeEvent implements Event
+{
+    /**
+     * @see #getType()
+     */
+    private final Class<?> type;
+
+    /**
+     * @param type the type of the events to match (class or interface)
+     */
+    public TypeEvent(Class<?> type)
+    {
+        this.type = type;
+    }
+
+    /**
+     * @return the type of the events to match
+     */
+    public Class<?> getType()
+    {
+        return this.type;
+    }
+
+    @Override
+    public boolean matches(Object otherEvent)
+    {
+        return this.type.isInstance(otherEvent);
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (object == this) {
+            return true;
+        }
+
+        if (object == null || object.getClass() != getClass()) {
+            return false;
+        }
+
+        return this.type == ((TypeEvent) object).getType();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(5, 127).append(this.type).toHashCode();
+    }
+}
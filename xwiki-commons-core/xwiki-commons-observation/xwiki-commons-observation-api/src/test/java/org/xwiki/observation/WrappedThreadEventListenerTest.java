@@ -19,6 +19,7 @@
  */
 package org.xwiki.observation;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.xwiki.observation.event.AllEvent;
@@ -75,6 +76,8 @@ public void testOnEventOnPassedThread() throws InterruptedException
         final WrappedThreadEventListener wrapper =
             new WrappedThreadEventListener(this.listenermock, Thread.currentThread());
 
+        Assert.assertSame(Thread.currentThread(), wrapper.getThread());
+
         Runnable runnable = new Runnable()
         {
             @Override
@@ -0,0 +1,57 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TypeEvent}.
+ *
+ * @version $Id$
+ */
+public class TypeEventTest
+{
+    @Test
+    public void matches()
+    {
+        TypeEvent event = new TypeEvent(ApplicationStartedEvent.class);
+
+        Assert.assertSame(ApplicationStartedEvent.class, event.getType());
+        Assert.assertTrue(event.matches(new ApplicationStartedEvent()));
+        Assert.assertFalse(event.matches(new ApplicationStoppedEvent()));
+        Assert.assertFalse(event.matches(null));
+
+        Assert.assertTrue(new TypeEvent(Event.class).matches(new ApplicationStoppedEvent()));
+    }
+
+    @Test
+    public void equalsAndHashCode()
+    {
+        TypeEvent event = new TypeEvent(ApplicationStartedEvent.class);
+
+        Assert.assertTrue(event.equals(event));
+        Assert.assertEquals(event, new TypeEvent(ApplicationStartedEvent.class));
+        Assert.assertEquals(event.hashCode(), new TypeEvent(ApplicationStartedEvent.class).hashCode());
+        Assert.assertNotEquals(event, new TypeEvent(ApplicationStoppedEvent.class));
+        Assert.assertNotEquals(event, new ApplicationStartedEvent());
+        Assert.assertNotEquals(event, null);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.benchmark;
+
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Listener registered by the benchmarks, counting the events it receives.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class BenchmarkEventListener extends AbstractEventListener
+{
+    private long count;
+
+    /**
+     * @param name the name of the listener
+     * @param events the events the listener listens to
+     */
+    public BenchmarkEventListener(String name, Event... events)
+    {
+        super(name, events);
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        ++this.count;
+    }
+
+    /**
+     * @return the number of events received by the listener (not accurate when several threads notify events)
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+}
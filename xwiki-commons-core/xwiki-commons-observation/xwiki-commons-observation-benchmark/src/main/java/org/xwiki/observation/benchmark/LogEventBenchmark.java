@@ -0,0 +1,105 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.logging.event.LogEvent;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+
+/**
+ * Benchmarks of the logs converted to {@link LogEvent}s by the Logback event generator.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogEventBenchmark
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogEventBenchmark.class);
+
+    /**
+     * True if a listener to {@link LogEvent} is registered.
+     */
+    @Param({ "false", "true" })
+    private boolean listened;
+
+    private EmbeddableComponentManager componentManager;
+
+    /**
+     * Register the Logback event generator and the listener.
+     *
+     * @throws ComponentLookupException when failing to lookup the components
+     */
+    @Setup
+    public void setUp() throws ComponentLookupException
+    {
+        this.componentManager = new EmbeddableComponentManager();
+        this.componentManager.initialize(getClass().getClassLoader());
+
+        // Registers itself as Logback appender
+        this.componentManager.getInstance(EventListener.class, "LogbackEventGenerator");
+
+        if (this.listened) {
+            ObservationManager observationManager = this.componentManager.getInstance(ObservationManager.class);
+            observationManager.addListener(new BenchmarkEventListener("log", new LogEvent()));
+        }
+    }
+
+    /**
+     * Dispose the components, which unregisters the Logback appender.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * Log an information message.
+     */
+    @Benchmark
+    public void log()
+    {
+        LOGGER.info("Benchmark message [{}]", this.listened);
+    }
+}
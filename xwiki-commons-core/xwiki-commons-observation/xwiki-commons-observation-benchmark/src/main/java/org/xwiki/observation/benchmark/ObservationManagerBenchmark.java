@@ -0,0 +1,219 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.AllEvent;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Benchmarks of the {@link ObservationManager} dispatch hot paths.
+ * <p>
+ * The registered listeners are a mix of listeners to all events, listeners to any {@link BenchmarkEvent} and
+ * listeners to a {@link BenchmarkEvent} with a specific name, on top of the listeners provided by the modules in the
+ * classpath.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservationManagerBenchmark
+{
+    private static final String NAME_PREFIX = "name";
+
+    private static final String CHURN_NAME = "churn";
+
+    private static final int BATCH_SIZE = 10;
+
+    /**
+     * The number of benchmark listeners.
+     */
+    @Param({ "10", "100", "1000" })
+    private int listenerCount;
+
+    private EmbeddableComponentManager componentManager;
+
+    private ObservationManager observationManager;
+
+    private Event namedEvent;
+
+    private Event unnamedEvent;
+
+    private Event ignoredEvent;
+
+    private List<Event> events;
+
+    private BenchmarkEventListener churnListener;
+
+    /**
+     * Register the listeners.
+     *
+     * @throws ComponentLookupException when failing to lookup the observation manager
+     */
+    @Setup
+    public void setUp() throws ComponentLookupException
+    {
+        this.componentManager = new EmbeddableComponentManager();
+        this.componentManager.initialize(getClass().getClassLoader());
+
+        this.observationManager = this.componentManager.getInstance(ObservationManager.class);
+
+        for (int i = 0; i < this.listenerCount; ++i) {
+            Event event;
+            switch (i % 4) {
+                case 0:
+                    event = AllEvent.ALLEVENT;
+                    break;
+                case 1:
+                    event = new BenchmarkEvent();
+                    break;
+                default:
+                    event = new BenchmarkEvent(NAME_PREFIX + i);
+                    break;
+            }
+
+            this.observationManager.addListener(new BenchmarkEventListener("listener" + i, event));
+        }
+
+        this.namedEvent = new BenchmarkEvent(NAME_PREFIX + (this.listenerCount / 2));
+        this.unnamedEvent = new BenchmarkEvent();
+        this.ignoredEvent = new IgnoredEvent();
+
+        this.events = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; ++i) {
+            this.events.add(new BenchmarkEvent(NAME_PREFIX + i));
+        }
+
+        this.churnListener = new BenchmarkEventListener(CHURN_NAME, new BenchmarkEvent(CHURN_NAME));
+    }
+
+    /**
+     * Dispose the components.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * Notify an event matched by the listeners to all events, to any benchmark event and to its name.
+     */
+    @Benchmark
+    public void notifyNamedEvent()
+    {
+        this.observationManager.notify(this.namedEvent, this, null);
+    }
+
+    /**
+     * Notify an event matched by all the benchmark listeners.
+     */
+    @Benchmark
+    public void notifyUnnamedEvent()
+    {
+        this.observationManager.notify(this.unnamedEvent, this, null);
+    }
+
+    /**
+     * Notify an event only matched by the listeners to all events.
+     */
+    @Benchmark
+    public void notifyIgnoredEvent()
+    {
+        this.observationManager.notify(this.ignoredEvent, this, null);
+    }
+
+    /**
+     * Notify several events at once.
+     */
+    @Benchmark
+    public void notifyBatch()
+    {
+        this.observationManager.notify(this.events, this, null);
+    }
+
+    /**
+     * Notify an event from as many threads as there are cores.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void notifyConcurrently()
+    {
+        this.observationManager.notify(this.namedEvent, this, null);
+    }
+
+    /**
+     * Add and remove a listener.
+     */
+    @Benchmark
+    public void addRemoveListener()
+    {
+        this.observationManager.addListener(this.churnListener);
+        this.observationManager.removeListener(this.churnListener.getName());
+    }
+
+    /**
+     * Notify an event while another thread adds and removes a listener.
+     */
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(3)
+    public void notifyDuringChurn()
+    {
+        this.observationManager.notify(this.namedEvent, this, null);
+    }
+
+    /**
+     * Add and remove a listener while other threads notify an event.
+     */
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void churnDuringNotify()
+    {
+        addRemoveListener();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.observation.AsyncListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.internal.AsyncListenerQueue.QueuedEvent;
+
+/**
+ * Pass the events to the listeners annotated with {@link AsyncListener} using a shared pool of threads. Each listener
+ * has its own queue of events so that a slow listener only delays its own events.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class AsyncEventListenerExecutor
+{
+    /**
+     * How long an idle thread is kept, in seconds.
+     */
+    private static final long KEEP_ALIVE_TIME = 60L;
+
+    private final ComponentManager componentManager;
+
+    private final Logger logger;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ConcurrentMap<String, AsyncListenerQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Indicate if the current thread is passing an event to an asynchronous listener.
+     */
+    private final ThreadLocal<Boolean> listenerThread = new ThreadLocal<>();
+
+    private Execution execution;
+
+    private ExecutionContextManager executionContextManager;
+
+    /**
+     * @param componentManager used to lookup the components needed to manipulate the execution context (can be null)
+     * @param logger the logger to log
+     */
+    public AsyncEventListenerExecutor(ComponentManager componentManager, Logger logger)
+    {
+        this.componentManager = componentManager;
+        this.logger = logger;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        BasicThreadFactory threadFactory =
+            new BasicThreadFactory.Builder().namingPattern("XWiki async event listener %d").daemon(true).build();
+        this.executor =
+            new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue an event to be passed to an asynchronous listener. When the queue of the listener is full the event is
+     * handled according to {@link AsyncListener#overflowPolicy()}.
+     *
+     * @param listener the listener to notify
+     * @param configuration the asynchronous configuration of the listener
+     * @param event the event to pass to the listener
+     * @param source the source of the event (or <code>null</code>)
+     * @param data the additional data related to the event (or <code>null</code>)
+     */
+    public void submit(EventListener listener, AsyncListener configuration, Event event, Object source, Object data)
+    {
+        AsyncListenerQueue queue = getQueue(listener, configuration);
+
+        // Don't copy the execution context for an event which is going to be discarded
+        if (queue.discardIfFull()) {
+            return;
+        }
+
+        QueuedEvent queuedEvent =
+            new QueuedEvent(event, source, data, configuration.propagateContext() ? shareContext() : null);
+
+        try {
+            if (!queue.add(queuedEvent)) {
+                // Call the listener in the current thread and context
+                callListener(listener, queuedEvent);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            this.logger.warn("Interrupted while waiting to send event [{}] to listener [{}]", event, listener);
+        }
+    }
+
+    private AsyncListenerQueue getQueue(EventListener listener, AsyncListener configuration)
+    {
+        String name = listener.getName();
+
+        AsyncListenerQueue queue = this.queues.get(name);
+        if (queue == null) {
+            AsyncListenerQueue newQueue = new AsyncListenerQueue(listener, configuration, this);
+            queue = this.queues.putIfAbsent(name, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+            }
+        } else if (queue.getListener() != listener) {
+            // The listener has been replaced by another one with the same name
+            queue = new AsyncListenerQueue(listener, configuration, this);
+            this.queues.put(name, queue);
+        }
+
+        return queue;
+    }
+
+    /**
+     * Forget the queue of a listener. The events already in the queue are still passed to the listener.
+     *
+     * @param listenerName the name of the listener
+     */
+    public void removeListener(String listenerName)
+    {
+        this.queues.remove(listenerName);
+    }
+
+    /**
+     * @param runnable the task to execute
+     * @return false if the executor has been shutdown
+     */
+    boolean execute(Runnable runnable)
+    {
+        try {
+            this.executor.execute(runnable);
+
+            return true;
+        } catch (RejectedExecutionException e) {
+            this.logger.warn("Asynchronous event listener executor is shutdown, ignoring [{}]", runnable);
+
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the current thread is passing an event to an asynchronous listener
+     */
+    boolean isExecutorThread()
+    {
+        return this.listenerThread.get() != null;
+    }
+
+    /**
+     * Pass an event to an asynchronous listener in the current thread with the right execution context.
+     *
+     * @param listener the listener to notify
+     * @param event the event to pass to the listener
+     */
+    void call(EventListener listener, QueuedEvent event)
+    {
+        Execution currentExecution = getExecution();
+
+        if (currentExecution != null) {
+            initializeContext(event.getContext());
+        }
+
+        this.listenerThread.set(Boolean.TRUE);
+        try {
+            callListener(listener, event);
+        } finally {
+            this.listenerThread.remove();
+
+            if (currentExecution != null) {
+                currentExecution.removeContext();
+            }
+        }
+    }
+
+    private void callListener(EventListener listener, QueuedEvent event)
+    {
+        try {
+            listener.onEvent(event.getEvent(), event.getSource(), event.getData());
+        } catch (Exception e) {
+            // protect from bad listeners
+            this.logger.error("Failed to send event [{}] to listener [{}]",
+                new Object[] { event.getEvent(), listener, e });
+        }
+    }
+
+    private void initializeContext(ExecutionContext context)
+    {
+        try {
+            // The initializers skip the properties already shared with the context of the notifying thread
+            this.executionContextManager.initialize(context != null ? context : new ExecutionContext());
+        } catch (ExecutionContextException e) {
+            this.logger.error("Failed to initialize the asynchronous event listener execution context", e);
+        }
+    }
+
+    /**
+     * Copy the properties of the current execution context which can be copied cheaply: the inherited and shareable
+     * ones. The context is initialized later by the thread calling the listener, so that the notifying thread does not
+     * have to run the execution context initializers.
+     *
+     * @return the execution context to call the listener with, null if there is no current execution context
+     */
+    private ExecutionContext shareContext()
+    {
+        Execution currentExecution = getExecution();
+
+        if (currentExecution != null && currentExecution.getContext() != null) {
+            ExecutionContext context = new ExecutionContext();
+            context.inheritFrom(currentExecution.getContext());
+            context.shareFrom(currentExecution.getContext());
+
+            return context;
+        }
+
+        return null;
+    }
+
+    private Execution getExecution()
+    {
+        if (this.execution == null && this.componentManager != null
+            && this.componentManager.hasComponent(ExecutionContextManager.class)) {
+            try {
+                this.executionContextManager = this.componentManager.getInstance(ExecutionContextManager.class);
+                this.execution = this.componentManager.getInstance(Execution.class);
+            } catch (ComponentLookupException e) {
+                this.logger.error("Failed to lookup the execution components", e);
+            }
+        }
+
+        return this.execution;
+    }
+
+    /**
+     * @return the number of events waiting to be passed to each asynchronous listener, indexed by listener name
+     */
+    public Map<String, Integer> getQueueSizes()
+    {
+        Map<String, Integer> result = new HashMap<>(this.queues.size());
+        for (Map.Entry<String, AsyncListenerQueue> entry : this.queues.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().size());
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of events discarded because the queue of the listener was full, indexed by listener name
+     */
+    public Map<String, Long> getDiscardedEvents()
+    {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, AsyncListenerQueue> entry : this.queues.entrySet()) {
+            long discarded = entry.getValue().getDiscarded();
+            if (discarded > 0) {
+                result.put(entry.getKey(), discarded);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Stop accepting new events and wait a bit for the queued ones to be passed to the listeners.
+     *
+     * @param timeout the maximum time to wait, in milliseconds
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void shutdown(long timeout) throws InterruptedException
+    {
+        this.executor.shutdown();
+        this.executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.observation.AsyncListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * The events waiting to be passed to an asynchronous listener. The queue is drained by at most one thread at a time so
+ * that the listener receives the events in the order they were notified.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+class AsyncListenerQueue implements Runnable
+{
+    /**
+     * The maximum number of events passed to the listener before giving the thread back to the other listeners.
+     */
+    private static final int MAX_EVENTS_PER_RUN = 100;
+
+    /**
+     * An event waiting to be passed to the listener.
+     */
+    static final class QueuedEvent
+    {
+        private final Event event;
+
+        private final Object source;
+
+        private final Object data;
+
+        private final ExecutionContext context;
+
+        /**
+         * @param event the event to pass to the listener
+         * @param source the source of the event
+         * @param data the additional data related to the event
+         * @param context the execution context to call the listener with, null to create a new one
+         */
+        QueuedEvent(Event event, Object source, Object data, ExecutionContext context)
+        {
+            this.event = event;
+            this.source = source;
+            this.data = data;
+            this.context = context;
+        }
+
+        /**
+         * @return the event to pass to the listener
+         */
+        Event getEvent()
+        {
+            return this.event;
+        }
+
+        /**
+         * @return the source of the event
+         */
+        Object getSource()
+        {
+            return this.source;
+        }
+
+        /**
+         * @return the additional data related to the event
+         */
+        Object getData()
+        {
+            return this.data;
+        }
+
+        /**
+         * @return the execution context to call the listener with, null to create a new one
+         */
+        ExecutionContext getContext()
+        {
+            return this.context;
+        }
+    }
+
+    private final EventListener listener;
+
+    private final AsyncListener configuration;
+
+    private final AsyncEventListenerExecutor executor;
+
+    private final BlockingQueue<QueuedEvent> queue;
+
+    /**
+     * True when the queue is waiting for or being drained by a thread of the executor.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicLong discarded = new AtomicLong();
+
+    /**
+     * @param listener the listener to pass the events to
+     * @param configuration the asynchronous configuration of the listener
+     * @param executor the executor in charge of draining the queue
+     */
+    AsyncListenerQueue(EventListener listener, AsyncListener configuration, AsyncEventListenerExecutor executor)
+    {
+        this.listener = listener;
+        this.configuration = configuration;
+        this.executor = executor;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, configuration.queueSize()));
+    }
+
+    /**
+     * @return the listener to pass the events to
+     */
+    EventListener getListener()
+    {
+        return this.listener;
+    }
+
+    /**
+     * @return the asynchronous configuration of the listener
+     */
+    AsyncListener getConfiguration()
+    {
+        return this.configuration;
+    }
+
+    /**
+     * @return the number of events waiting to be passed to the listener
+     */
+    int size()
+    {
+        return this.queue.size();
+    }
+
+    /**
+     * @return the number of events discarded because the queue was full
+     */
+    long getDiscarded()
+    {
+        return this.discarded.get();
+    }
+
+    /**
+     * Discard the next event right away when the queue is full and the overflow policy is to discard the events, so
+     * that nothing has to be prepared for it.
+     *
+     * @return true if the next event has been discarded
+     */
+    boolean discardIfFull()
+    {
+        if (this.configuration.overflowPolicy() == AsyncListener.OverflowPolicy.DISCARD
+            && this.queue.remainingCapacity() == 0) {
+            this.discarded.incrementAndGet();
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @param event the event to add to the queue
+     * @return false if the queue is full and the event should be passed to the listener by the calling thread
+     * @throws InterruptedException when interrupted while waiting for room in the queue
+     */
+    boolean add(QueuedEvent event) throws InterruptedException
+    {
+        if (!this.queue.offer(event)) {
+            switch (this.configuration.overflowPolicy()) {
+                case DISCARD:
+                    this.discarded.incrementAndGet();
+                    break;
+                case BLOCK:
+                    // Blocking a thread of the executor could prevent the queue from ever being drained
+                    if (this.executor.isExecutorThread()) {
+                        return false;
+                    }
+                    this.queue.put(event);
+                    break;
+                default:
+                    return false;
+            }
+        }
+
+        schedule();
+
+        return true;
+    }
+
+    /**
+     * Make sure a thread of the executor is going to drain the queue.
+     */
+    void schedule()
+    {
+        if (this.scheduled.compareAndSet(false, true) && !this.executor.execute(this)) {
+            this.scheduled.set(false);
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        try {
+            for (int i = 0; i < MAX_EVENTS_PER_RUN; ++i) {
+                QueuedEvent event = this.queue.poll();
+                if (event == null) {
+                    break;
+                }
+
+                this.executor.call(this.listener, event);
+            }
+        } finally {
+            this.scheduled.set(false);
+
+            // Events might have been added after the last poll or there was more events than allowed in one run
+            if (!this.queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
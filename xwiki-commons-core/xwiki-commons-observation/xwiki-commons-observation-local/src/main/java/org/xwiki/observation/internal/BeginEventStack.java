@@ -0,0 +1,229 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xwiki.observation.event.AbstractFilterableEvent;
+import org.xwiki.observation.event.BeginEvent;
+import org.xwiki.observation.event.filter.AlwaysMatchingEventFilter;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+
+/**
+ * The {@link BeginEvent}s which are not yet ended in an execution context.
+ * <p>
+ * Besides the stack itself, the number of active events is maintained for each event class (and its super classes)
+ * and for each event filter value so that checking if we are in an event relying on {@link AbstractFilterableEvent}
+ * matching with an {@link AlwaysMatchingEventFilter} or a {@link FixedNameEventFilter} does not require looking at
+ * each event of the stack.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+final class BeginEventStack
+{
+    /**
+     * The active events of a given class or of one of its sub classes.
+     */
+    private static final class ClassEvents
+    {
+        /**
+         * The number of active events.
+         */
+        private int count;
+
+        /**
+         * The number of active events without any event filter.
+         */
+        private int withoutFilter;
+
+        /**
+         * The number of active events for each event filter value.
+         */
+        private final Map<String, int[]> filterValues = new HashMap<String, int[]>();
+    }
+
+    /**
+     * The active events, the last one being the most recent.
+     */
+    private final List<BeginEvent> events = new ArrayList<BeginEvent>();
+
+    /**
+     * The active events indexed by class.
+     */
+    private final Map<Class<?>, ClassEvents> classes = new HashMap<Class<?>, ClassEvents>();
+
+    /**
+     * Indicate for each checked event class if its instances match other events like {@link AbstractFilterableEvent}
+     * does. Not shared between stacks so that it does not retain classes from uninstalled extensions.
+     */
+    private final Map<Class<?>, Boolean> filterableMatching = new HashMap<Class<?>, Boolean>();
+
+    /**
+     * @param event the event which just began
+     */
+    void push(BeginEvent event)
+    {
+        this.events.add(event);
+
+        if (event instanceof AbstractFilterableEvent) {
+            EventFilter eventFilter = ((AbstractFilterableEvent) event).getEventFilter();
+            String filterValue = eventFilter != null ? eventFilter.getFilter() : null;
+
+            for (Class<?> eventClass = event.getClass(); eventClass != AbstractFilterableEvent.class; eventClass =
+                eventClass.getSuperclass()) {
+                ClassEvents classEvents = this.classes.get(eventClass);
+                if (classEvents == null) {
+                    classEvents = new ClassEvents();
+                    this.classes.put(eventClass, classEvents);
+                }
+
+                ++classEvents.count;
+                if (eventFilter == null) {
+                    ++classEvents.withoutFilter;
+                } else if (filterValue != null) {
+                    int[] filterCount = classEvents.filterValues.get(filterValue);
+                    if (filterCount == null) {
+                        classEvents.filterValues.put(filterValue, new int[] {1});
+                    } else {
+                        ++filterCount[0];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the most recent event which was removed from the stack or null if the stack is empty
+     */
+    BeginEvent pop()
+    {
+        if (this.events.isEmpty()) {
+            return null;
+        }
+
+        BeginEvent event = this.events.remove(this.events.size() - 1);
+
+        if (event instanceof AbstractFilterableEvent) {
+            EventFilter eventFilter = ((AbstractFilterableEvent) event).getEventFilter();
+            String filterValue = eventFilter != null ? eventFilter.getFilter() : null;
+
+            for (Class<?> eventClass = event.getClass(); eventClass != AbstractFilterableEvent.class; eventClass =
+                eventClass.getSuperclass()) {
+                ClassEvents classEvents = this.classes.get(eventClass);
+
+                if (--classEvents.count == 0) {
+                    this.classes.remove(eventClass);
+                } else if (eventFilter == null) {
+                    --classEvents.withoutFilter;
+                } else if (filterValue != null) {
+                    int[] filterCount = classEvents.filterValues.get(filterValue);
+                    if (--filterCount[0] == 0) {
+                        classEvents.filterValues.remove(filterValue);
+                    }
+                }
+            }
+        }
+
+        return event;
+    }
+
+    /**
+     * @param event the event to match
+     * @return true if one of the active events is matched by the passed event
+     */
+    boolean isIn(BeginEvent event)
+    {
+        if (this.events.isEmpty()) {
+            return false;
+        }
+
+        Boolean indexedResult = isInIndexed(event);
+        if (indexedResult != null) {
+            return indexedResult;
+        }
+
+        // Fallback on the event own matching
+        for (BeginEvent currentEvent : this.events) {
+            if (event.matches(currentEvent)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param event the event to match
+     * @return true if one of the active events is matched by the passed event, null if the index can't tell
+     */
+    private Boolean isInIndexed(BeginEvent event)
+    {
+        if (isFilterableMatching(event)) {
+            EventFilter eventFilter = ((AbstractFilterableEvent) event).getEventFilter();
+
+            if (eventFilter != null) {
+                ClassEvents classEvents = this.classes.get(event.getClass());
+
+                if (classEvents == null) {
+                    // No active event of the same type
+                    return false;
+                } else if (eventFilter.getClass() == AlwaysMatchingEventFilter.class) {
+                    return true;
+                } else if (eventFilter.getClass() == FixedNameEventFilter.class && eventFilter.getFilter() != null
+                    && classEvents.withoutFilter == 0) {
+                    return classEvents.filterValues.containsKey(eventFilter.getFilter());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param event the event to check
+     * @return true if the passed event relies on {@link AbstractFilterableEvent#matches(Object)}
+     */
+    private boolean isFilterableMatching(BeginEvent event)
+    {
+        if (!(event instanceof AbstractFilterableEvent)) {
+            return false;
+        }
+
+        Boolean matching = this.filterableMatching.get(event.getClass());
+        if (matching == null) {
+            try {
+                matching =
+                    event.getClass().getMethod("matches", Object.class).getDeclaringClass()
+                        == AbstractFilterableEvent.class;
+            } catch (NoSuchMethodException e) {
+                // Can't happen since Event declares this method
+                matching = false;
+            }
+            this.filterableMatching.put(event.getClass(), matching);
+        }
+
+        return matching;
+    }
+}
@@ -21,9 +21,15 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -34,36 +40,69 @@
 import org.xwiki.component.event.ComponentDescriptorAddedEvent;
 import org.xwiki.component.event.ComponentDescriptorEvent;
 import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
+import org.xwiki.component.manager.ComponentLifecycleException;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.observation.AbstractThreadEventListener;
 import org.xwiki.observation.EventListener;
-import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.MonitorableObservationManager;
 import org.xwiki.observation.event.AllEvent;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.TypeEvent;
 
 /**
- * Default implementation of the {@link ObservationManager}.
+ * Default implementation of the {@link org.xwiki.observation.ObservationManager}.
  * <p>
- * This component use synchronized for concurrent protection instead of having
- * {@link java.util.concurrent.ConcurrentHashMap} everywhere because it's more efficient since most of methods access to
- * several maps and generally do enumerations.
+ * The listeners are stored in concurrent maps and each event is passed to the listeners of an immutable dispatch table
+ * created for its class, discarded whenever the listeners change, so that notifying an event does not take any lock.
+ * <p>
+ * The {@link AbstractThreadEventListener}s are registered apart from the other listeners, with the thread they are
+ * associated with, so that only the events notified by this thread have to go through them.
  *
  * @version $Id$
  */
 @Component
 @Singleton
-public class DefaultObservationManager implements ObservationManager
+public class DefaultObservationManager implements MonitorableObservationManager, Disposable
 {
     /**
-     * @see #getListenersByEvent()
+     * An empty dispatch table.
+     */
+    private static final DispatchTable EMPTY_DISPATCH_TABLE =
+        new DispatchTable(Collections.<ListenerDispatch>emptyList());
+
+    /**
+     * How long to wait for the asynchronous listeners to handle their queued events when disposing, in milliseconds.
      */
-    private volatile Map<Class<? extends Event>, Map<String, RegisteredListener>> listenersByEvent;
+    private static final long ASYNC_SHUTDOWN_TIMEOUT = 10000L;
+
+    /**
+     * @see #getGlobalListeners()
+     */
+    private volatile ListenerRegistry globalListeners;
 
     /**
      * @see #getListenersByName()
      */
     private volatile Map<String, EventListener> listenersByName;
 
+    /**
+     * The {@link AbstractThreadEventListener}s indexed by the thread they are associated with.
+     */
+    private final ConcurrentMap<Thread, ListenerRegistry> threadListeners =
+        new ConcurrentHashMap<Thread, ListenerRegistry>();
+
+    /**
+     * @see #getAsyncEventListenerExecutor()
+     */
+    private volatile AsyncEventListenerExecutor asyncExecutor;
+
+    /**
+     * @see #getMetrics()
+     */
+    private volatile ObservationManagerMetrics metrics;
+
     /**
      * Used to find all components implementing {@link EventListener} to register them automatically.
      */
@@ -85,7 +124,7 @@ public class DefaultObservationManager implements ObservationManager
         /**
          * Events of a given type associated with a given listener.
          */
-        private List<Event> events = new ArrayList<Event>();
+        private List<Event> events = new CopyOnWriteArrayList<Event>();
 
         /**
          * Listener associated with the events.
@@ -122,16 +161,226 @@ void removeEvent(Event event)
     }
 
     /**
-     * @return the registered listeners indexed on Event classes so that it's fast to find all the listeners registered
-     *         for a given event, so that {@link #notify} calls execute fast and in a fixed amount a time.
+     * A set of listeners indexed on Event classes so that it's fast to find all the listeners registered for a given
+     * event, so that {@link #notify} calls execute fast and in a fixed amount a time.
      */
-    private Map<Class<? extends Event>, Map<String, RegisteredListener>> getListenersByEvent()
+    private static final class ListenerRegistry
     {
-        if (this.listenersByEvent == null) {
+        /**
+         * The registered listeners indexed on Event classes.
+         */
+        private final Map<Class<? extends Event>, Map<String, RegisteredListener>> listenersByEvent =
+            new ConcurrentHashMap<Class<? extends Event>, Map<String, RegisteredListener>>();
+
+        /**
+         * @see #getDispatchTable(Class)
+         */
+        private volatile Map<Class<? extends Event>, DispatchTable> dispatchTables =
+            new ConcurrentHashMap<Class<? extends Event>, DispatchTable>();
+
+        /**
+         * @param eventListener the listener to register for each of its events
+         */
+        void addListener(EventListener eventListener)
+        {
+            for (Event event : eventListener.getEvents()) {
+                addEvent(eventListener.getName(), eventListener, event);
+            }
+        }
+
+        /**
+         * @param listenerName the name of the listener to unregister
+         */
+        void removeListener(String listenerName)
+        {
+            for (Map.Entry<Class<? extends Event>, Map<String, RegisteredListener>> entry : this.listenersByEvent
+                .entrySet()) {
+                entry.getValue().remove(listenerName);
+                if (entry.getValue().isEmpty()) {
+                    this.listenersByEvent.remove(entry.getKey());
+                }
+            }
+
+            invalidateDispatchTables();
+        }
+
+        /**
+         * @param listenerName the name of the listener
+         * @param eventListener the listener
+         * @param event the event to associate with the listener
+         */
+        void addEvent(String listenerName, EventListener eventListener, Event event)
+        {
+            // Check if this is a new Event type not already registered
+            Map<String, RegisteredListener> eventListeners = this.listenersByEvent.get(event.getClass());
+            if (eventListeners == null) {
+                // No listener registered for this event yet. Create a map to store listeners for this event.
+                eventListeners = new ConcurrentHashMap<String, RegisteredListener>();
+                this.listenersByEvent.put(event.getClass(), eventListeners);
+            }
+
+            RegisteredListener registeredListener = eventListeners.get(listenerName);
+            if (registeredListener == null) {
+                // There is no RegisteredListener yet, create one
+                eventListeners.put(listenerName, new RegisteredListener(eventListener, event));
+            } else {
+                // Add an event to existing RegisteredListener object
+                registeredListener.addEvent(event);
+            }
+
+            invalidateDispatchTables();
+        }
+
+        /**
+         * @param listenerName the name of the listener
+         * @param event the event to dissociate from the listener
+         */
+        void removeEvent(String listenerName, Event event)
+        {
+            Map<String, RegisteredListener> eventListeners = this.listenersByEvent.get(event.getClass());
+            RegisteredListener registeredListener = eventListeners.get(listenerName);
+            if (registeredListener != null) {
+                registeredListener.removeEvent(event);
+
+                invalidateDispatchTables();
+            }
+        }
+
+        /**
+         * @return true if no listener is registered
+         */
+        boolean isEmpty()
+        {
+            return this.listenersByEvent.isEmpty();
+        }
+
+        /**
+         * Get the listeners to call for the passed event type, listeners listening to all events included. The tables
+         * are immutable arrays created on first use and discarded each time the listeners change so that
+         * {@link #notify} does not need any lock or map iteration.
+         *
+         * @param eventClass the type of the event to notify
+         * @return the listeners to call (when one of their events matches) for the passed event type
+         */
+        DispatchTable getDispatchTable(Class<? extends Event> eventClass)
+        {
+            Map<Class<? extends Event>, DispatchTable> tables = this.dispatchTables;
+
+            DispatchTable table = tables.get(eventClass);
+            if (table == null) {
+                table = createDispatchTable(eventClass);
+
+                // If the listeners are modified meanwhile this table ends up in a map which has already been discarded
+                tables.put(eventClass, table);
+            }
+
+            return table;
+        }
+
+        private DispatchTable createDispatchTable(Class<? extends Event> eventClass)
+        {
+            // The events are gathered by listener so that a listener registered for both the event class and one of
+            // its types is still called only once
+            Map<String, EventListener> listeners = new LinkedHashMap<String, EventListener>();
+            Map<String, List<Event>> events = new HashMap<String, List<Event>>();
+
+            // Listeners registered for the event class. Listening to the sub classes of an event requires a TypeEvent.
+            addDispatchEvents(this.listenersByEvent.get(eventClass), null, listeners, events);
+
+            // Listeners registered for a type (class or interface) of the event
+            addDispatchEvents(this.listenersByEvent.get(TypeEvent.class), eventClass, listeners, events);
+
+            List<ListenerDispatch> table = new ArrayList<ListenerDispatch>(listeners.size());
+            for (Map.Entry<String, EventListener> entry : listeners.entrySet()) {
+                table.add(new ListenerDispatch(entry.getValue(), events.get(entry.getKey())));
+            }
+
+            // Listeners listening to all events
+            Map<String, RegisteredListener> allEventRegListeners = this.listenersByEvent.get(AllEvent.class);
+            if (allEventRegListeners != null) {
+                for (RegisteredListener listener : allEventRegListeners.values()) {
+                    table.add(new ListenerDispatch(listener.listener, listener.events));
+                }
+            }
+
+            return table.isEmpty() ? EMPTY_DISPATCH_TABLE : new DispatchTable(table);
+        }
+
+        /**
+         * @param registeredListeners the listeners registered for a given event class
+         * @param typeEventClass the class of the event to notify when the listeners are registered with
+         *            {@link TypeEvent}s, in which case only the {@link TypeEvent}s matching this class are kept
+         * @param listeners the listeners to notify, indexed by name
+         * @param events the events associated with the listeners to notify, indexed by listener name
+         */
+        private void addDispatchEvents(Map<String, RegisteredListener> registeredListeners, Class<?> typeEventClass,
+            Map<String, EventListener> listeners, Map<String, List<Event>> events)
+        {
+            if (registeredListeners != null) {
+                for (Map.Entry<String, RegisteredListener> entry : registeredListeners.entrySet()) {
+                    for (Event event : entry.getValue().events) {
+                        if (typeEventClass == null
+                            || ((TypeEvent) event).getType().isAssignableFrom(typeEventClass)) {
+                            List<Event> listenerEvents = events.get(entry.getKey());
+                            if (listenerEvents == null) {
+                                listenerEvents = new ArrayList<Event>();
+                                events.put(entry.getKey(), listenerEvents);
+                                listeners.put(entry.getKey(), entry.getValue().listener);
+                            }
+                            listenerEvents.add(event);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Discard the dispatch tables, to be called after each modification of the registered listeners.
+         */
+        private void invalidateDispatchTables()
+        {
+            this.dispatchTables = new ConcurrentHashMap<Class<? extends Event>, DispatchTable>();
+        }
+    }
+
+    /**
+     * @return the registered listeners, except the {@link AbstractThreadEventListener}s
+     */
+    private ListenerRegistry getGlobalListeners()
+    {
+        if (this.globalListeners == null) {
             initializeListeners();
         }
 
-        return this.listenersByEvent;
+        return this.globalListeners;
+    }
+
+    /**
+     * @param thread the thread
+     * @param create true if the registry should be created when there is no listener associated with the thread yet
+     * @return the {@link AbstractThreadEventListener}s associated with the passed thread
+     */
+    private ListenerRegistry getThreadListeners(Thread thread, boolean create)
+    {
+        ListenerRegistry listeners = this.threadListeners.get(thread);
+        if (listeners == null && create) {
+            listeners = new ListenerRegistry();
+            this.threadListeners.put(thread, listeners);
+        }
+
+        return listeners;
+    }
+
+    /**
+     * @param eventClass the type of the event to notify
+     * @return the {@link AbstractThreadEventListener}s associated with the current thread to call for the passed event
+     *         type
+     */
+    private DispatchTable getThreadDispatchTable(Class<? extends Event> eventClass)
+    {
+        ListenerRegistry listeners = this.threadListeners.get(Thread.currentThread());
+
+        return listeners != null ? listeners.getDispatchTable(eventClass) : EMPTY_DISPATCH_TABLE;
     }
 
     /**
@@ -148,14 +397,60 @@ private Map<String, EventListener> getListenersByName()
     }
 
     /**
-     * Lazily initialized to allow @Inject {@link ObservationManager} in a listener.
-     *
-     * @todo Should we allow event inheritance ?
+     * @return the executor in charge of the listeners annotated with {@link org.xwiki.observation.AsyncListener},
+     *         created on first use
+     * @since 7.1M1
+     */
+    public AsyncEventListenerExecutor getAsyncEventListenerExecutor()
+    {
+        if (this.asyncExecutor == null) {
+            synchronized (this) {
+                if (this.asyncExecutor == null) {
+                    this.asyncExecutor = new AsyncEventListenerExecutor(this.componentManager, this.logger);
+                }
+            }
+        }
+
+        return this.asyncExecutor;
+    }
+
+    /**
+     * @return the statistics collected about the listeners calls, null if they are not collected
+     * @since 7.1M1
+     */
+    public ObservationManagerMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * @param metrics where to collect statistics about the listeners calls, null to stop collecting them
+     * @since 7.1M1
+     */
+    public void setMetrics(ObservationManagerMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ObservationManagerMetrics getStatistics()
+    {
+        return getMetrics();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled)
+    {
+        setMetrics(enabled ? new ObservationManagerMetrics() : null);
+    }
+
+    /**
+     * Lazily initialized to allow @Inject {@link org.xwiki.observation.ObservationManager} in a listener.
      */
     private synchronized void initializeListeners()
     {
         if (this.listenersByName == null) {
-            this.listenersByEvent = new ConcurrentHashMap<Class<? extends Event>, Map<String, RegisteredListener>>();
+            this.globalListeners = new ListenerRegistry();
             this.listenersByName = new ConcurrentHashMap<String, EventListener>();
 
             // Can be null in unit tests
@@ -194,63 +489,71 @@ public void addListener(EventListener eventListener)
         listeners.put(eventListener.getName(), eventListener);
 
         // For each event defined for this listener, add it to the Event Map.
-        for (Event event : eventListener.getEvents()) {
-            // Check if this is a new Event type not already registered
-            Map<String, RegisteredListener> eventListeners = this.listenersByEvent.get(event.getClass());
-            if (eventListeners == null) {
-                // No listener registered for this event yet. Create a map to store listeners for this event.
-                eventListeners = new ConcurrentHashMap<String, RegisteredListener>();
-                this.listenersByEvent.put(event.getClass(), eventListeners);
-                // There is no RegisteredListener yet, create one
-                eventListeners.put(eventListener.getName(), new RegisteredListener(eventListener, event));
-            } else {
-                // Add an event to existing RegisteredListener object
-                RegisteredListener registeredListener = eventListeners.get(eventListener.getName());
-                if (registeredListener == null) {
-                    eventListeners.put(eventListener.getName(), new RegisteredListener(eventListener, event));
-                } else {
-                    registeredListener.addEvent(event);
-                }
+        if (eventListener instanceof AbstractThreadEventListener) {
+            synchronized (this.threadListeners) {
+                getThreadListeners(((AbstractThreadEventListener) eventListener).getThread(), true).addListener(
+                    eventListener);
             }
+        } else {
+            getGlobalListeners().addListener(eventListener);
         }
     }
 
     @Override
     public void removeListener(String listenerName)
     {
-        getListenersByName().remove(listenerName);
-        for (Map.Entry<Class<? extends Event>, Map<String, RegisteredListener>> entry : this.listenersByEvent
-            .entrySet()) {
-            entry.getValue().remove(listenerName);
-            if (entry.getValue().isEmpty()) {
-                this.listenersByEvent.remove(entry.getKey());
+        EventListener listener = getListenersByName().remove(listenerName);
+
+        if (listener instanceof AbstractThreadEventListener) {
+            synchronized (this.threadListeners) {
+                Thread thread = ((AbstractThreadEventListener) listener).getThread();
+                ListenerRegistry listeners = getThreadListeners(thread, false);
+                if (listeners != null) {
+                    listeners.removeListener(listenerName);
+                    if (listeners.isEmpty()) {
+                        this.threadListeners.remove(thread);
+                    }
+                }
             }
+        } else {
+            getGlobalListeners().removeListener(listenerName);
+        }
+
+        if (this.asyncExecutor != null) {
+            this.asyncExecutor.removeListener(listenerName);
         }
     }
 
     @Override
     public void addEvent(String listenerName, Event event)
     {
-        Map<String, RegisteredListener> listeners = getListenersByEvent().get(event.getClass());
-        if (listeners == null) {
-            listeners = new ConcurrentHashMap<String, RegisteredListener>();
-            this.listenersByEvent.put(event.getClass(), listeners);
-        }
-        RegisteredListener listener = listeners.get(listenerName);
-        if (listener != null) {
-            listener.addEvent(event);
+        EventListener listener = getListener(listenerName);
+
+        if (listener instanceof AbstractThreadEventListener) {
+            synchronized (this.threadListeners) {
+                getThreadListeners(((AbstractThreadEventListener) listener).getThread(), true).addEvent(listenerName,
+                    listener, event);
+            }
         } else {
-            listeners.put(listenerName, new RegisteredListener(this.getListener(listenerName), event));
+            getGlobalListeners().addEvent(listenerName, listener, event);
         }
     }
 
     @Override
     public void removeEvent(String listenerName, Event event)
     {
-        Map<String, RegisteredListener> listeners = getListenersByEvent().get(event.getClass());
-        RegisteredListener listener = listeners.get(listenerName);
-        if (listener != null) {
-            listener.removeEvent(event);
+        EventListener listener = getListener(listenerName);
+
+        if (listener instanceof AbstractThreadEventListener) {
+            synchronized (this.threadListeners) {
+                ListenerRegistry listeners =
+                    getThreadListeners(((AbstractThreadEventListener) listener).getThread(), false);
+                if (listeners != null) {
+                    listeners.removeEvent(listenerName, event);
+                }
+            }
+        } else {
+            getGlobalListeners().removeEvent(listenerName, event);
         }
     }
 
@@ -263,17 +566,9 @@ public EventListener getListener(String listenerName)
     @Override
     public void notify(Event event, Object source, Object data)
     {
-        // Find all listeners for this event
-        Map<String, RegisteredListener> regListeners = getListenersByEvent().get(event.getClass());
-        if (regListeners != null) {
-            notify(regListeners.values(), event, source, data);
-        }
-
-        // Find listener listening all events
-        Map<String, RegisteredListener> allEventRegListeners = this.listenersByEvent.get(AllEvent.class);
-        if (allEventRegListeners != null) {
-            notify(allEventRegListeners.values(), event, source, data);
-        }
+        // Find all listeners for this event (including the ones listening to all events)
+        notify(getGlobalListeners().getDispatchTable(event.getClass()), event, source, data, null);
+        notify(getThreadDispatchTable(event.getClass()), event, source, data, null);
 
         // We want this Observation Manager to be able to handle new Event Listener components being added or removed
         // at runtime. Thus ideally we should make this Manager an Event Listener itself. However in order to avoid
@@ -285,6 +580,35 @@ public void notify(Event event, Object source, Object data)
         }
     }
 
+    @Override
+    public void notify(Collection<? extends Event> events, Object source, Object data)
+    {
+        Map<Class<? extends Event>, DispatchTable[]> tables = new HashMap<Class<? extends Event>, DispatchTable[]>();
+        EventBatch batch = new EventBatch();
+
+        for (Event event : events) {
+            if (event instanceof ComponentDescriptorEvent) {
+                // Might modify the registered listeners
+                notify(event, source, data);
+                tables.clear();
+            } else {
+                DispatchTable[] eventTables = tables.get(event.getClass());
+                if (eventTables == null) {
+                    eventTables =
+                        new DispatchTable[] {getGlobalListeners().getDispatchTable(event.getClass()),
+                            getThreadDispatchTable(event.getClass())};
+                    tables.put(event.getClass(), eventTables);
+                }
+
+                for (DispatchTable table : eventTables) {
+                    notify(table, event, source, data, batch);
+                }
+            }
+        }
+
+        batch.flush(source, data, this.logger, this.metrics);
+    }
+
     /**
      * Call the provided listeners matching the passed Event. The definition of <em>source</em> and <em>data</em> is
      * purely up to the communicating classes.
@@ -293,24 +617,77 @@ public void notify(Event event, Object source, Object data)
      * @param event the event to pass to the registered listeners
      * @param source the source of the event (or <code>null</code>)
      * @param data the additional data related to the event (or <code>null</code>)
+     * @param batch where to add the event for the batch listeners, null when the event is not part of a batch
      */
-    private void notify(Collection<RegisteredListener> listeners, Event event, Object source, Object data)
+    private void notify(DispatchTable listeners, Event event, Object source, Object data,
+        EventBatch batch)
     {
-        for (RegisteredListener listener : listeners) {
-            // Verify that one of the events matches and send the first matching event
-            for (Event listenerEvent : listener.events) {
-                if (listenerEvent.matches(event)) {
-                    try {
-                        listener.listener.onEvent(event, source, data);
-                    } catch (Exception e) {
-                        // protect from bad listeners
-                        this.logger.error("Failed to send event [{}] to listener [{}]", new Object[] { event,
-                            listener.listener, e });
-                    }
+        for (ListenerDispatch listener : listeners.getListeners()) {
+            notify(listener, event, source, data, batch);
+        }
+
+        for (ListenerDispatch listener : listeners.getFilteredListeners(event)) {
+            notify(listener, event, source, data, batch);
+        }
+    }
 
-                    // Only send the first matching event since the listener should only be called once per event.
-                    break;
+    /**
+     * Call the provided listener if one of its events matches the passed Event.
+     *
+     * @param listener the listener to notify
+     * @param event the event to pass to the listener
+     * @param source the source of the event (or <code>null</code>)
+     * @param data the additional data related to the event (or <code>null</code>)
+     * @param batch where to add the event for the batch listeners, null when the event is not part of a batch
+     */
+    private void notify(ListenerDispatch listener, Event event, Object source, Object data,
+        EventBatch batch)
+    {
+        // Verify that one of the events matches and send the first matching event
+        for (Event listenerEvent : listener.getEvents()) {
+            if (listenerEvent.matches(event)) {
+                if (listener.getAsync() != null) {
+                    getAsyncEventListenerExecutor().submit(listener.getListener(), listener.getAsync(), event, source,
+                        data);
+                } else if (batch == null || !batch.add(listener.getListener(), event)) {
+                    call(listener.getListener(), event, source, data);
                 }
+
+                // Only send the first matching event since the listener should only be called once per event.
+                break;
+            }
+        }
+    }
+
+    /**
+     * Synchronously pass an event to a listener.
+     *
+     * @param listener the listener to notify
+     * @param event the event to pass to the listener
+     * @param source the source of the event (or <code>null</code>)
+     * @param data the additional data related to the event (or <code>null</code>)
+     */
+    private void call(EventListener listener, Event event, Object source, Object data)
+    {
+        ObservationManagerMetrics currentMetrics = this.metrics;
+        long start = currentMetrics != null ? System.nanoTime() : 0;
+
+        boolean failed = false;
+        try {
+            listener.onEvent(event, source, data);
+        } catch (Exception e) {
+            failed = true;
+
+            // protect from bad listeners
+            this.logger.error("Failed to send event [{}] to listener [{}]", new Object[] { event, listener, e });
+        }
+
+        if (currentMetrics != null) {
+            long time = System.nanoTime() - start;
+            if (currentMetrics.onCall(listener, event, time, failed)) {
+                this.logger.warn("Listener [{}] took [{}] ms to handle event [{}], more than the [{}] ms budget",
+                    listener.getName(), TimeUnit.NANOSECONDS.toMillis(time), event,
+                    currentMetrics.getLatencyBudget());
             }
         }
     }
@@ -321,6 +698,60 @@ public void notify(Event event, Object source)
         notify(event, source, null);
     }
 
+    @Override
+    public boolean hasListener(Class<? extends Event> eventType)
+    {
+        return !getGlobalListeners().getDispatchTable(eventType).isEmpty()
+            || !getThreadDispatchTable(eventType).isEmpty();
+    }
+
+    @Override
+    public boolean hasListener(Event event)
+    {
+        return hasListener(getGlobalListeners().getDispatchTable(event.getClass()), event)
+            || hasListener(getThreadDispatchTable(event.getClass()), event);
+    }
+
+    /**
+     * @param listeners the listeners to look at
+     * @param event the event
+     * @return true if one of the passed listeners is registered for an event matching the passed event
+     */
+    private boolean hasListener(DispatchTable listeners, Event event)
+    {
+        if (!listeners.isEmpty()) {
+            for (ListenerDispatch listener : listeners.getListeners()) {
+                if (matches(listener, event)) {
+                    return true;
+                }
+            }
+
+            for (ListenerDispatch listener : listeners.getFilteredListeners(event)) {
+                if (matches(listener, event)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param listener the listener
+     * @param event the event
+     * @return true if one of the events of the listener matches the passed event
+     */
+    private boolean matches(ListenerDispatch listener, Event event)
+    {
+        for (Event listenerEvent : listener.getEvents()) {
+            if (listenerEvent.matches(event)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * A Component has been modified (added or removed) and we update our cache of Event Listeners if that Component is
      * an Event Listener.
@@ -392,4 +823,16 @@ private void onEventListenerComponentRemoved(ComponentDescriptorRemovedEvent eve
             removeListener(removedEventListener.getName());
         }
     }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.asyncExecutor != null) {
+            try {
+                this.asyncExecutor.shutdown(ASYNC_SHUTDOWN_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
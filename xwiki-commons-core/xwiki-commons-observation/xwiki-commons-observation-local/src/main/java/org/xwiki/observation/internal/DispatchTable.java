@@ -0,0 +1,199 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.observation.event.AbstractFilterableEvent;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.FilterableEvent;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+import org.xwiki.observation.event.filter.RegexEventFilter;
+
+/**
+ * The listeners to call for a given type of event. The listeners only interested in events with a fixed name or a
+ * name matching a regular expression are indexed by name so that they are not even looked at for the other
+ * events.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+final class DispatchTable
+{
+    /**
+     * The listeners which are not indexed by event filter.
+     */
+    private final ListenerDispatch[] listeners;
+
+    /**
+     * The listeners indexed by event filter, null if there is none.
+     */
+    private final EventFilterIndex<ListenerDispatch> filterIndex;
+
+    /**
+     * @param dispatches the listeners to call for the type of event
+     */
+    DispatchTable(List<ListenerDispatch> dispatches)
+    {
+        EventFilterIndex<ListenerDispatch> index = new EventFilterIndex<ListenerDispatch>();
+        List<ListenerDispatch> unindexed = new ArrayList<ListenerDispatch>(dispatches.size());
+        for (ListenerDispatch dispatch : dispatches) {
+            if (!index(dispatch, index)) {
+                unindexed.add(dispatch);
+            }
+        }
+
+        this.listeners = unindexed.toArray(new ListenerDispatch[unindexed.size()]);
+        this.filterIndex = index.isEmpty() ? null : index;
+    }
+
+    /**
+     * @return the listeners which are not indexed by event filter
+     */
+    ListenerDispatch[] getListeners()
+    {
+        return this.listeners;
+    }
+
+    /**
+     * @return true if there is no listener to call
+     */
+    boolean isEmpty()
+    {
+        return this.listeners.length == 0 && this.filterIndex == null;
+    }
+
+    /**
+     * @param event the event to notify
+     * @return the indexed listeners which might be interested in the passed event
+     */
+    List<ListenerDispatch> getFilteredListeners(Event event)
+    {
+        if (this.filterIndex != null && event instanceof FilterableEvent) {
+            EventFilter eventFilter = ((FilterableEvent) event).getEventFilter();
+            if (eventFilter != null && eventFilter.getFilter() != null) {
+                List<ListenerDispatch> result = new ArrayList<ListenerDispatch>();
+                this.filterIndex.get(eventFilter.getFilter(), result);
+
+                return result;
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Index a listener if all its events have the same type of indexable filter.
+     *
+     * @param dispatch the listener to index
+     * @param index the index
+     * @return false if the listener can't be indexed
+     */
+    private static boolean index(ListenerDispatch dispatch, EventFilterIndex<ListenerDispatch> index)
+    {
+        Class<?> filterClass = null;
+        for (Event event : dispatch.getEvents()) {
+            EventFilter eventFilter = getIndexableFilter(event);
+            if (eventFilter == null || (filterClass != null && eventFilter.getClass() != filterClass)) {
+                return false;
+            }
+            filterClass = eventFilter.getClass();
+        }
+
+        if (filterClass == FixedNameEventFilter.class) {
+            indexNamed(dispatch, index);
+        } else if (filterClass == RegexEventFilter.class) {
+            indexPrefixed(dispatch, index);
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param dispatch the listener to index, all its events having a {@link FixedNameEventFilter}
+     * @param index the index
+     */
+    private static void indexNamed(ListenerDispatch dispatch, EventFilterIndex<ListenerDispatch> index)
+    {
+        // Each name gets the events it can match so that the listener is called only once per event
+        Map<String, List<Event>> eventsByName = new LinkedHashMap<String, List<Event>>();
+        for (Event event : dispatch.getEvents()) {
+            String name = ((FilterableEvent) event).getEventFilter().getFilter();
+            List<Event> events = eventsByName.get(name);
+            if (events == null) {
+                events = new ArrayList<Event>();
+                eventsByName.put(name, events);
+            }
+            events.add(event);
+        }
+        for (Map.Entry<String, List<Event>> entry : eventsByName.entrySet()) {
+            index.addNamed(entry.getKey(), new ListenerDispatch(dispatch.getListener(), entry.getValue()));
+        }
+    }
+
+    /**
+     * @param dispatch the listener to index, all its events having a {@link RegexEventFilter}
+     * @param index the index
+     */
+    private static void indexPrefixed(ListenerDispatch dispatch, EventFilterIndex<ListenerDispatch> index)
+    {
+        // Only one entry per listener so that it's called only once per event
+        String prefix = null;
+        for (Event event : dispatch.getEvents()) {
+            String eventPrefix =
+                EventFilterIndex.getLiteralPrefix(((FilterableEvent) event).getEventFilter().getFilter());
+            prefix = prefix == null ? eventPrefix : StringUtils.getCommonPrefix(prefix, eventPrefix);
+        }
+        index.addPrefixed(prefix, dispatch);
+    }
+
+    /**
+     * @param event an event associated with a listener
+     * @return the filter of the event if the listeners of this event can be indexed by filter, null otherwise
+     */
+    private static EventFilter getIndexableFilter(Event event)
+    {
+        // The index relies on AbstractFilterableEvent matching
+        if (event instanceof AbstractFilterableEvent) {
+            try {
+                if (event.getClass().getMethod("matches", Object.class).getDeclaringClass()
+                    == AbstractFilterableEvent.class) {
+                    EventFilter eventFilter = ((AbstractFilterableEvent) event).getEventFilter();
+                    if (eventFilter != null && (eventFilter.getClass() == FixedNameEventFilter.class
+                        || eventFilter.getClass() == RegexEventFilter.class)) {
+                        return eventFilter;
+                    }
+                }
+            } catch (NoSuchMethodException e) {
+                // Can't happen since Event declares this method
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.xwiki.observation.BatchEventListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * The events of a batch to pass to each {@link BatchEventListener} once all the events of the batch have been
+ * notified.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+class EventBatch
+{
+    /**
+     * The matching events of each batch listener, in the order they were notified.
+     */
+    private final Map<BatchEventListener, List<Event>> events = new LinkedHashMap<>();
+
+    /**
+     * @param listener a listener matching the event
+     * @param event the notified event
+     * @return true if the listener is a {@link BatchEventListener} and the event has been added to its batch, false
+     *         if the event should be passed to the listener right away
+     */
+    boolean add(EventListener listener, Event event)
+    {
+        if (!(listener instanceof BatchEventListener)) {
+            return false;
+        }
+
+        List<Event> listenerEvents = this.events.get(listener);
+        if (listenerEvents == null) {
+            listenerEvents = new ArrayList<>();
+            this.events.put((BatchEventListener) listener, listenerEvents);
+        }
+        listenerEvents.add(event);
+
+        return true;
+    }
+
+    /**
+     * Pass to each batch listener its matching events.
+     *
+     * @param source the source of the events
+     * @param data the additional data related to the events
+     * @param logger the logger used to report listener failures
+     * @param metrics where to collect statistics about the listeners calls, null if they are not collected
+     */
+    void flush(Object source, Object data, Logger logger, ObservationManagerMetrics metrics)
+    {
+        for (Map.Entry<BatchEventListener, List<Event>> entry : this.events.entrySet()) {
+            long start = metrics != null ? System.nanoTime() : 0;
+
+            boolean failed = false;
+            try {
+                entry.getKey().onEvents(entry.getValue(), source, data);
+            } catch (Exception e) {
+                failed = true;
+
+                // protect from bad listeners
+                logger.error("Failed to send events [{}] to listener [{}]",
+                    new Object[] { entry.getValue(), entry.getKey(), e });
+            }
+
+            if (metrics != null) {
+                long time = System.nanoTime() - start;
+                if (metrics.onCall(entry.getKey(), entry.getValue(), time, failed)) {
+                    logger.warn("Listener [{}] took [{}] ms to handle events [{}], more than the [{}] ms budget",
+                        entry.getKey().getName(), TimeUnit.NANOSECONDS.toMillis(time), entry.getValue(),
+                        metrics.getLatencyBudget());
+                }
+            }
+        }
+
+        this.events.clear();
+    }
+}
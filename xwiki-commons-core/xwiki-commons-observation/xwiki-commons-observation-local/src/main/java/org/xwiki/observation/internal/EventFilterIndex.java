@@ -0,0 +1,150 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index values by the event filter value they are interested in so that the values associated with a given filter
+ * value are found without going through all of them. Values can be associated with a fixed name (see
+ * {@link org.xwiki.observation.event.filter.FixedNameEventFilter}) or with a prefix (the literal beginning of a
+ * {@link org.xwiki.observation.event.filter.RegexEventFilter} regular expression).
+ * <p>
+ * The index is not thread safe and is not supposed to be modified once it's been built.
+ *
+ * @param <T> the type of the indexed values
+ * @version $Id$
+ * @since 7.1M1
+ */
+class EventFilterIndex<T>
+{
+    /**
+     * The characters which have a special meaning in a regular expression.
+     */
+    private static final String REGEX_SPECIAL_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    /**
+     * The characters which make the previous character optional in a regular expression.
+     */
+    private static final String REGEX_OPTIONAL_QUANTIFIERS = "?*{";
+
+    private static final class PrefixNode<T>
+    {
+        private final Map<Character, PrefixNode<T>> children = new HashMap<>();
+
+        private final List<T> values = new ArrayList<>();
+    }
+
+    private final Map<String, List<T>> namedValues = new HashMap<>();
+
+    private final PrefixNode<T> prefixedValues = new PrefixNode<>();
+
+    private boolean empty = true;
+
+    /**
+     * @param regex a regular expression
+     * @return the literal text any string matching the passed regular expression starts with
+     */
+    static String getLiteralPrefix(String regex)
+    {
+        // Alternations can't be analyzed without parsing the regular expression
+        if (regex.indexOf('|') != -1) {
+            return "";
+        }
+
+        int index = 0;
+        while (index < regex.length() && REGEX_SPECIAL_CHARACTERS.indexOf(regex.charAt(index)) == -1) {
+            ++index;
+        }
+
+        // The last literal character might be optional
+        if (index > 0 && index < regex.length() && REGEX_OPTIONAL_QUANTIFIERS.indexOf(regex.charAt(index)) != -1) {
+            --index;
+        }
+
+        return regex.substring(0, index);
+    }
+
+    /**
+     * @param name the filter value
+     * @param value the value to associate with the filter value
+     */
+    void addNamed(String name, T value)
+    {
+        List<T> values = this.namedValues.get(name);
+        if (values == null) {
+            values = new ArrayList<>();
+            this.namedValues.put(name, values);
+        }
+        values.add(value);
+
+        this.empty = false;
+    }
+
+    /**
+     * @param prefix the prefix of the filter values
+     * @param value the value to associate with all the filter values starting with the passed prefix
+     */
+    void addPrefixed(String prefix, T value)
+    {
+        PrefixNode<T> node = this.prefixedValues;
+        for (int i = 0; i < prefix.length(); ++i) {
+            PrefixNode<T> child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                child = new PrefixNode<>();
+                node.children.put(prefix.charAt(i), child);
+            }
+            node = child;
+        }
+        node.values.add(value);
+
+        this.empty = false;
+    }
+
+    /**
+     * @return true if no value has been indexed
+     */
+    boolean isEmpty()
+    {
+        return this.empty;
+    }
+
+    /**
+     * @param name the filter value
+     * @param result the list where to add the values associated with the passed filter value
+     */
+    void get(String name, List<T> result)
+    {
+        List<T> values = this.namedValues.get(name);
+        if (values != null) {
+            result.addAll(values);
+        }
+
+        PrefixNode<T> node = this.prefixedValues;
+        for (int i = 0; node != null; ++i) {
+            result.addAll(node.values);
+
+            node = i < name.length() ? node.children.get(name.charAt(i)) : null;
+        }
+    }
+}
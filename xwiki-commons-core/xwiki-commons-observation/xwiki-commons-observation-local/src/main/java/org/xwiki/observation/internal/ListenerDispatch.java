@@ -0,0 +1,85 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.List;
+
+import org.xwiki.observation.AsyncListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * An immutable entry of a dispatch table: a listener and the events it listens to.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+final class ListenerDispatch
+{
+    /**
+     * The listener to notify.
+     */
+    private final EventListener listener;
+
+    /**
+     * The events associated with the listener.
+     */
+    private final Event[] events;
+
+    /**
+     * The asynchronous configuration of the listener or null if it should be called synchronously.
+     */
+    private final AsyncListener async;
+
+    /**
+     * @param listener the listener to notify
+     * @param events the events associated with the listener
+     */
+    ListenerDispatch(EventListener listener, List<Event> events)
+    {
+        this.listener = listener;
+        this.events = events.toArray(new Event[0]);
+        this.async = listener.getClass().getAnnotation(AsyncListener.class);
+    }
+
+    /**
+     * @return the listener to notify
+     */
+    EventListener getListener()
+    {
+        return this.listener;
+    }
+
+    /**
+     * @return the events associated with the listener
+     */
+    Event[] getEvents()
+    {
+        return this.events;
+    }
+
+    /**
+     * @return the asynchronous configuration of the listener or null if it should be called synchronously
+     */
+    AsyncListener getAsync()
+    {
+        return this.async;
+    }
+}
@@ -19,8 +19,6 @@
  */
 package org.xwiki.observation.internal;
 
-import java.util.Stack;
-
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -30,13 +28,14 @@
 import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
 import org.xwiki.observation.AbstractEventListener;
-import org.xwiki.observation.event.AllEvent;
 import org.xwiki.observation.event.BeginEvent;
 import org.xwiki.observation.event.EndEvent;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.TypeEvent;
 
 /**
- * Listen to all events and stack {@link BeginEvent}.
+ * Listen to all {@link BeginEvent}s and {@link EndEvent}s to stack the begin events. It does not listen to all events
+ * so that {@link org.xwiki.observation.ObservationManager#hasListener(Class)} is not always true.
  *
  * @version $Id$
  * @since 3.2M1
@@ -63,19 +62,19 @@ public class ObservationContextListener extends AbstractEventListener
      */
     public ObservationContextListener()
     {
-        super("ObservationContextListener", AllEvent.ALLEVENT);
+        super("ObservationContextListener", new TypeEvent(BeginEvent.class), new TypeEvent(EndEvent.class));
     }
 
     /**
      * @return the events stacked in the execution context
      */
-    private Stack<BeginEvent> getCurrentEvents()
+    private BeginEventStack getCurrentEvents()
     {
-        Stack<BeginEvent> events = null;
+        BeginEventStack events = null;
 
         ExecutionContext context = this.execution.getContext();
         if (context != null) {
-            events = (Stack<BeginEvent>) context.getProperty(DefaultObservationContext.KEY_EVENTS);
+            events = (BeginEventStack) context.getProperty(DefaultObservationContext.KEY_EVENTS);
         }
 
         return events;
@@ -88,10 +87,10 @@ private void pushCurrentEvent(BeginEvent event)
     {
         ExecutionContext context = this.execution.getContext();
         if (context != null) {
-            Stack<BeginEvent> events = (Stack<BeginEvent>) context.getProperty(DefaultObservationContext.KEY_EVENTS);
+            BeginEventStack events = (BeginEventStack) context.getProperty(DefaultObservationContext.KEY_EVENTS);
 
             if (events == null) {
-                events = new Stack<BeginEvent>();
+                events = new BeginEventStack();
                 context.setProperty(DefaultObservationContext.KEY_EVENTS, events);
             }
 
@@ -107,11 +106,9 @@ public void onEvent(Event event, Object source, Object data)
         if (event instanceof BeginEvent) {
             pushCurrentEvent((BeginEvent) event);
         } else if (event instanceof EndEvent) {
-            Stack<BeginEvent> events = getCurrentEvents();
+            BeginEventStack events = getCurrentEvents();
 
-            if (events != null && !events.isEmpty()) {
-                events.pop();
-            } else {
+            if (events == null || events.pop() == null) {
                 this.logger.error("Can't find any begin event corresponding to [{}]", event);
             }
         }
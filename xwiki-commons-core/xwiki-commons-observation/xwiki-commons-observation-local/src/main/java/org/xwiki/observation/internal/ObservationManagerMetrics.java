@@ -0,0 +1,206 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xwiki.observation.BatchEventListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManagerStatistics;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Statistics about the calls made by {@link DefaultObservationManager} to the synchronous listeners (the
+ * {@link BatchEventListener}s included). Collected only
+ * when set with {@link DefaultObservationManager#setMetrics(ObservationManagerMetrics)}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+public class ObservationManagerMetrics implements ObservationManagerStatistics
+{
+    private static final char KEY_SEPARATOR = ':';
+
+    private static class ListenerStatistics
+    {
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong time = new AtomicLong();
+
+        private final AtomicLong maxTime = new AtomicLong();
+
+        private final AtomicLong failureCount = new AtomicLong();
+
+        private final AtomicLong slowCount = new AtomicLong();
+    }
+
+    private final ConcurrentMap<String, ListenerStatistics> statistics = new ConcurrentHashMap<>();
+
+    private volatile long latencyBudget = DEFAULT_LATENCY_BUDGET;
+
+    /**
+     * @param listener the called listener
+     * @param event the event passed to the listener
+     * @param time the time spent in the listener, in nanoseconds
+     * @param failed true if the listener threw an exception
+     * @return true if the listener took more time than the latency budget
+     */
+    boolean onCall(EventListener listener, Event event, long time, boolean failed)
+    {
+        return onCall(listener.getName() + KEY_SEPARATOR + event.getClass().getName(), time, failed);
+    }
+
+    /**
+     * The call is indexed by the class of the events, or by {@link Event} when the batch contains several classes of
+     * events.
+     *
+     * @param listener the called listener
+     * @param events the batch of events passed to the listener
+     * @param time the time spent in the listener, in nanoseconds
+     * @param failed true if the listener threw an exception
+     * @return true if the listener took more time than the latency budget
+     */
+    boolean onCall(BatchEventListener listener, List<Event> events, long time, boolean failed)
+    {
+        Class<?> eventClass = events.get(0).getClass();
+        for (Event event : events) {
+            if (event.getClass() != eventClass) {
+                eventClass = Event.class;
+                break;
+            }
+        }
+
+        return onCall(listener.getName() + KEY_SEPARATOR + eventClass.getName(), time, failed);
+    }
+
+    private boolean onCall(String key, long time, boolean failed)
+    {
+        ListenerStatistics listenerStatistics = this.statistics.get(key);
+        if (listenerStatistics == null) {
+            listenerStatistics = new ListenerStatistics();
+            ListenerStatistics existingStatistics = this.statistics.putIfAbsent(key, listenerStatistics);
+            if (existingStatistics != null) {
+                listenerStatistics = existingStatistics;
+            }
+        }
+
+        listenerStatistics.count.incrementAndGet();
+        listenerStatistics.time.addAndGet(time);
+
+        long max = listenerStatistics.maxTime.get();
+        while (time > max && !listenerStatistics.maxTime.compareAndSet(max, time)) {
+            max = listenerStatistics.maxTime.get();
+        }
+
+        if (failed) {
+            listenerStatistics.failureCount.incrementAndGet();
+        }
+
+        boolean slow = TimeUnit.NANOSECONDS.toMillis(time) > this.latencyBudget;
+        if (slow) {
+            listenerStatistics.slowCount.incrementAndGet();
+        }
+
+        return slow;
+    }
+
+    @Override
+    public long getLatencyBudget()
+    {
+        return this.latencyBudget;
+    }
+
+    @Override
+    public void setLatencyBudget(long latencyBudget)
+    {
+        this.latencyBudget = latencyBudget;
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts()
+    {
+        Map<String, Long> result = new HashMap<>(this.statistics.size());
+        for (Map.Entry<String, ListenerStatistics> entry : this.statistics.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().count.get());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCallTimes()
+    {
+        Map<String, Long> result = new HashMap<>(this.statistics.size());
+        for (Map.Entry<String, ListenerStatistics> entry : this.statistics.entrySet()) {
+            result.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue().time.get()));
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMaxCallTimes()
+    {
+        Map<String, Long> result = new HashMap<>(this.statistics.size());
+        for (Map.Entry<String, ListenerStatistics> entry : this.statistics.entrySet()) {
+            result.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue().maxTime.get()));
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts()
+    {
+        return getNonZeroCounts(false);
+    }
+
+    @Override
+    public Map<String, Long> getSlowCallCounts()
+    {
+        return getNonZeroCounts(true);
+    }
+
+    private Map<String, Long> getNonZeroCounts(boolean slow)
+    {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, ListenerStatistics> entry : this.statistics.entrySet()) {
+            ListenerStatistics listenerStatistics = entry.getValue();
+            long count = slow ? listenerStatistics.slowCount.get() : listenerStatistics.failureCount.get();
+            if (count > 0) {
+                result.put(entry.getKey(), count);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void reset()
+    {
+        this.statistics.clear();
+    }
+}
@@ -24,9 +24,11 @@
 import org.junit.Test;
 import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
+import org.xwiki.observation.event.AbstractFilterableEvent;
 import org.xwiki.observation.event.BeginEvent;
 import org.xwiki.observation.event.EndEvent;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.filter.RegexEventFilter;
 import org.xwiki.observation.internal.DefaultObservationContext;
 import org.xwiki.observation.internal.DefaultObservationManager;
 import org.xwiki.observation.internal.ObservationContextListener;
@@ -43,6 +45,35 @@
  */
 public class ObservationContextTest
 {
+    public static class FilteredBeginEvent extends AbstractFilterableEvent implements BeginEvent
+    {
+        public FilteredBeginEvent()
+        {
+        }
+
+        public FilteredBeginEvent(String name)
+        {
+            super(name);
+        }
+
+        public FilteredBeginEvent(RegexEventFilter filter)
+        {
+            super(filter);
+        }
+    }
+
+    public static class ChildBeginEvent extends FilteredBeginEvent
+    {
+        public ChildBeginEvent(String name)
+        {
+            super(name);
+        }
+    }
+
+    public static class FilteredEndEvent extends AbstractFilterableEvent implements EndEvent
+    {
+    }
+
     @Rule
     public final MockitoComponentMockingRule<ObservationContext> mocker =
         new MockitoComponentMockingRule<ObservationContext>(DefaultObservationContext.class);
@@ -97,4 +128,39 @@ public void test() throws Exception
         Assert.assertFalse(this.mocker.getComponentUnderTest().isIn(beginEvent1));
         Assert.assertFalse(this.mocker.getComponentUnderTest().isIn(beginEvent2));
     }
+
+    @Test
+    public void testFilterableEvents() throws Exception
+    {
+        this.mocker.registerComponent(ObservationContextListener.class);
+        this.mocker.registerComponent(DefaultObservationManager.class);
+
+        ObservationManager manager = this.mocker.getInstance(ObservationManager.class);
+        Execution execution = this.mocker.getInstance(Execution.class);
+        ObservationContext observationContext = this.mocker.getComponentUnderTest();
+
+        when(execution.getContext()).thenReturn(new ExecutionContext());
+
+        manager.notify(new ChildBeginEvent("name1"), null);
+        manager.notify(new FilteredBeginEvent("name2"), null);
+
+        Assert.assertTrue(observationContext.isIn(new FilteredBeginEvent()));
+        Assert.assertTrue(observationContext.isIn(new FilteredBeginEvent("name1")));
+        Assert.assertTrue(observationContext.isIn(new FilteredBeginEvent("name2")));
+        Assert.assertFalse(observationContext.isIn(new FilteredBeginEvent("name3")));
+        Assert.assertTrue(observationContext.isIn(new FilteredBeginEvent(new RegexEventFilter("name\\d"))));
+        Assert.assertFalse(observationContext.isIn(new FilteredBeginEvent(new RegexEventFilter("other"))));
+        Assert.assertTrue(observationContext.isIn(new ChildBeginEvent("name1")));
+        Assert.assertFalse(observationContext.isIn(new ChildBeginEvent("name2")));
+
+        manager.notify(new FilteredEndEvent(), null);
+
+        Assert.assertTrue(observationContext.isIn(new FilteredBeginEvent("name1")));
+        Assert.assertFalse(observationContext.isIn(new FilteredBeginEvent("name2")));
+
+        manager.notify(new FilteredEndEvent(), null);
+
+        Assert.assertFalse(observationContext.isIn(new FilteredBeginEvent()));
+        Assert.assertFalse(observationContext.isIn(new ChildBeginEvent("name1")));
+    }
 }
@@ -25,7 +25,9 @@
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.xwiki.component.descriptor.ComponentDescriptor;
 import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.event.ComponentDescriptorAddedEvent;
 import org.xwiki.component.internal.StackingComponentEventManager;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.observation.event.Event;
@@ -33,7 +35,11 @@
 import org.xwiki.observation.test.TestEventListener;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -94,6 +100,27 @@ public void testRemovedListenerComponent() throws Exception
         Assert.assertNull(this.manager.getListener("mylistener"));
     }
 
+    @Test
+    public void newListenerComponentsInBatch() throws Exception
+    {
+        EventListener addedListener = mock(EventListener.class, "added");
+        when(addedListener.getName()).thenReturn("added");
+        when(addedListener.getEvents()).thenReturn(
+            Arrays.<Event>asList(new ComponentDescriptorAddedEvent(EventListener.class)));
+        this.manager.addListener(addedListener);
+
+        DefaultComponentDescriptor<EventListener> descriptor = new DefaultComponentDescriptor<EventListener>();
+        descriptor.setImplementation(TestEventListener.class);
+        descriptor.setRoleType(EventListener.class);
+        descriptor.setRoleHint("test");
+
+        this.mocker.registerComponents(Arrays.asList(descriptor));
+
+        Assert.assertTrue(this.manager.getListener("test") instanceof TestEventListener);
+        verify(addedListener).onEvent(eq(new ComponentDescriptorAddedEvent(EventListener.class, "test")),
+            same(this.mocker), any(ComponentDescriptor.class));
+    }
+
     public void testInjectObservationManagerInAListener() throws ComponentLookupException, Exception
     {
         TestEventListener listener = this.mocker.getInstance(EventListener.class, "test");
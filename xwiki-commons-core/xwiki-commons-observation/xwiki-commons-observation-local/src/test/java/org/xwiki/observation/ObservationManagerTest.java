@@ -21,24 +21,46 @@
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.slf4j.Logger;
+import org.xwiki.component.event.ComponentDescriptorsAddedEvent;
 import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.observation.AsyncListener.OverflowPolicy;
+import org.xwiki.observation.event.AbstractFilterableEvent;
 import org.xwiki.observation.event.ActionExecutionEvent;
 import org.xwiki.observation.event.AllEvent;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.TypeEvent;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+import org.xwiki.observation.event.filter.RegexEventFilter;
+import org.xwiki.observation.internal.AsyncEventListenerExecutor;
 import org.xwiki.observation.internal.DefaultObservationManager;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -49,6 +71,120 @@
  */
 public class ObservationManagerTest
 {
+    public static class ParentEvent implements Event
+    {
+        @Override
+        public boolean matches(Object otherEvent)
+        {
+            return otherEvent instanceof ParentEvent;
+        }
+    }
+
+    public static class ChildEvent extends ParentEvent
+    {
+    }
+
+    public static class FilteredEvent extends AbstractFilterableEvent
+    {
+        public FilteredEvent()
+        {
+        }
+
+        public FilteredEvent(EventFilter eventFilter)
+        {
+            super(eventFilter);
+        }
+    }
+
+    @AsyncListener
+    public static class AsyncTestListener implements EventListener
+    {
+        private final List<Object> data = new CopyOnWriteArrayList<Object>();
+
+        private final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final CountDownLatch done;
+
+        public AsyncTestListener(int expectedEvents)
+        {
+            this.done = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public String getName()
+        {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public List<Event> getEvents()
+        {
+            return Arrays.<Event>asList(new ParentEvent());
+        }
+
+        @Override
+        public void onEvent(Event event, Object source, Object data)
+        {
+            this.data.add(data);
+            this.threads.add(Thread.currentThread());
+
+            // Block the first event until released
+            if (this.started.getCount() > 0) {
+                this.started.countDown();
+                try {
+                    this.release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            this.done.countDown();
+        }
+
+        public void awaitStarted() throws InterruptedException
+        {
+            Assert.assertTrue(this.started.await(10, TimeUnit.SECONDS));
+        }
+
+        public void release() throws InterruptedException
+        {
+            this.release.countDown();
+
+            Assert.assertTrue(this.done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @AsyncListener(queueSize = 1, overflowPolicy = OverflowPolicy.DISCARD)
+    public static class DiscardingTestListener extends AsyncTestListener
+    {
+        public DiscardingTestListener()
+        {
+            super(2);
+        }
+    }
+
+    @AsyncListener(queueSize = 1, overflowPolicy = OverflowPolicy.CALLER_RUNS)
+    public static class CallerRunsTestListener extends AsyncTestListener
+    {
+        public CallerRunsTestListener()
+        {
+            super(3);
+        }
+    }
+
+    @AsyncListener(propagateContext = true)
+    public static class PropagatingTestListener extends AsyncTestListener
+    {
+        public PropagatingTestListener()
+        {
+            super(1);
+        }
+    }
+
     @Rule
     public final MockitoComponentMockingRule<ObservationManager> mocker =
         new MockitoComponentMockingRule<ObservationManager>(DefaultObservationManager.class);
@@ -235,4 +371,443 @@ public void testRegisterListenerForTwoEventsOfSameType() throws ComponentLookupE
         verify(listener).onEvent(eventMatcher1, "some source", "some data");
         verify(listener).onEvent(eventMatcher2, "some source", "some data");
     }
+
+    /** Verify that listeners modified after a notification are taken into account by the next notifications. */
+    @Test
+    public void testModifyListenersAfterNotify() throws ComponentLookupException
+    {
+        final EventListener listener1 = mock(EventListener.class, "listener1");
+        final EventListener listener2 = mock(EventListener.class, "listener2");
+        final Event event = mock(Event.class, "event");
+        final Event otherEvent = mock(Event.class, "other");
+
+        when(listener1.getName()).thenReturn("listener 1");
+        when(listener2.getName()).thenReturn("listener 2");
+        when(listener1.getEvents()).thenReturn(Arrays.asList(event));
+        when(listener2.getEvents()).thenReturn(Arrays.asList(AllEvent.ALLEVENT));
+        when(event.matches(event)).thenReturn(true);
+        when(otherEvent.matches(event)).thenReturn(true);
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+
+        observationManager.addListener(listener1);
+        observationManager.notify(event, null);
+        verify(listener1).onEvent(event, null, null);
+
+        // New listener
+        observationManager.addListener(listener2);
+        observationManager.notify(event, null);
+        verify(listener1, Mockito.times(2)).onEvent(event, null, null);
+        verify(listener2).onEvent(event, null, null);
+
+        // Removed event
+        observationManager.removeEvent("listener 1", event);
+        observationManager.notify(event, null);
+        verify(listener1, Mockito.times(2)).onEvent(event, null, null);
+
+        // Added event
+        observationManager.addEvent("listener 1", otherEvent);
+        observationManager.notify(event, null);
+        verify(listener1, Mockito.times(3)).onEvent(event, null, null);
+
+        // Removed listener
+        observationManager.removeListener("listener 2");
+        observationManager.notify(event, null);
+        verify(listener2, Mockito.times(3)).onEvent(event, null, null);
+    }
+
+    /** Verify that a listener registered for a super type of an event receives it. */
+    @Test
+    public void testNotifyListenersOfEventSuperTypes() throws ComponentLookupException
+    {
+        final EventListener classListener = mock(EventListener.class, "class");
+        final EventListener superClassListener = mock(EventListener.class, "superclass");
+        final EventListener typeListener = mock(EventListener.class, "type");
+        final EventListener otherTypeListener = mock(EventListener.class, "othertype");
+
+        when(classListener.getName()).thenReturn("class");
+        when(superClassListener.getName()).thenReturn("superclass");
+        when(typeListener.getName()).thenReturn("type");
+        when(otherTypeListener.getName()).thenReturn("othertype");
+        // Registered for the super class only, should not receive the sub classes
+        when(classListener.getEvents()).thenReturn(Arrays.<Event>asList(new ParentEvent()));
+        // Registered for both the class and its super class type, should still be called only once
+        when(superClassListener.getEvents()).thenReturn(
+            Arrays.<Event>asList(new TypeEvent(ParentEvent.class), new ChildEvent()));
+        when(typeListener.getEvents()).thenReturn(Arrays.<Event>asList(new TypeEvent(Event.class)));
+        when(otherTypeListener.getEvents()).thenReturn(Arrays.<Event>asList(new TypeEvent(AllEvent.class)));
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(classListener);
+        observationManager.addListener(superClassListener);
+        observationManager.addListener(typeListener);
+        observationManager.addListener(otherTypeListener);
+
+        ChildEvent childEvent = new ChildEvent();
+        observationManager.notify(childEvent, null);
+        verify(classListener, never()).onEvent(childEvent, null, null);
+        verify(superClassListener).onEvent(childEvent, null, null);
+        verify(typeListener).onEvent(childEvent, null, null);
+        verify(otherTypeListener, never()).onEvent(any(Event.class), any(), any());
+
+        ParentEvent parentEvent = new ParentEvent();
+        observationManager.notify(parentEvent, null);
+        verify(classListener).onEvent(parentEvent, null, null);
+        verify(superClassListener).onEvent(parentEvent, null, null);
+        verify(typeListener).onEvent(parentEvent, null, null);
+    }
+
+    /** Verify that a type event can be removed from a listener using an equal instance. */
+    @Test
+    public void testRemoveTypeEvent() throws ComponentLookupException
+    {
+        final EventListener listener = mock(EventListener.class);
+        when(listener.getName()).thenReturn("mylistener");
+        when(listener.getEvents()).thenReturn(Arrays.<Event>asList(new TypeEvent(ParentEvent.class)));
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+
+        ChildEvent event = new ChildEvent();
+        observationManager.notify(event, null);
+        verify(listener).onEvent(event, null, null);
+
+        observationManager.removeEvent("mylistener", new TypeEvent(ParentEvent.class));
+        observationManager.notify(event, null);
+        verify(listener).onEvent(event, null, null);
+        Assert.assertFalse(observationManager.hasListener(ChildEvent.class));
+    }
+
+    private AsyncEventListenerExecutor getAsyncExecutor() throws ComponentLookupException
+    {
+        return ((DefaultObservationManager) this.mocker.getComponentUnderTest()).getAsyncEventListenerExecutor();
+    }
+
+    /** Verify that an asynchronous listener receives the events in order in another thread. */
+    @Test
+    public void testNotifyAsyncListener() throws Exception
+    {
+        AsyncTestListener listener = new AsyncTestListener(3);
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+
+        observationManager.notify(new ParentEvent(), null, 1);
+        listener.awaitStarted();
+        observationManager.notify(new ParentEvent(), null, 2);
+        observationManager.notify(new ParentEvent(), null, 3);
+        Assert.assertEquals(Collections.singletonMap(listener.getName(), 2), getAsyncExecutor().getQueueSizes());
+
+        listener.release();
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3), listener.data);
+        Assert.assertFalse(listener.threads.contains(Thread.currentThread()));
+    }
+
+    /** Verify that the events are discarded when the queue of the listener is full. */
+    @Test
+    public void testNotifyAsyncListenerWithFullQueueAndDiscardPolicy() throws Exception
+    {
+        AsyncTestListener listener = new DiscardingTestListener();
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+
+        observationManager.notify(new ParentEvent(), null, 1);
+        listener.awaitStarted();
+        observationManager.notify(new ParentEvent(), null, 2);
+        observationManager.notify(new ParentEvent(), null, 3);
+        Assert.assertEquals(Collections.singletonMap(listener.getName(), 1L),
+            getAsyncExecutor().getDiscardedEvents());
+
+        listener.release();
+
+        Assert.assertEquals(Arrays.asList(1, 2), listener.data);
+    }
+
+    /** Verify that the events are passed in the notifying thread when the queue of the listener is full. */
+    @Test
+    public void testNotifyAsyncListenerWithFullQueueAndCallerRunsPolicy() throws Exception
+    {
+        AsyncTestListener listener = new CallerRunsTestListener();
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+
+        observationManager.notify(new ParentEvent(), null, 1);
+        listener.awaitStarted();
+        observationManager.notify(new ParentEvent(), null, 2);
+        observationManager.notify(new ParentEvent(), null, 3);
+        Assert.assertEquals(Arrays.asList(1, 3), listener.data);
+        Assert.assertSame(Thread.currentThread(), listener.threads.get(1));
+
+        listener.release();
+
+        Assert.assertEquals(Arrays.asList(1, 3, 2), listener.data);
+        Assert.assertTrue(getAsyncExecutor().getDiscardedEvents().isEmpty());
+    }
+
+    /** Verify the execution context used to call asynchronous listeners. */
+    @Test
+    public void testNotifyAsyncListenerExecutionContext() throws Exception
+    {
+        Execution execution = this.mocker.registerMockComponent(Execution.class);
+        ExecutionContextManager executionContextManager =
+            this.mocker.registerMockComponent(ExecutionContextManager.class);
+
+        ExecutionContext context = new ExecutionContext();
+        context.newProperty("shared").shareable().initial("shared value").declare();
+        context.newProperty("inherited").inherited().initial("inherited value").declare();
+        context.setProperty("other", "other value");
+        when(execution.getContext()).thenReturn(context);
+
+        AsyncTestListener propagatingListener = new PropagatingTestListener();
+        AsyncTestListener listener = new AsyncTestListener(1);
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+
+        observationManager.addListener(propagatingListener);
+        observationManager.notify(new ParentEvent(), null);
+        propagatingListener.release();
+        ArgumentCaptor<ExecutionContext> contextCaptor = ArgumentCaptor.forClass(ExecutionContext.class);
+        verify(executionContextManager, timeout(10000)).initialize(contextCaptor.capture());
+        // Only the properties which are cheap to copy are copied by the notifying thread
+        ExecutionContext propagatedContext = contextCaptor.getValue();
+        Assert.assertEquals("shared value", propagatedContext.getProperty("shared"));
+        Assert.assertEquals("inherited value", propagatedContext.getProperty("inherited"));
+        Assert.assertFalse(propagatedContext.hasProperty("other"));
+        verify(executionContextManager, never()).clone(any(ExecutionContext.class));
+        observationManager.removeListener(propagatingListener.getName());
+
+        observationManager.addListener(listener);
+        observationManager.notify(new ParentEvent(), null);
+        listener.release();
+        verify(executionContextManager, timeout(10000).times(2)).initialize(any(ExecutionContext.class));
+        verify(execution, timeout(10000).times(2)).removeContext();
+    }
+
+    /** Verify that the asynchronous listeners don't receive events anymore once the manager is disposed. */
+    @Test
+    public void testDisposeWithAsyncListener() throws Exception
+    {
+        AsyncTestListener listener = new AsyncTestListener(1);
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+
+        observationManager.notify(new ParentEvent(), null, 1);
+        listener.release();
+
+        ((Disposable) observationManager).dispose();
+
+        observationManager.notify(new ParentEvent(), null, 2);
+        Assert.assertEquals(Arrays.asList(1), listener.data);
+        Assert.assertEquals(Collections.singletonMap(listener.getName(), 1), getAsyncExecutor().getQueueSizes());
+
+        observationManager.removeListener(listener.getName());
+        Assert.assertTrue(getAsyncExecutor().getQueueSizes().isEmpty());
+    }
+
+    /** Verify that the listeners associated with a thread only receive the events of this thread. */
+    @Test
+    public void testNotifyThreadListeners() throws ComponentLookupException
+    {
+        final EventListener listener1 = mock(EventListener.class, "listener1");
+        final EventListener listener2 = mock(EventListener.class, "listener2");
+        final Event event = mock(Event.class);
+
+        when(listener1.getName()).thenReturn("listener 1");
+        when(listener2.getName()).thenReturn("listener 2");
+        when(listener1.getEvents()).thenReturn(Arrays.asList(event));
+        when(listener2.getEvents()).thenReturn(Arrays.asList(event));
+        when(event.matches(event)).thenReturn(true);
+
+        EventListener threadListener = new WrappedThreadEventListener(listener1);
+        EventListener otherThreadListener = spy(new WrappedThreadEventListener(listener2, new Thread()));
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(threadListener);
+        observationManager.addListener(otherThreadListener);
+        Assert.assertSame(otherThreadListener, observationManager.getListener("listener 2"));
+
+        observationManager.notify(event, null);
+        verify(listener1).onEvent(event, null, null);
+        // Not even asked to filter the event
+        verify(otherThreadListener, never()).onEvent(any(Event.class), any(), any());
+
+        observationManager.removeEvent("listener 1", event);
+        observationManager.notify(event, null);
+        verify(listener1).onEvent(event, null, null);
+
+        observationManager.addEvent("listener 1", event);
+        observationManager.notify(event, null);
+        verify(listener1, Mockito.times(2)).onEvent(event, null, null);
+
+        observationManager.removeListener("listener 1");
+        observationManager.removeListener("listener 2");
+        observationManager.notify(event, null);
+        verify(listener1, Mockito.times(2)).onEvent(event, null, null);
+        Assert.assertNull(observationManager.getListener("listener 2"));
+    }
+
+    @Test
+    public void testHasListener() throws ComponentLookupException
+    {
+        final EventListener listener = mock(EventListener.class, "listener");
+        final EventListener allListener = mock(EventListener.class, "all");
+        final EventListener otherThreadListener = mock(EventListener.class, "otherthread");
+
+        when(listener.getName()).thenReturn("listener");
+        when(allListener.getName()).thenReturn("all");
+        when(otherThreadListener.getName()).thenReturn("otherthread");
+        when(listener.getEvents()).thenReturn(Arrays.<Event>asList(new ParentEvent()));
+        when(allListener.getEvents()).thenReturn(Arrays.<Event>asList(AllEvent.ALLEVENT));
+        when(otherThreadListener.getEvents()).thenReturn(Arrays.<Event>asList(new ActionExecutionEvent("action")));
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        Assert.assertFalse(observationManager.hasListener(ParentEvent.class));
+
+        observationManager.addListener(listener);
+        observationManager.addListener(new WrappedThreadEventListener(otherThreadListener, new Thread()));
+        Assert.assertTrue(observationManager.hasListener(ParentEvent.class));
+        Assert.assertFalse(observationManager.hasListener(ChildEvent.class));
+        Assert.assertFalse(observationManager.hasListener(ActionExecutionEvent.class));
+
+        observationManager.addListener(allListener);
+        Assert.assertTrue(observationManager.hasListener(ActionExecutionEvent.class));
+        Assert.assertTrue(observationManager.hasListener(ComponentDescriptorsAddedEvent.class));
+    }
+
+    @Test
+    public void testHasListenerForEvent() throws ComponentLookupException
+    {
+        final EventListener fixedListener = mock(EventListener.class, "fixed");
+        final EventListener regexListener = mock(EventListener.class, "regex");
+        final EventListener threadListener = mock(EventListener.class, "thread");
+
+        when(fixedListener.getName()).thenReturn("fixed");
+        when(regexListener.getName()).thenReturn("regex");
+        when(threadListener.getName()).thenReturn("thread");
+        when(fixedListener.getEvents()).thenReturn(
+            Arrays.<Event>asList(new FilteredEvent(new FixedNameEventFilter("Space.Page"))));
+        when(threadListener.getEvents()).thenReturn(
+            Arrays.<Event>asList(new FilteredEvent(new FixedNameEventFilter("Space.Other"))));
+        when(regexListener.getEvents()).thenReturn(
+            Arrays.<Event>asList(new FilteredEvent(new RegexEventFilter("Other\\..*"))));
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        Assert.assertFalse(observationManager.hasListener(new FilteredEvent(new FixedNameEventFilter("Space.Page"))));
+
+        observationManager.addListener(fixedListener);
+        observationManager.addListener(regexListener);
+        Assert.assertTrue(observationManager.hasListener(new FilteredEvent(new FixedNameEventFilter("Space.Page"))));
+        Assert.assertTrue(observationManager.hasListener(new FilteredEvent(new FixedNameEventFilter("Other.Page"))));
+        Assert.assertFalse(observationManager.hasListener(new FilteredEvent(new FixedNameEventFilter("Space.Other"))));
+        Assert.assertTrue(observationManager.hasListener(FilteredEvent.class));
+
+        observationManager.addListener(new WrappedThreadEventListener(threadListener, Thread.currentThread()));
+        Assert.assertTrue(observationManager.hasListener(new FilteredEvent(new FixedNameEventFilter("Space.Other"))));
+
+        // Listeners which are not indexed by filter
+        Assert.assertFalse(observationManager.hasListener(new ParentEvent()));
+        when(fixedListener.getEvents()).thenReturn(Arrays.<Event>asList(new ParentEvent()));
+        observationManager.addListener(fixedListener);
+        Assert.assertTrue(observationManager.hasListener(new ParentEvent()));
+        Assert.assertFalse(observationManager.hasListener(new FilteredEvent(new FixedNameEventFilter("Space.Page"))));
+    }
+
+    @Test
+    public void testNotifyFilteredListeners() throws ComponentLookupException
+    {
+        final EventListener fixedListener = mock(EventListener.class, "fixed");
+        final EventListener regexListener = mock(EventListener.class, "regex");
+        final EventListener alternationListener = mock(EventListener.class, "alternation");
+        final EventListener allListener = mock(EventListener.class, "all");
+
+        when(fixedListener.getName()).thenReturn("fixed");
+        when(regexListener.getName()).thenReturn("regex");
+        when(alternationListener.getName()).thenReturn("alternation");
+        when(allListener.getName()).thenReturn("all");
+        // Registered twice for the same name, should still be called only once
+        when(fixedListener.getEvents()).thenReturn(Arrays.<Event>asList(
+            new FilteredEvent(new FixedNameEventFilter("Space.Page")),
+            new FilteredEvent(new FixedNameEventFilter("Space.Page")),
+            new FilteredEvent(new FixedNameEventFilter("Space.Other"))));
+        when(regexListener.getEvents()).thenReturn(Arrays.<Event>asList(
+            new FilteredEvent(new RegexEventFilter("Space\\..*")),
+            new FilteredEvent(new RegexEventFilter("Spaces?\\.Page"))));
+        when(alternationListener.getEvents()).thenReturn(Arrays.<Event>asList(
+            new FilteredEvent(new RegexEventFilter("Other\\..*|Space\\.Page"))));
+        when(allListener.getEvents()).thenReturn(Arrays.<Event>asList(new FilteredEvent()));
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(fixedListener);
+        observationManager.addListener(regexListener);
+        observationManager.addListener(alternationListener);
+        observationManager.addListener(allListener);
+
+        Event pageEvent = new FilteredEvent(new FixedNameEventFilter("Space.Page"));
+        observationManager.notify(pageEvent, null);
+        verify(fixedListener).onEvent(pageEvent, null, null);
+        verify(regexListener).onEvent(pageEvent, null, null);
+        verify(alternationListener).onEvent(pageEvent, null, null);
+        verify(allListener).onEvent(pageEvent, null, null);
+
+        Event otherSpaceEvent = new FilteredEvent(new FixedNameEventFilter("Other.Page"));
+        observationManager.notify(otherSpaceEvent, null);
+        verify(fixedListener, never()).onEvent(same(otherSpaceEvent), any(), any());
+        verify(regexListener, never()).onEvent(same(otherSpaceEvent), any(), any());
+        verify(alternationListener).onEvent(otherSpaceEvent, null, null);
+        verify(allListener).onEvent(otherSpaceEvent, null, null);
+
+        Event prefixEvent = new FilteredEvent(new FixedNameEventFilter("Space"));
+        observationManager.notify(prefixEvent, null);
+        verify(fixedListener, never()).onEvent(same(prefixEvent), any(), any());
+        verify(regexListener, never()).onEvent(same(prefixEvent), any(), any());
+        verify(allListener).onEvent(prefixEvent, null, null);
+
+        Event noFilterEvent = new FilteredEvent(null);
+        observationManager.notify(noFilterEvent, null);
+        verify(fixedListener, never()).onEvent(same(noFilterEvent), any(), any());
+        verify(regexListener, never()).onEvent(same(noFilterEvent), any(), any());
+    }
+
+    @Test
+    public void testNotifyBatch() throws ComponentLookupException
+    {
+        final EventListener listener = mock(EventListener.class, "listener");
+        final BatchEventListener batchListener = mock(BatchEventListener.class, "batch");
+        final BatchEventListener failingBatchListener = mock(BatchEventListener.class, "failing");
+
+        when(listener.getName()).thenReturn("listener");
+        when(batchListener.getName()).thenReturn("batch");
+        when(failingBatchListener.getName()).thenReturn("failing");
+        when(listener.getEvents()).thenReturn(Arrays.<Event>asList(new TypeEvent(ParentEvent.class)));
+        when(batchListener.getEvents()).thenReturn(Arrays.<Event>asList(new TypeEvent(ParentEvent.class)));
+        when(failingBatchListener.getEvents()).thenReturn(Arrays.<Event>asList(AllEvent.ALLEVENT));
+        doThrow(new RuntimeException("error")).when(failingBatchListener).onEvents(any(List.class), any(), any());
+
+        ObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+        observationManager.addListener(batchListener);
+        observationManager.addListener(failingBatchListener);
+
+        Event parentEvent = new ParentEvent();
+        Event otherEvent = new FilteredEvent();
+        Event childEvent = new ChildEvent();
+        observationManager.notify(Arrays.asList(parentEvent, otherEvent, childEvent), "source", "data");
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onEvent(parentEvent, "source", "data");
+        inOrder.verify(listener).onEvent(childEvent, "source", "data");
+        verify(batchListener).onEvents(Arrays.asList(parentEvent, childEvent), "source", "data");
+        verify(batchListener, never()).onEvent(any(Event.class), any(), any());
+        verify(failingBatchListener).onEvents(Arrays.asList(parentEvent, otherEvent, childEvent), "source", "data");
+        verify(this.mocker.getMockedLogger()).error(Matchers.eq("Failed to send events [{}] to listener [{}]"),
+            Matchers.anyObject(), same(failingBatchListener), Matchers.any(RuntimeException.class));
+
+        // Events notified one by one are still passed one by one
+        observationManager.notify(parentEvent, "source", "data");
+        verify(batchListener).onEvent(parentEvent, "source", "data");
+    }
 }
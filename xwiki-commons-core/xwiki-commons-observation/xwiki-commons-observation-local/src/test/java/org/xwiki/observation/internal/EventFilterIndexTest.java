@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link EventFilterIndex}.
+ *
+ * @version $Id$
+ */
+public class EventFilterIndexTest
+{
+    private List<String> get(EventFilterIndex<String> index, String name)
+    {
+        List<String> result = new ArrayList<>();
+        index.get(name, result);
+
+        return result;
+    }
+
+    @Test
+    public void getLiteralPrefix()
+    {
+        Assert.assertEquals("Space", EventFilterIndex.getLiteralPrefix("Space.Page"));
+        Assert.assertEquals("Space", EventFilterIndex.getLiteralPrefix("Space\\..*"));
+        Assert.assertEquals("SpacePage", EventFilterIndex.getLiteralPrefix("SpacePage"));
+        Assert.assertEquals("Space", EventFilterIndex.getLiteralPrefix("Spaces?\\..*"));
+        Assert.assertEquals("Spac", EventFilterIndex.getLiteralPrefix("Space{0,1}"));
+        Assert.assertEquals("Space", EventFilterIndex.getLiteralPrefix("Space+"));
+        Assert.assertEquals("", EventFilterIndex.getLiteralPrefix("Space|Other"));
+        Assert.assertEquals("", EventFilterIndex.getLiteralPrefix("(?i)space"));
+        Assert.assertEquals("", EventFilterIndex.getLiteralPrefix(".*"));
+    }
+
+    @Test
+    public void get()
+    {
+        EventFilterIndex<String> index = new EventFilterIndex<>();
+        Assert.assertTrue(index.isEmpty());
+
+        index.addNamed("Space.Page", "named");
+        index.addNamed("Space.Page", "named2");
+        index.addPrefixed("Space", "prefixed");
+        index.addPrefixed("Space.P", "prefixed2");
+        index.addPrefixed("", "all");
+        Assert.assertFalse(index.isEmpty());
+
+        Assert.assertEquals(Arrays.asList("named", "named2", "all", "prefixed", "prefixed2"),
+            get(index, "Space.Page"));
+        Assert.assertEquals(Arrays.asList("all", "prefixed"), get(index, "Space.Other"));
+        Assert.assertEquals(Arrays.asList("all", "prefixed"), get(index, "Space"));
+        Assert.assertEquals(Arrays.asList("all"), get(index, "Spac"));
+        Assert.assertEquals(Arrays.asList("all"), get(index, "Other"));
+    }
+}
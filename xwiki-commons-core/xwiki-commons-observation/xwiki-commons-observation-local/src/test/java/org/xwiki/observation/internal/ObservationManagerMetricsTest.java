@@ -0,0 +1,132 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xwiki.observation.BatchEventListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.ActionExecutionEvent;
+import org.xwiki.observation.event.Event;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ObservationManagerMetrics}.
+ *
+ * @version $Id$
+ */
+public class ObservationManagerMetricsTest
+{
+    private static final String KEY = "listener:" + ActionExecutionEvent.class.getName();
+
+    @Rule
+    public final MockitoComponentMockingRule<DefaultObservationManager> mocker =
+        new MockitoComponentMockingRule<DefaultObservationManager>(DefaultObservationManager.class);
+
+    @Test
+    public void collectMetrics() throws Exception
+    {
+        EventListener listener = mock(EventListener.class);
+        when(listener.getName()).thenReturn("listener");
+        when(listener.getEvents()).thenReturn(Arrays.<Event>asList(new ActionExecutionEvent("action")));
+
+        DefaultObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+
+        ObservationManagerMetrics metrics = new ObservationManagerMetrics();
+        Assert.assertEquals(ObservationManagerMetrics.DEFAULT_LATENCY_BUDGET, metrics.getLatencyBudget());
+        observationManager.setMetrics(metrics);
+        Assert.assertSame(metrics, observationManager.getMetrics());
+
+        Event event = new ActionExecutionEvent("action");
+        observationManager.notify(event, null);
+        observationManager.notify(event, null);
+
+        Assert.assertEquals(Collections.singletonMap(KEY, 2L), metrics.getCallCounts());
+        Assert.assertTrue(metrics.getCallTimes().containsKey(KEY));
+        Assert.assertTrue(metrics.getMaxCallTimes().containsKey(KEY));
+        Assert.assertTrue(metrics.getFailureCounts().isEmpty());
+        Assert.assertTrue(metrics.getSlowCallCounts().isEmpty());
+
+        // Failing listener
+        doThrow(new RuntimeException("error")).when(listener).onEvent(event, null, null);
+        observationManager.notify(event, null);
+        Assert.assertEquals(Collections.singletonMap(KEY, 1L), metrics.getFailureCounts());
+
+        // Slow listener
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                Thread.sleep(10);
+
+                return null;
+            }
+        }).when(listener).onEvent(event, null, null);
+        metrics.setLatencyBudget(1);
+        observationManager.notify(event, null);
+        Assert.assertEquals(Collections.singletonMap(KEY, 1L), metrics.getSlowCallCounts());
+        verify(this.mocker.getMockedLogger()).warn(Matchers.contains("ms budget"), Matchers.eq("listener"),
+            Matchers.anyObject(), Matchers.same(event), Matchers.eq(1L));
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getCallCounts().isEmpty());
+
+        // Not collected anymore
+        observationManager.setMetrics(null);
+        observationManager.notify(event, null);
+        Assert.assertTrue(metrics.getCallCounts().isEmpty());
+    }
+
+    @Test
+    public void collectBatchMetrics() throws Exception
+    {
+        BatchEventListener listener = mock(BatchEventListener.class);
+        when(listener.getName()).thenReturn("listener");
+        when(listener.getEvents()).thenReturn(Arrays.<Event>asList(new ActionExecutionEvent("action")));
+
+        DefaultObservationManager observationManager = this.mocker.getComponentUnderTest();
+        observationManager.addListener(listener);
+
+        ObservationManagerMetrics metrics = new ObservationManagerMetrics();
+        observationManager.setMetrics(metrics);
+
+        Event event = new ActionExecutionEvent("action");
+        observationManager.notify(Arrays.asList(event, event), null, null);
+
+        verify(listener).onEvents(Arrays.asList(event, event), null, null);
+        Assert.assertEquals(Collections.singletonMap(KEY, 1L), metrics.getCallCounts());
+        Assert.assertTrue(metrics.getCallTimes().containsKey(KEY));
+    }
+}
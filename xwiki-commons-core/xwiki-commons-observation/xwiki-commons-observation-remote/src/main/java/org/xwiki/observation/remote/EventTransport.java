@@ -0,0 +1,58 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote;
+
+import java.io.IOException;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Send messages to the other instances of the cluster and receive theirs. The transport used is selected with the
+ * {@code observation.remote.transport} configuration property which contains the hint of the component to use.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Role
+@Unstable
+public interface EventTransport
+{
+    /**
+     * Start sending and receiving messages.
+     *
+     * @param receiver the receiver of the messages sent by the other instances
+     * @throws IOException when failing to start the transport
+     */
+    void start(EventReceiver receiver) throws IOException;
+
+    /**
+     * Send a message to all the other instances.
+     *
+     * @param message the message to send
+     * @throws IOException when failing to send the message
+     */
+    void send(byte[] message) throws IOException;
+
+    /**
+     * Stop sending and receiving messages.
+     */
+    void stop();
+}
@@ -0,0 +1,48 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote;
+
+import java.io.Serializable;
+
+import org.xwiki.observation.event.Event;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Marks the events which have to be propagated to the other instances of the cluster.
+ * <p>
+ * The event is serialized, and for security reasons only a limited set of classes is accepted in the messages
+ * exchanged by the instances: the {@link RemoteEvent} implementations (and their super classes), the enums, the event
+ * filters of the observation API ({@link org.xwiki.observation.event.filter.AlwaysMatchingEventFilter},
+ * {@link org.xwiki.observation.event.filter.FixedNameEventFilter} and
+ * {@link org.xwiki.observation.event.filter.RegexEventFilter}), the primitive types and their wrappers,
+ * {@link String}, {@link java.math.BigInteger}, {@link java.math.BigDecimal}, {@link java.util.Date}, the common
+ * {@link java.util.List}, {@link java.util.Set} and {@link java.util.Map} implementations of the JDK and the arrays of
+ * these types. All the fields of the event must be of one of these types, otherwise the event is not propagated.
+ * <p>
+ * The source and the data notified with the event are propagated only when they are of one of these types, otherwise
+ * the other instances receive <code>null</code>.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Unstable
+public interface RemoteEvent extends Event, Serializable
+{
+}
@@ -0,0 +1,54 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Configuration of the propagation of the {@link RemoteEvent}s to the other instances of the cluster.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Role
+@Unstable
+public interface RemoteObservationConfiguration
+{
+    /**
+     * @return true if the events have to be propagated to the other instances
+     */
+    boolean isEnabled();
+
+    /**
+     * @return the hint of the {@link EventTransport} component to use
+     */
+    String getTransport();
+
+    /**
+     * @return the maximum number of events to send in a single message
+     */
+    int getBatchSize();
+
+    /**
+     * @return how long to wait for more events to send in the same message, in milliseconds
+     */
+    long getFlushDelay();
+}
@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.observation.remote.RemoteObservationConfiguration;
+
+/**
+ * Default implementation of {@link RemoteObservationConfiguration}.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Component
+@Singleton
+public class DefaultRemoteObservationConfiguration implements RemoteObservationConfiguration
+{
+    /**
+     * Prefix for configuration keys for the remote observation module.
+     */
+    private static final String PREFIX = "observation.remote.";
+
+    /**
+     * The default transport.
+     */
+    private static final String DEFAULT_TRANSPORT = "tcp";
+
+    /**
+     * The default maximum number of events to send in a single message.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * The default time to wait for more events to send in the same message.
+     */
+    private static final long DEFAULT_FLUSH_DELAY = 5L;
+
+    /**
+     * The configuration.
+     */
+    @Inject
+    private Provider<ConfigurationSource> configuration;
+
+    @Override
+    public boolean isEnabled()
+    {
+        return this.configuration.get().getProperty(PREFIX + "enabled", Boolean.FALSE);
+    }
+
+    @Override
+    public String getTransport()
+    {
+        return this.configuration.get().getProperty(PREFIX + "transport", DEFAULT_TRANSPORT);
+    }
+
+    @Override
+    public int getBatchSize()
+    {
+        return this.configuration.get().getProperty(PREFIX + "batchSize", DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public long getFlushDelay()
+    {
+        return this.configuration.get().getProperty(PREFIX + "flushDelay", DEFAULT_FLUSH_DELAY);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+
+/**
+ * Keep the remote state of each thread.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Component
+@Singleton
+public class DefaultRemoteObservationManagerContext implements RemoteObservationManagerContext
+{
+    /**
+     * The number of times {@link #pushRemoteState()} has been called without a matching {@link #popRemoteState()},
+     * for each thread.
+     */
+    private final ThreadLocal<int[]> depth = new ThreadLocal<int[]>()
+    {
+        @Override
+        protected int[] initialValue()
+        {
+            return new int[1];
+        }
+    };
+
+    @Override
+    public boolean isRemoteState()
+    {
+        return this.depth.get()[0] > 0;
+    }
+
+    @Override
+    public void pushRemoteState()
+    {
+        ++this.depth.get()[0];
+    }
+
+    @Override
+    public void popRemoteState()
+    {
+        int[] currentDepth = this.depth.get();
+        if (currentDepth[0] > 1) {
+            --currentDepth[0];
+        } else {
+            this.depth.remove();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.remote.EventReceiver;
+import org.xwiki.observation.remote.EventTransport;
+
+/**
+ * Deliver the messages to all the other started loopback transports of the same JVM. Mostly meant for tests.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Component
+@Named("loopback")
+@Singleton
+public class LoopbackEventTransport implements EventTransport
+{
+    /**
+     * The started transports of the JVM.
+     */
+    private static final List<LoopbackEventTransport> TRANSPORTS = new CopyOnWriteArrayList<>();
+
+    private volatile EventReceiver receiver;
+
+    @Override
+    public void start(EventReceiver eventReceiver)
+    {
+        this.receiver = eventReceiver;
+
+        TRANSPORTS.add(this);
+    }
+
+    @Override
+    public void send(byte[] message)
+    {
+        for (LoopbackEventTransport transport : TRANSPORTS) {
+            if (transport != this) {
+                transport.receiver.onMessage(message);
+            }
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        TRANSPORTS.remove(this);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Authenticate the messages exchanged with the other instances with a secret shared by all the instances. Each
+ * connection starts with a random challenge sent by the receiving side, and each message is sent with a HMAC of the
+ * challenge, the sequence number of the message in the connection and the message itself, so that a message can't be
+ * forged without the secret nor replayed in another connection or order.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+final class MessageAuthenticator
+{
+    /**
+     * The size of the challenge sent when a connection is opened, in bytes.
+     */
+    static final int CHALLENGE_SIZE = 16;
+
+    /**
+     * The size of the authentication code sent with each message, in bytes.
+     */
+    static final int CODE_SIZE = 32;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param secret the secret shared by all the instances
+     */
+    MessageAuthenticator(String secret)
+    {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * @return a new random challenge
+     */
+    byte[] createChallenge()
+    {
+        byte[] challenge = new byte[CHALLENGE_SIZE];
+        this.random.nextBytes(challenge);
+
+        return challenge;
+    }
+
+    /**
+     * @param challenge the challenge of the connection
+     * @param sequence the sequence number of the message in the connection
+     * @param message the message
+     * @return the authentication code of the message
+     * @throws IOException when the authentication algorithm is not available
+     */
+    byte[] sign(byte[] challenge, long sequence, byte[] message) throws IOException
+    {
+        Mac mac;
+        try {
+            mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.key);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to initialize the message authentication", e);
+        }
+
+        mac.update(challenge);
+        mac.update(ByteBuffer.allocate(Long.SIZE / Byte.SIZE).putLong(sequence).array());
+
+        return mac.doFinal(message);
+    }
+
+    /**
+     * @param challenge the challenge of the connection
+     * @param sequence the sequence number of the message in the connection
+     * @param message the message
+     * @param code the authentication code received with the message
+     * @return true if the code is the one of the message
+     * @throws IOException when the authentication algorithm is not available
+     */
+    boolean verify(byte[] challenge, long sequence, byte[] message, byte[] code) throws IOException
+    {
+        // Constant time comparison
+        return MessageDigest.isEqual(sign(challenge, sequence, message), code);
+    }
+}
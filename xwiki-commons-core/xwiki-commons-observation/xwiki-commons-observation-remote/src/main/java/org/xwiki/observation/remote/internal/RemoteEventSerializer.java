@@ -0,0 +1,248 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.filter.AlwaysMatchingEventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+import org.xwiki.observation.event.filter.RegexEventFilter;
+import org.xwiki.observation.remote.RemoteEvent;
+
+/**
+ * Serialize a batch of events in a single message. All the events of the batch share the same compressed object
+ * stream so that the description of each class is written only once per message.
+ * <p>
+ * Only the {@link RemoteEvent} implementations, the enums, the event filters of the observation API and a few JDK
+ * value and collection types can be serialized and deserialized, so that a message can't make this instance create
+ * any other kind of object. The source and data of an event are sent only when their type is one of them.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+final class RemoteEventSerializer
+{
+    /**
+     * The version of the format of the messages, written as the first byte of each message.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The maximum number of events in a message.
+     */
+    private static final int MAX_EVENTS = 100000;
+
+    /**
+     * The maximum size of a message once inflated, in bytes.
+     */
+    private static final long MAX_INFLATED_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * The classes which can be serialized besides the {@link RemoteEvent} implementations and the enums. The event
+     * filters are needed by the events extending {@link org.xwiki.observation.event.AbstractFilterableEvent}.
+     */
+    private static final Set<Class<?>> ALLOWED_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(String.class,
+        Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+        BigInteger.class, BigDecimal.class, Date.class, ArrayList.class, LinkedList.class, HashMap.class,
+        LinkedHashMap.class, HashSet.class, LinkedHashSet.class, Pattern.class, AlwaysMatchingEventFilter.class,
+        FixedNameEventFilter.class, RegexEventFilter.class));
+
+    /**
+     * Refuse to write the objects which would be refused when reading the message.
+     */
+    private static class EventOutputStream extends ObjectOutputStream
+    {
+        EventOutputStream(OutputStream out) throws IOException
+        {
+            super(out);
+
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException
+        {
+            if (!isAllowed(obj.getClass())) {
+                throw new NotSerializableException(obj.getClass().getName());
+            }
+
+            return obj;
+        }
+    }
+
+    /**
+     * Resolve the allowed classes with the context class loader (which knows the classes of the installed extensions)
+     * and fallback on the class loader of this module.
+     */
+    private static class EventInputStream extends ObjectInputStream
+    {
+        /**
+         * The super classes of the resolved classes, which are described in the stream right after them.
+         */
+        private final Set<Class<?>> superClasses = new HashSet<>();
+
+        EventInputStream(InputStream in) throws IOException
+        {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            Class<?> resolvedClass = loadClass(desc);
+
+            if (!isAllowed(resolvedClass) && !this.superClasses.contains(resolvedClass)) {
+                throw new InvalidClassException(desc.getName(), "Not allowed in a remote event message");
+            }
+
+            for (Class<?> type = resolvedClass.getSuperclass(); type != null; type = type.getSuperclass()) {
+                this.superClasses.add(type);
+            }
+
+            return resolvedClass;
+        }
+
+        private Class<?> loadClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    // Try the default class loader
+                }
+            }
+
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException
+        {
+            throw new InvalidClassException("Proxies are not allowed in a remote event message");
+        }
+    }
+
+    private RemoteEventSerializer()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param events the events to serialize
+     * @return the message
+     * @throws IOException when failing to serialize one of the events
+     */
+    static byte[] serialize(List<RemoteEventData> events) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(VERSION);
+
+        try (ObjectOutputStream output = new EventOutputStream(new DeflaterOutputStream(bytes))) {
+            output.writeInt(events.size());
+            for (RemoteEventData event : events) {
+                output.writeObject(event.getEvent());
+                output.writeObject(toSerializable(event.getSource()));
+                output.writeObject(toSerializable(event.getData()));
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static Object toSerializable(Object value)
+    {
+        return value != null && isAllowed(value.getClass()) ? value : null;
+    }
+
+    /**
+     * @param type a class
+     * @return true if the instances of the class can be part of a message
+     */
+    private static boolean isAllowed(Class<?> type)
+    {
+        if (type.isArray()) {
+            return isAllowed(type.getComponentType());
+        }
+
+        return type.isPrimitive() || ALLOWED_CLASSES.contains(type) || Enum.class.isAssignableFrom(type)
+            || RemoteEvent.class.isAssignableFrom(type);
+    }
+
+    /**
+     * @param message the message
+     * @return the events
+     * @throws IOException when failing to read the message
+     * @throws ClassNotFoundException when the class of one of the events is unknown
+     */
+    static List<RemoteEventData> deserialize(byte[] message) throws IOException, ClassNotFoundException
+    {
+        if (message.length == 0 || message[0] != VERSION) {
+            throw new IOException("Unsupported message format");
+        }
+
+        ByteArrayInputStream bytes = new ByteArrayInputStream(message, 1, message.length - 1);
+        try (ObjectInputStream input =
+            new EventInputStream(new BoundedInputStream(new InflaterInputStream(bytes), MAX_INFLATED_SIZE))) {
+            int size = input.readInt();
+            if (size < 0 || size > MAX_EVENTS) {
+                throw new IOException(String.format("Invalid number of events [%s]", size));
+            }
+
+            List<RemoteEventData> events = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                Object event = input.readObject();
+                if (!(event instanceof RemoteEvent)) {
+                    throw new IOException(String.format("Invalid event [%s]", event));
+                }
+
+                events.add(new RemoteEventData((Event) event, input.readObject(), input.readObject()));
+            }
+
+            return events;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.TypeEvent;
+import org.xwiki.observation.remote.EventReceiver;
+import org.xwiki.observation.remote.EventTransport;
+import org.xwiki.observation.remote.RemoteEvent;
+import org.xwiki.observation.remote.RemoteObservationConfiguration;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+
+/**
+ * Send the {@link RemoteEvent}s notified locally to the other instances and notify locally the ones received from
+ * the other instances. The events are queued and sent in batches by a dedicated thread so that notifying an event
+ * never waits for the network. The events received from the other instances are notified in remote state (see
+ * {@link RemoteObservationManagerContext}) so that they are not sent back.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Component
+@Named(RemoteObservationBridge.NAME)
+@Singleton
+public class RemoteObservationBridge implements EventListener, EventReceiver, Initializable, Disposable
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "RemoteObservationBridge";
+
+    /**
+     * The maximum number of events waiting to be sent.
+     */
+    private static final int QUEUE_SIZE = 10000;
+
+    /**
+     * How long to wait for the queued events to be sent when disposing, in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 10000L;
+
+    @Inject
+    private RemoteObservationConfiguration configuration;
+
+    @Inject
+    private RemoteObservationManagerContext remoteContext;
+
+    /**
+     * Lazily loaded since the observation manager creates its listeners.
+     */
+    @Inject
+    private Provider<ObservationManager> observationManagerProvider;
+
+    @Inject
+    private ComponentManager componentManager;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * The transport used to communicate with the other instances, null when the events are not propagated.
+     */
+    private EventTransport transport;
+
+    private BlockingQueue<RemoteEventData> queue;
+
+    private Thread sender;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        if (this.configuration.isEnabled()) {
+            String hint = this.configuration.getTransport();
+            try {
+                this.transport = this.componentManager.getInstance(EventTransport.class, hint);
+                this.transport.start(this);
+            } catch (ComponentLookupException | IOException e) {
+                throw new InitializationException(String.format("Failed to start the event transport [%s]", hint),
+                    e);
+            }
+
+            this.queue = new LinkedBlockingQueue<>(QUEUE_SIZE);
+
+            this.sender = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    sendEvents();
+                }
+            }, "XWiki remote event sender");
+            this.sender.setDaemon(true);
+            this.sender.start();
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        // Don't listen to anything when the events are not propagated
+        return this.transport != null ? Collections.<Event>singletonList(new TypeEvent(RemoteEvent.class))
+            : Collections.<Event>emptyList();
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        // Don't send back the events received from the other instances
+        if (!this.remoteContext.isRemoteState() && !this.queue.offer(new RemoteEventData(event, source, data))) {
+            this.logger.warn("Too many events waiting to be sent, event [{}] won't be sent to the other instances",
+                event);
+        }
+    }
+
+    @Override
+    public void onMessage(byte[] message)
+    {
+        List<RemoteEventData> events;
+        try {
+            events = RemoteEventSerializer.deserialize(message);
+        } catch (Exception e) {
+            this.logger.error("Failed to read the events received from another instance", e);
+
+            return;
+        }
+
+        ObservationManager observationManager = this.observationManagerProvider.get();
+
+        this.remoteContext.pushRemoteState();
+        try {
+            for (RemoteEventData event : events) {
+                observationManager.notify(event.getEvent(), event.getSource(), event.getData());
+            }
+        } finally {
+            this.remoteContext.popRemoteState();
+        }
+    }
+
+    /**
+     * Send the queued events until the thread is interrupted.
+     */
+    private void sendEvents()
+    {
+        int batchSize = Math.max(1, this.configuration.getBatchSize());
+        long flushDelay = this.configuration.getFlushDelay();
+
+        List<RemoteEventData> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(this.queue.take());
+
+                // Wait a bit for more events to send them in the same message
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushDelay);
+                while (batch.size() < batchSize) {
+                    RemoteEventData event = this.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (event == null) {
+                        break;
+                    }
+                    batch.add(event);
+                    this.queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Send what's left before stopping
+            batch.addAll(this.queue);
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        }
+    }
+
+    /**
+     * @param batch the events to send to the other instances
+     */
+    private void send(List<RemoteEventData> batch)
+    {
+        try {
+            this.transport.send(RemoteEventSerializer.serialize(batch));
+        } catch (NotSerializableException e) {
+            if (batch.size() > 1) {
+                // Send the events one by one to find the ones which can't be serialized
+                for (RemoteEventData event : batch) {
+                    send(Collections.singletonList(event));
+                }
+            } else {
+                this.logger.error("Failed to serialize event [{}]", batch.get(0).getEvent(), e);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Never let the sender thread die, the next events would not be sent
+            this.logger.error("Failed to send [{}] events to the other instances", batch.size(), e);
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (this.transport != null) {
+            this.sender.interrupt();
+            try {
+                this.sender.join(STOP_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            this.transport.stop();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.observation.remote.EventReceiver;
+import org.xwiki.observation.remote.EventTransport;
+
+/**
+ * Exchange messages with the other instances through TCP connections. Each instance listens on the address and port
+ * configured with {@code observation.remote.tcp.host} (the loopback address by default) and
+ * {@code observation.remote.tcp.port}, and sends its messages to each of the instances listed (as
+ * {@code <host>:<port>}) in {@code observation.remote.tcp.peers}. A peer which does not accept a connection within
+ * {@code observation.remote.tcp.timeout} milliseconds is skipped until the next message. An incoming connection which
+ * does not send its first message within the same timeout is closed, and at most
+ * {@code observation.remote.tcp.maxConnections} incoming connections are accepted at the same time.
+ * <p>
+ * All the instances must share the same secret, configured with {@code observation.remote.tcp.secret}. Each
+ * connection starts with a challenge sent by the receiving instance, then each message is sent as its length, its
+ * content and its authentication code (see {@link MessageAuthenticator}). A connection sending a message which is not
+ * authenticated is closed.
+ *
+ * @version $Id$
+ * @since 7.1M1
+ */
+@Component
+@Named("tcp")
+@Singleton
+public class TCPEventTransport implements EventTransport
+{
+    /**
+     * The default port to listen to.
+     */
+    public static final int DEFAULT_PORT = 7800;
+
+    /**
+     * Prefix for configuration keys for the TCP transport.
+     */
+    private static final String PREFIX = "observation.remote.tcp.";
+
+    /**
+     * The maximum size of a received message, to protect from corrupted streams.
+     */
+    private static final int MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+    private static final char PORT_SEPARATOR = ':';
+
+    /**
+     * The default time to wait for another instance to accept a connection and send its challenge, in milliseconds.
+     */
+    private static final int DEFAULT_TIMEOUT = 5000;
+
+    private static final int MAX_PORT = 65535;
+
+    /**
+     * The default maximum number of connections opened by other instances at the same time.
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS = 32;
+
+    /**
+     * Another instance to send the messages to, and the state of the connection to it. The connection state is guarded
+     * by the peer itself so that a slow peer does not prevent sending messages to the others or stopping the transport.
+     */
+    private static final class Peer
+    {
+        private final String host;
+
+        private final int port;
+
+        /**
+         * Volatile so that the socket can be closed while connecting or sending.
+         */
+        private volatile Socket socket;
+
+        private DataOutputStream output;
+
+        private byte[] challenge;
+
+        private long sequence;
+
+        Peer(String host, int port)
+        {
+            this.host = host;
+            this.port = port;
+        }
+
+        /**
+         * Close the connection, if any.
+         */
+        void close()
+        {
+            IOUtils.closeQuietly(this.socket);
+            this.socket = null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.host + PORT_SEPARATOR + this.port;
+        }
+    }
+
+    /**
+     * The configuration.
+     */
+    @Inject
+    private Provider<ConfigurationSource> configuration;
+
+    @Inject
+    private Logger logger;
+
+    private volatile EventReceiver receiver;
+
+    private MessageAuthenticator authenticator;
+
+    private ServerSocket serverSocket;
+
+    private List<Peer> peers;
+
+    private int timeout;
+
+    private int maxConnections;
+
+    private volatile boolean stopped;
+
+    /**
+     * The connections opened by the other instances.
+     */
+    private final List<Socket> incomingConnections = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void start(EventReceiver eventReceiver) throws IOException
+    {
+        this.receiver = eventReceiver;
+
+        ConfigurationSource configurationSource = this.configuration.get();
+
+        String secret = configurationSource.getProperty(PREFIX + "secret", String.class);
+        if (StringUtils.isEmpty(secret)) {
+            throw new IOException(String.format("No secret configured with [%ssecret]", PREFIX));
+        }
+        this.authenticator = new MessageAuthenticator(secret);
+
+        this.peers = parsePeers(configurationSource.getProperty(PREFIX + "peers", Collections.<String>emptyList()));
+        this.timeout = configurationSource.getProperty(PREFIX + "timeout", DEFAULT_TIMEOUT);
+        this.maxConnections = configurationSource.getProperty(PREFIX + "maxConnections", DEFAULT_MAX_CONNECTIONS);
+        this.serverSocket = new ServerSocket(configurationSource.getProperty(PREFIX + "port", DEFAULT_PORT), 0,
+            InetAddress.getByName(configurationSource.getProperty(PREFIX + "host", String.class)));
+
+        startThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                acceptConnections();
+            }
+        }, "XWiki remote event acceptor");
+    }
+
+    private List<Peer> parsePeers(List<String> peerList) throws IOException
+    {
+        List<Peer> result = new ArrayList<>(peerList.size());
+        for (String peer : peerList) {
+            String host = StringUtils.substringBeforeLast(peer, String.valueOf(PORT_SEPARATOR));
+            int port;
+            try {
+                port = Integer.parseInt(StringUtils.substringAfterLast(peer, String.valueOf(PORT_SEPARATOR)));
+            } catch (NumberFormatException e) {
+                port = -1;
+            }
+            if (StringUtils.isBlank(host) || port <= 0 || port > MAX_PORT) {
+                throw new IOException(String.format("Invalid peer [%s] in [%speers], <host>:<port> expected", peer,
+                    PREFIX));
+            }
+
+            result.add(new Peer(host, port));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the port the transport listens to
+     */
+    public int getPort()
+    {
+        return this.serverSocket.getLocalPort();
+    }
+
+    private void startThread(Runnable runnable, String name)
+    {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void acceptConnections()
+    {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                final Socket socket = this.serverSocket.accept();
+
+                // Each connection has its own thread
+                if (this.incomingConnections.size() >= this.maxConnections) {
+                    this.logger.warn("Refused the connection from [{}] since [{}] connections are already open",
+                        socket.getRemoteSocketAddress(), this.maxConnections);
+                    IOUtils.closeQuietly(socket);
+                } else {
+                    this.incomingConnections.add(socket);
+
+                    startThread(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            receiveMessages(socket);
+                        }
+                    }, "XWiki remote event receiver " + socket.getRemoteSocketAddress());
+                }
+            } catch (IOException e) {
+                if (!this.serverSocket.isClosed()) {
+                    this.logger.error("Failed to accept a connection from another instance", e);
+                }
+            }
+        }
+    }
+
+    private void receiveMessages(Socket socket)
+    {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            // Don't wait forever for a connection which is not authenticated yet
+            socket.setSoTimeout(this.timeout);
+
+            byte[] challenge = this.authenticator.createChallenge();
+            socket.getOutputStream().write(challenge);
+            socket.getOutputStream().flush();
+
+            byte[] code = new byte[MessageAuthenticator.CODE_SIZE];
+            for (long sequence = 0;; ++sequence) {
+                int length = input.readInt();
+                if (length < 0 || length > MAX_MESSAGE_SIZE) {
+                    throw new IOException(String.format("Invalid message length [%s]", length));
+                }
+
+                byte[] message = new byte[length];
+                input.readFully(message);
+                input.readFully(code);
+                if (!this.authenticator.verify(challenge, sequence, message, code)) {
+                    throw new IOException("Invalid message authentication code");
+                }
+                if (sequence == 0) {
+                    // The other instances keep their connection open until they have a message to send
+                    socket.setSoTimeout(0);
+                }
+
+                this.receiver.onMessage(message);
+            }
+        } catch (EOFException e) {
+            // The other instance closed the connection
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                this.logger.warn("Stopped receiving messages from [{}]", socket.getRemoteSocketAddress(), e);
+            }
+        } finally {
+            this.incomingConnections.remove(socket);
+            IOUtils.closeQuietly(socket);
+        }
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException
+    {
+        IOException failure = null;
+        for (Peer peer : this.peers) {
+            synchronized (peer) {
+                try {
+                    send(peer, message);
+                } catch (IOException e) {
+                    failure = new IOException(String.format("Failed to send the message to [%s]", peer), e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void send(Peer peer, byte[] message) throws IOException
+    {
+        if (peer.socket != null) {
+            try {
+                write(peer, message);
+
+                return;
+            } catch (IOException e) {
+                // The connection might have been closed by the other instance, try again with a new connection
+                peer.close();
+            }
+        }
+
+        connect(peer);
+        try {
+            write(peer, message);
+        } catch (IOException e) {
+            peer.close();
+
+            throw e;
+        }
+    }
+
+    private void write(Peer peer, byte[] message) throws IOException
+    {
+        peer.output.writeInt(message.length);
+        peer.output.write(message);
+        peer.output.write(this.authenticator.sign(peer.challenge, peer.sequence++, message));
+        peer.output.flush();
+    }
+
+    private void connect(Peer peer) throws IOException
+    {
+        Socket socket = new Socket();
+        peer.socket = socket;
+        try {
+            // Checked after exposing the socket to stop() so that it's either not connected or closed by stop()
+            if (this.stopped) {
+                throw new IOException("The transport is stopped");
+            }
+
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(this.timeout);
+            socket.connect(new InetSocketAddress(peer.host, peer.port), this.timeout);
+
+            peer.challenge = new byte[MessageAuthenticator.CHALLENGE_SIZE];
+            new DataInputStream(socket.getInputStream()).readFully(peer.challenge);
+            peer.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            peer.sequence = 0;
+        } catch (IOException e) {
+            peer.close();
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        this.stopped = true;
+
+        IOUtils.closeQuietly(this.serverSocket);
+
+        for (Socket socket : this.incomingConnections) {
+            IOUtils.closeQuietly(socket);
+        }
+
+        // Don't wait for the peers being sent a message, closing the socket makes the sending fail right away
+        for (Peer peer : this.peers) {
+            peer.close();
+        }
+    }
+}
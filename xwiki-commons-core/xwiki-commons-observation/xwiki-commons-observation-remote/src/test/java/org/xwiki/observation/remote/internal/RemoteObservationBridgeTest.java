@@ -0,0 +1,339 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xwiki.configuration.internal.MemoryConfigurationSource;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.AbstractFilterableEvent;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.FilterableEvent;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+import org.xwiki.observation.event.filter.RegexEventFilter;
+import org.xwiki.observation.internal.DefaultObservationManager;
+import org.xwiki.observation.remote.EventReceiver;
+import org.xwiki.observation.remote.RemoteEvent;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.test.LogRule;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.mockito.MockitoComponentManagerRule;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link RemoteObservationBridge}.
+ *
+ * @version $Id$
+ */
+@ComponentList({ DefaultObservationManager.class, DefaultRemoteObservationConfiguration.class,
+    DefaultRemoteObservationManagerContext.class, LoopbackEventTransport.class, RemoteObservationBridge.class })
+public class RemoteObservationBridgeTest
+{
+    public static class TestRemoteEvent implements RemoteEvent
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        private final Object value;
+
+        public TestRemoteEvent(String name)
+        {
+            this(name, null);
+        }
+
+        public TestRemoteEvent(String name, Object value)
+        {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(Object otherEvent)
+        {
+            return otherEvent instanceof TestRemoteEvent;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            return object instanceof TestRemoteEvent && ((TestRemoteEvent) object).name.equals(this.name);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.name.hashCode();
+        }
+    }
+
+    public static class FilteredRemoteEvent extends AbstractFilterableEvent implements RemoteEvent
+    {
+        private static final long serialVersionUID = 1L;
+
+        public FilteredRemoteEvent()
+        {
+        }
+
+        public FilteredRemoteEvent(EventFilter eventFilter)
+        {
+            super(eventFilter);
+        }
+    }
+
+    @Rule
+    public final MockitoComponentManagerRule componentManager = new MockitoComponentManagerRule();
+
+    @Rule
+    public final LogRule logCapture = new LogRule()
+    {
+        {
+            record(LogLevel.ERROR);
+            recordLoggingForType(RemoteObservationBridge.class);
+        }
+    };
+
+    /**
+     * Simulate another instance.
+     */
+    private LoopbackEventTransport remoteTransport = new LoopbackEventTransport();
+
+    private EventReceiver remoteReceiver = mock(EventReceiver.class);
+
+    private ObservationManager observationManager;
+
+    private EventListener listener = mock(EventListener.class);
+
+    @BeforeComponent
+    public void registerComponents() throws Exception
+    {
+        MemoryConfigurationSource source = this.componentManager.registerMemoryConfigurationSource();
+        source.setProperty("observation.remote.enabled", true);
+        source.setProperty("observation.remote.transport", "loopback");
+    }
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.remoteTransport.start(this.remoteReceiver);
+
+        this.observationManager = this.componentManager.getInstance(ObservationManager.class);
+
+        when(this.listener.getName()).thenReturn("listener");
+        when(this.listener.getEvents()).thenReturn(Arrays.<Event>asList(new TestRemoteEvent("")));
+        this.observationManager.addListener(this.listener);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        this.remoteTransport.stop();
+        this.componentManager.<RemoteObservationBridge>getInstance(EventListener.class, RemoteObservationBridge.NAME)
+            .dispose();
+    }
+
+    private List<RemoteEventData> receive() throws Exception
+    {
+        ArgumentCaptor<byte[]> message = ArgumentCaptor.forClass(byte[].class);
+        verify(this.remoteReceiver, timeout(5000)).onMessage(message.capture());
+
+        return RemoteEventSerializer.deserialize(message.getValue());
+    }
+
+    @Test
+    public void sendEvents() throws Exception
+    {
+        this.observationManager.notify(new TestRemoteEvent("event"), "source", new Object());
+
+        List<RemoteEventData> events = receive();
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(new TestRemoteEvent("event"), events.get(0).getEvent());
+        Assert.assertEquals("source", events.get(0).getSource());
+        // Not serializable
+        Assert.assertNull(events.get(0).getData());
+    }
+
+    @Test
+    public void sendNotSerializableEvent() throws Exception
+    {
+        // Serializable but not allowed in a message
+        this.observationManager.notify(Arrays.asList(new TestRemoteEvent("event1", new File("file")),
+            new TestRemoteEvent("event2", Arrays.asList(new Object()))), null, null);
+
+        // The events are sent one by one and skipped
+        long timeout = System.currentTimeMillis() + 5000;
+        while (this.logCapture.size() < 2 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, this.logCapture.size());
+        Assert.assertTrue(this.logCapture.getMessage(0).startsWith("Failed to serialize event"));
+        verify(this.remoteReceiver, never()).onMessage(any(byte[].class));
+    }
+
+    @Test
+    public void sendAfterTransportFailure() throws Exception
+    {
+        doThrow(new RuntimeException("error")).doNothing().when(this.remoteReceiver).onMessage(any(byte[].class));
+
+        this.observationManager.notify(new TestRemoteEvent("event1"), null);
+        verify(this.remoteReceiver, timeout(5000)).onMessage(any(byte[].class));
+
+        // The sender is still alive
+        this.observationManager.notify(new TestRemoteEvent("event2"), null);
+        verify(this.remoteReceiver, timeout(5000).times(2)).onMessage(any(byte[].class));
+        Assert.assertEquals("Failed to send [1] events to the other instances", this.logCapture.getMessage(0));
+    }
+
+    @Test
+    public void sendNotAllowedSourceAndData() throws Exception
+    {
+        this.observationManager.notify(new TestRemoteEvent("event"), new File("source"),
+            new ArrayList<>(Arrays.asList("data", 1, RetentionPolicy.RUNTIME, new byte[] { 1 })));
+
+        List<RemoteEventData> events = receive();
+        Assert.assertNull(events.get(0).getSource());
+        List<?> data = (List<?>) events.get(0).getData();
+        Assert.assertEquals(Arrays.asList("data", 1, RetentionPolicy.RUNTIME), data.subList(0, 3));
+        Assert.assertArrayEquals(new byte[] { 1 }, (byte[]) data.get(3));
+    }
+
+    @Test
+    public void receiveEvents() throws Exception
+    {
+        final RemoteObservationManagerContext remoteContext =
+            this.componentManager.getInstance(RemoteObservationManagerContext.class);
+        final boolean[] remoteState = new boolean[1];
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(InvocationOnMock invocation)
+            {
+                remoteState[0] = remoteContext.isRemoteState();
+
+                return null;
+            }
+        }).when(this.listener).onEvent(any(Event.class), any(), any());
+
+        this.remoteTransport.send(RemoteEventSerializer.serialize(
+            Arrays.asList(new RemoteEventData(new TestRemoteEvent("event"), "source", "data"))));
+
+        verify(this.listener).onEvent(new TestRemoteEvent("event"), "source", "data");
+        Assert.assertTrue(remoteState[0]);
+        Assert.assertFalse(remoteContext.isRemoteState());
+
+        // Not sent back
+        Thread.sleep(100);
+        verify(this.remoteReceiver, never()).onMessage(any(byte[].class));
+    }
+
+    @Test
+    public void sendAndReceiveFilteredEvents() throws Exception
+    {
+        List<RemoteEventData> events = RemoteEventSerializer.deserialize(RemoteEventSerializer.serialize(Arrays.asList(
+            new RemoteEventData(new FilteredRemoteEvent(), null, null),
+            new RemoteEventData(new FilteredRemoteEvent(new FixedNameEventFilter("Space.Page")), null, null),
+            new RemoteEventData(new FilteredRemoteEvent(new RegexEventFilter("Space\\..*")), null, null))));
+
+        Assert.assertEquals(3, events.size());
+        Assert.assertEquals(new FilteredRemoteEvent(), events.get(0).getEvent());
+        Assert.assertEquals(new FilteredRemoteEvent(new FixedNameEventFilter("Space.Page")), events.get(1).getEvent());
+        EventFilter regexFilter = ((FilterableEvent) events.get(2).getEvent()).getEventFilter();
+        Assert.assertEquals("Space\\..*", regexFilter.getFilter());
+        Assert.assertTrue(regexFilter.matches(new FixedNameEventFilter("Space.Page")));
+
+        // Received by the listeners matching the filter
+        EventListener filteredListener = mock(EventListener.class);
+        when(filteredListener.getName()).thenReturn("filtered");
+        when(filteredListener.getEvents()).thenReturn(
+            Arrays.<Event>asList(new FilteredRemoteEvent(new RegexEventFilter("Space\\..*"))));
+        this.observationManager.addListener(filteredListener);
+
+        FilteredRemoteEvent event = new FilteredRemoteEvent(new FixedNameEventFilter("Space.Page"));
+        this.remoteTransport.send(
+            RemoteEventSerializer.serialize(Arrays.asList(new RemoteEventData(event, null, null))));
+
+        verify(filteredListener).onEvent(event, null, null);
+        Assert.assertEquals(0, this.logCapture.size());
+    }
+
+    @Test
+    public void receiveInvalidMessage() throws Exception
+    {
+        this.remoteTransport.send(new byte[] { 42 });
+
+        verify(this.listener, never()).onEvent(any(Event.class), any(), any());
+        Assert.assertEquals("Failed to read the events received from another instance",
+            this.logCapture.getMessage(0));
+    }
+
+    @Test
+    public void receiveNotAllowedClass() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(1);
+        try (ObjectOutputStream output = new ObjectOutputStream(new DeflaterOutputStream(bytes))) {
+            output.writeInt(1);
+            output.writeObject(new TestRemoteEvent("event"));
+            output.writeObject(new File("source"));
+            output.writeObject(null);
+        }
+
+        byte[] message = bytes.toByteArray();
+        try {
+            RemoteEventSerializer.deserialize(message);
+            Assert.fail("The message should have been refused");
+        } catch (InvalidClassException expected) {
+            Assert.assertEquals(File.class.getName(), expected.classname);
+        }
+
+        this.remoteTransport.send(message);
+
+        verify(this.listener, never()).onEvent(any(Event.class), any(), any());
+        Assert.assertEquals("Failed to read the events received from another instance",
+            this.logCapture.getMessage(0));
+    }
+}
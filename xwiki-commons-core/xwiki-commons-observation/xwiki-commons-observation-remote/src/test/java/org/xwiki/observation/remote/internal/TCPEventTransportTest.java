@@ -0,0 +1,281 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.observation.remote.EventReceiver;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TCPEventTransport}.
+ *
+ * @version $Id$
+ */
+public class TCPEventTransportTest
+{
+    private static final String SECRET = "secret";
+
+    @Rule
+    public final MockitoComponentMockingRule<TCPEventTransport> mocker =
+        new MockitoComponentMockingRule<TCPEventTransport>(TCPEventTransport.class);
+
+    private MessageAuthenticator authenticator = new MessageAuthenticator(SECRET);
+
+    /**
+     * @param peerPort the port of the only peer, null for no peer
+     */
+    private ConfigurationSource configure(Integer peerPort) throws Exception
+    {
+        ConfigurationSource configuration = this.mocker.getInstance(ConfigurationSource.class);
+        when(configuration.getProperty(eq("observation.remote.tcp.port"), any(Integer.class))).thenReturn(0);
+        when(configuration.getProperty(eq("observation.remote.tcp.timeout"), any(Integer.class))).thenReturn(5000);
+        when(configuration.getProperty(eq("observation.remote.tcp.maxConnections"), any(Integer.class))).thenReturn(
+            10);
+        when(configuration.getProperty("observation.remote.tcp.secret", String.class)).thenReturn(SECRET);
+        when(configuration.getProperty(eq("observation.remote.tcp.peers"), any(Object.class))).thenReturn(
+            peerPort != null ? Arrays.asList("localhost:" + peerPort) : Collections.emptyList());
+
+        return configuration;
+    }
+
+    @Test
+    public void sendAndReceive() throws Exception
+    {
+        final byte[] message = new byte[] { 1, 2, 3 };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ServerSocket peer = new ServerSocket(0)) {
+            configure(peer.getLocalPort());
+
+            EventReceiver receiver = mock(EventReceiver.class);
+            final TCPEventTransport transport = this.mocker.getComponentUnderTest();
+            transport.start(receiver);
+
+            try {
+                // Send (waits for the challenge of the peer)
+                Future<Void> sent = executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        transport.send(message);
+                        transport.send(message);
+
+                        return null;
+                    }
+                });
+                try (Socket socket = peer.accept()) {
+                    byte[] challenge = this.authenticator.createChallenge();
+                    socket.getOutputStream().write(challenge);
+
+                    DataInputStream input = new DataInputStream(socket.getInputStream());
+                    for (long sequence = 0; sequence < 2; ++sequence) {
+                        Assert.assertArrayEquals(message, readMessage(input, challenge, sequence));
+                    }
+                }
+                sent.get(5, TimeUnit.SECONDS);
+
+                // Receive
+                try (Socket socket = new Socket("localhost", transport.getPort())) {
+                    DataInputStream input = new DataInputStream(socket.getInputStream());
+                    byte[] challenge = new byte[MessageAuthenticator.CHALLENGE_SIZE];
+                    input.readFully(challenge);
+
+                    DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+                    writeMessage(output, message, this.authenticator.sign(challenge, 0, message));
+
+                    verify(receiver, timeout(5000)).onMessage(message);
+                }
+            } finally {
+                transport.stop();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void receiveNotAuthenticatedMessage() throws Exception
+    {
+        byte[] message = new byte[] { 1, 2, 3 };
+
+        configure(null);
+
+        EventReceiver receiver = mock(EventReceiver.class);
+        TCPEventTransport transport = this.mocker.getComponentUnderTest();
+        transport.start(receiver);
+
+        try (Socket socket = new Socket("localhost", transport.getPort())) {
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            byte[] challenge = new byte[MessageAuthenticator.CHALLENGE_SIZE];
+            input.readFully(challenge);
+
+            // Signed with another secret
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            writeMessage(output, message, new MessageAuthenticator("other").sign(challenge, 0, message));
+
+            // The connection is closed
+            Assert.assertEquals(-1, input.read());
+            verify(receiver, never()).onMessage(any(byte[].class));
+        } finally {
+            transport.stop();
+        }
+    }
+
+    @Test
+    public void receiveNothing() throws Exception
+    {
+        ConfigurationSource configuration = configure(null);
+        when(configuration.getProperty(eq("observation.remote.tcp.timeout"), any(Integer.class))).thenReturn(100);
+
+        TCPEventTransport transport = this.mocker.getComponentUnderTest();
+        transport.start(mock(EventReceiver.class));
+
+        try (Socket socket = new Socket("localhost", transport.getPort())) {
+            socket.setSoTimeout(5000);
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            input.readFully(new byte[MessageAuthenticator.CHALLENGE_SIZE]);
+
+            // The connection is closed since no message is sent
+            Assert.assertEquals(-1, input.read());
+        } finally {
+            transport.stop();
+        }
+    }
+
+    @Test
+    public void receiveTooManyConnections() throws Exception
+    {
+        ConfigurationSource configuration = configure(null);
+        when(configuration.getProperty(eq("observation.remote.tcp.maxConnections"), any(Integer.class))).thenReturn(
+            1);
+
+        TCPEventTransport transport = this.mocker.getComponentUnderTest();
+        transport.start(mock(EventReceiver.class));
+
+        try (Socket socket = new Socket("localhost", transport.getPort())) {
+            socket.setSoTimeout(5000);
+            new DataInputStream(socket.getInputStream()).readFully(new byte[MessageAuthenticator.CHALLENGE_SIZE]);
+
+            try (Socket otherSocket = new Socket("localhost", transport.getPort())) {
+                otherSocket.setSoTimeout(5000);
+
+                // Closed without sending any challenge
+                Assert.assertEquals(-1, otherSocket.getInputStream().read());
+            }
+        } finally {
+            transport.stop();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void startWithoutSecret() throws Exception
+    {
+        configure(null);
+        when(this.mocker.<ConfigurationSource>getInstance(ConfigurationSource.class).getProperty(
+            "observation.remote.tcp.secret", String.class)).thenReturn(null);
+
+        this.mocker.getComponentUnderTest().start(mock(EventReceiver.class));
+    }
+
+    @Test
+    public void startWithInvalidPeer() throws Exception
+    {
+        ConfigurationSource configuration = configure(null);
+        when(configuration.getProperty(eq("observation.remote.tcp.peers"), any(Object.class))).thenReturn(
+            Arrays.asList("localhost:port"));
+
+        try {
+            this.mocker.getComponentUnderTest().start(mock(EventReceiver.class));
+            Assert.fail("The transport should not start");
+        } catch (IOException expected) {
+            Assert.assertEquals(
+                "Invalid peer [localhost:port] in [observation.remote.tcp.peers], <host>:<port> expected",
+                expected.getMessage());
+        }
+    }
+
+    @Test
+    public void sendToUnresponsivePeer() throws Exception
+    {
+        // Accepts the connections but never sends the challenge
+        try (ServerSocket peer = new ServerSocket(0)) {
+            ConfigurationSource configuration = configure(peer.getLocalPort());
+            when(configuration.getProperty(eq("observation.remote.tcp.timeout"), any(Integer.class))).thenReturn(
+                100);
+
+            TCPEventTransport transport = this.mocker.getComponentUnderTest();
+            transport.start(mock(EventReceiver.class));
+
+            try {
+                transport.send(new byte[] { 1 });
+                Assert.fail("The message should not have been sent");
+            } catch (IOException expected) {
+                Assert.assertTrue(expected.getCause() instanceof SocketTimeoutException);
+            } finally {
+                transport.stop();
+            }
+        }
+    }
+
+    private byte[] readMessage(DataInputStream input, byte[] challenge, long sequence) throws IOException
+    {
+        byte[] message = new byte[input.readInt()];
+        input.readFully(message);
+        byte[] code = new byte[MessageAuthenticator.CODE_SIZE];
+        input.readFully(code);
+        Assert.assertTrue(this.authenticator.verify(challenge, sequence, message, code));
+
+        return message;
+    }
+
+    private void writeMessage(DataOutputStream output, byte[] message, byte[] code) throws IOException
+    {
+        output.writeInt(message.length);
+        output.write(message);
+        output.write(code);
+        output.flush();
+    }
+}
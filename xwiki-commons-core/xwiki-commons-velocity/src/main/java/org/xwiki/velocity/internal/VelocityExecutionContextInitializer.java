@@ -49,6 +49,13 @@ public class VelocityExecutionContextInitializer implements ExecutionContextInit
      */
     public static final String VELOCITY_CONTEXT_ID = "velocityContext";
 
+    /**
+     * The id under which the Velocity Context created by the factory is kept in the Execution Context. It's never
+     * exposed to the scripts so it can be shared with the clones of the Execution Context, which get their own copy of
+     * it instead of asking the factory for a new Velocity Context.
+     */
+    private static final String VELOCITY_CONTEXT_TEMPLATE_ID = "velocityContextTemplate";
+
     /**
      * The Velocity context factory component used for creating the Velocity Context (injected automatically by the
      * Component subsystem).
@@ -61,11 +68,20 @@ public void initialize(ExecutionContext executionContext) throws ExecutionContex
     {
         try {
             if (!executionContext.hasProperty(VELOCITY_CONTEXT_ID)) {
-                VelocityContext context = this.velocityContextFactory.createContext();
+                VelocityContext template = (VelocityContext) executionContext.getProperty(VELOCITY_CONTEXT_TEMPLATE_ID);
+                if (template == null) {
+                    template = this.velocityContextFactory.createContext();
+                    executionContext.newProperty(VELOCITY_CONTEXT_TEMPLATE_ID)
+                        .shareable()
+                        .makeFinal()
+                        .initial(template)
+                        .declare();
+                }
+
                 executionContext.newProperty(VELOCITY_CONTEXT_ID)
                     .cloneValue()
                     .inherited()
-                    .initial(context)
+                    .initial(template.clone())
                     .declare();
             }
         } catch (XWikiVelocityException e) {
@@ -0,0 +1,83 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.velocity.internal;
+
+import org.apache.velocity.VelocityContext;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextInitializer;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+import org.xwiki.velocity.VelocityContextFactory;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link VelocityExecutionContextInitializer}.
+ *
+ * @version $Id$
+ */
+public class VelocityExecutionContextInitializerTest
+{
+    @Rule
+    public MockitoComponentMockingRule<ExecutionContextInitializer> mocker =
+        new MockitoComponentMockingRule<ExecutionContextInitializer>(VelocityExecutionContextInitializer.class);
+
+    /**
+     * Verify that the clones of an execution context get their own copy of the Velocity Context created by the
+     * factory instead of asking the factory for a new one, and that the values set by the scripts are not shared.
+     */
+    @Test
+    public void initializeSharedContext() throws Exception
+    {
+        VelocityContext factoryContext = new VelocityContext();
+        factoryContext.put("tool", "tool value");
+        VelocityContextFactory factory = this.mocker.getInstance(VelocityContextFactory.class);
+        when(factory.createContext()).thenReturn(factoryContext);
+
+        ExecutionContext context = new ExecutionContext();
+        this.mocker.getComponentUnderTest().initialize(context);
+
+        VelocityContext velocityContext =
+            (VelocityContext) context.getProperty(VelocityExecutionContextInitializer.VELOCITY_CONTEXT_ID);
+        Assert.assertNotSame(factoryContext, velocityContext);
+        Assert.assertEquals("tool value", velocityContext.get("tool"));
+        velocityContext.put("variable", "value");
+
+        ExecutionContext clonedContext = new ExecutionContext();
+        clonedContext.shareFrom(context);
+        this.mocker.getComponentUnderTest().initialize(clonedContext);
+
+        VelocityContext clonedVelocityContext =
+            (VelocityContext) clonedContext.getProperty(VelocityExecutionContextInitializer.VELOCITY_CONTEXT_ID);
+        Assert.assertNotSame(velocityContext, clonedVelocityContext);
+        Assert.assertEquals("tool value", clonedVelocityContext.get("tool"));
+        Assert.assertFalse(clonedVelocityContext.containsKey("variable"));
+
+        clonedVelocityContext.put("tool", "modified value");
+        Assert.assertEquals("tool value", velocityContext.get("tool"));
+        Assert.assertEquals("tool value", factoryContext.get("tool"));
+
+        verify(factory, times(1)).createContext();
+    }
+}